@@ -254,6 +254,22 @@ public class FilteringClassLoader extends ClassLoader implements ClassLoaderHier
             this.disallowedPackagePrefixes = new HashSet<String>(disallowedPackagePrefixes);
         }
 
+        /**
+         * Lists the contents of this spec in sorted order, so that equal specs produce the same string.
+         */
+        @Override
+        public String toString() {
+            return String.format("[%s classNames:%s packageNames:%s packagePrefixes:%s resourcePrefixes:%s resourceNames:%s disallowedClassNames:%s disallowedPackagePrefixes:%s]",
+                    getClass().getSimpleName(), sorted(classNames), sorted(packageNames), sorted(packagePrefixes), sorted(resourcePrefixes), sorted(resourceNames),
+                    sorted(disallowedClassNames), sorted(disallowedPackagePrefixes));
+        }
+
+        private static List<String> sorted(Set<String> values) {
+            List<String> result = new ArrayList<String>(values);
+            Collections.sort(result);
+            return result;
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (obj == this) {
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.cache;
+
+import com.google.common.base.Objects;
+import net.jcip.annotations.ThreadSafe;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds byte arrays outside of the Java heap, in a fixed size block of direct memory.
+ *
+ * <p>The memory is split into blocks, and each entry uses as many blocks as its contents need. When there are not enough free blocks for a new entry, the
+ * least recently used entries are evicted. Entries are grouped by an owner, so that all entries of an owner can be discarded at once.</p>
+ */
+@ThreadSafe
+public class OffHeapArena {
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    private final ByteBuffer memory;
+    private final int blockSize;
+    private final int[] freeBlocks;
+    private int freeCount;
+    private final LinkedHashMap<EntryKey, Entry> entries = new LinkedHashMap<EntryKey, Entry>(1000, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public OffHeapArena(long maxBytes) {
+        this(maxBytes, DEFAULT_BLOCK_SIZE);
+    }
+
+    public OffHeapArena(long maxBytes, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException(String.format("Block size must be positive, but was %s.", blockSize));
+        }
+        int blockCount = (int) (Math.min(maxBytes, Integer.MAX_VALUE) / blockSize);
+        if (blockCount <= 0) {
+            throw new IllegalArgumentException(String.format("Arena size must be at least one block of %s bytes, but was %s.", blockSize, maxBytes));
+        }
+        this.blockSize = blockSize;
+        this.memory = ByteBuffer.allocateDirect(blockCount * blockSize);
+        this.freeBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks[i] = blockCount - 1 - i;
+        }
+        this.freeCount = blockCount;
+    }
+
+    /**
+     * Returns a copy of the given entry, or null if the arena does not contain the entry.
+     */
+    public synchronized byte[] get(Object owner, Object key) {
+        Entry entry = entries.get(new EntryKey(owner, key));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        byte[] contents = new byte[entry.length];
+        int offset = 0;
+        for (int block : entry.blocks) {
+            int count = Math.min(blockSize, entry.length - offset);
+            memory.position(block * blockSize);
+            memory.get(contents, offset, count);
+            offset += count;
+        }
+        return contents;
+    }
+
+    /**
+     * Stores a copy of the given contents, replacing any existing entry. Contents that are larger than the arena are not stored.
+     *
+     * @return true if the contents were stored.
+     */
+    public synchronized boolean put(Object owner, Object key, byte[] contents) {
+        EntryKey entryKey = new EntryKey(owner, key);
+        release(entries.remove(entryKey));
+        int required = (contents.length + blockSize - 1) / blockSize;
+        if (required > freeBlocks.length) {
+            return false;
+        }
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (freeCount < required) {
+            release(leastRecentlyUsed.next());
+            leastRecentlyUsed.remove();
+            evictions++;
+        }
+        int[] blocks = new int[required];
+        for (int i = 0; i < required; i++) {
+            int block = freeBlocks[--freeCount];
+            int offset = i * blockSize;
+            memory.position(block * blockSize);
+            memory.put(contents, offset, Math.min(blockSize, contents.length - offset));
+            blocks[i] = block;
+        }
+        entries.put(entryKey, new Entry(blocks, contents.length));
+        return true;
+    }
+
+    public synchronized void remove(Object owner, Object key) {
+        release(entries.remove(new EntryKey(owner, key)));
+    }
+
+    /**
+     * Discards all entries of the given owner.
+     */
+    public synchronized void removeAll(Object owner) {
+        Iterator<Map.Entry<EntryKey, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<EntryKey, Entry> entry = iterator.next();
+            if (entry.getKey().owner.equals(owner)) {
+                release(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void release(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        for (int block : entry.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return (long) (freeBlocks.length - freeCount) * blockSize;
+    }
+
+    public long getMaxBytes() {
+        return (long) freeBlocks.length * blockSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private static class EntryKey {
+        final Object owner;
+        final Object key;
+
+        EntryKey(Object owner, Object key) {
+            this.owner = owner;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof EntryKey)) {
+                return false;
+            }
+            EntryKey other = (EntryKey) obj;
+            return owner.equals(other.owner) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(owner, key);
+        }
+    }
+
+    private static class Entry {
+        final int[] blocks;
+        final int length;
+
+        Entry(int[] blocks, int length) {
+            this.blocks = blocks;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.execution.taskgraph.TaskDurationHistory;
+import org.gradle.internal.Factory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.LONG_SERIALIZER;
+
+/**
+ * Keeps the duration of the most recent execution of each task in the task history cache, keyed by task path. Durations are held in memory as tasks
+ * complete, and are written to the cache together when flushed.
+ */
+public class CacheBackedTaskDurationHistory implements TaskDurationHistory {
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final PersistentIndexedCache<String, Long> durations;
+    private final ConcurrentMap<String, Long> pending = new ConcurrentHashMap<String, Long>();
+
+    public CacheBackedTaskDurationHistory(TaskArtifactStateCacheAccess cacheAccess) {
+        this.cacheAccess = cacheAccess;
+        this.durations = cacheAccess.createCache("taskDurations", String.class, LONG_SERIALIZER);
+    }
+
+    public Map<TaskInternal, Long> getPreviousDurations(final Collection<? extends TaskInternal> tasks) {
+        return cacheAccess.useCache("Load task durations", new Factory<Map<TaskInternal, Long>>() {
+            public Map<TaskInternal, Long> create() {
+                Map<TaskInternal, Long> result = new HashMap<TaskInternal, Long>();
+                for (TaskInternal task : tasks) {
+                    Long duration = durations.get(task.getPath());
+                    if (duration != null) {
+                        result.put(task, duration);
+                    }
+                }
+                return result;
+            }
+        });
+    }
+
+    public void recordDuration(TaskInternal task, long durationMillis) {
+        pending.put(task.getPath(), durationMillis);
+    }
+
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        final Map<String, Long> toWrite = new HashMap<String, Long>();
+        for (Map.Entry<String, Long> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                toWrite.put(entry.getKey(), entry.getValue());
+            }
+        }
+        cacheAccess.useCache("Update task durations", new Runnable() {
+            public void run() {
+                for (Map.Entry<String, Long> entry : toWrite.entrySet()) {
+                    durations.put(entry.getKey(), entry.getValue());
+                }
+            }
+        });
+    }
+}
@@ -15,27 +15,45 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.hash.Hasher;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentStore;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class CachingFileSnapshotter implements FileSnapshotter, FileTreeElementSnapshotter {
+    // The number of changed files hashed by a single build operation
+    private static final int HASH_BATCH_SIZE = 64;
+
     private final PersistentIndexedCache<String, FileInfo> cache;
     private final Hasher hasher;
-    private final FileInfoSerializer serializer = new FileInfoSerializer();
     private final StringInterner stringInterner;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public CachingFileSnapshotter(Hasher hasher, PersistentStore store, StringInterner stringInterner) {
+        this(hasher, store, stringInterner, null);
+    }
+
+    public CachingFileSnapshotter(Hasher hasher, PersistentStore store, StringInterner stringInterner, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.hasher = hasher;
-        this.cache = store.createCache("fileHashes", String.class, serializer);
+        this.cache = store.createCache("fileHashes", String.class, new FileInfoSerializer());
         this.stringInterner = stringInterner;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public FileInfo snapshot(File file) {
@@ -46,6 +64,58 @@ public class CachingFileSnapshotter implements FileSnapshotter, FileTreeElementS
         return snapshot(file.getFile(), file.getSize(), file.getLastModified());
     }
 
+    /**
+     * Takes a snapshot of each of the given files, hashing the files that have changed since they were last hashed concurrently. The cache is only
+     * read and updated from the calling thread, in the order of the given files.
+     */
+    public List<FileSnapshot> snapshotAll(List<? extends FileTreeElement> files) {
+        FileSnapshot[] snapshots = new FileSnapshot[files.size()];
+        List<HashFileOperation> changedFiles = new ArrayList<HashFileOperation>();
+        for (int i = 0; i < snapshots.length; i++) {
+            FileTreeElement fileDetails = files.get(i);
+            File file = fileDetails.getFile();
+            long length = fileDetails.getSize();
+            long timestamp = fileDetails.getLastModified();
+            FileInfo info = cache.get(file.getAbsolutePath());
+            if (info != null && length == info.length && timestamp == info.timestamp) {
+                snapshots[i] = info;
+            } else {
+                changedFiles.add(new HashFileOperation(i, file, length, timestamp));
+            }
+        }
+
+        hashAll(changedFiles);
+
+        for (HashFileOperation changedFile : changedFiles) {
+            FileInfo info = new FileInfo(changedFile.hash, changedFile.length, changedFile.timestamp);
+            cache.put(stringInterner.intern(changedFile.file.getAbsolutePath()), info);
+            snapshots[changedFile.index] = info;
+        }
+        return Arrays.asList(snapshots);
+    }
+
+    private void hashAll(List<HashFileOperation> changedFiles) {
+        if (buildOperationProcessor == null || changedFiles.size() <= HASH_BATCH_SIZE) {
+            for (HashFileOperation changedFile : changedFiles) {
+                changedFile.hash = hasher.hash(changedFile.file);
+            }
+            return;
+        }
+
+        BuildOperationQueue<HashBatchOperation> queue = buildOperationProcessor.newQueue(new HashBatchWorker(hasher), null);
+        for (int start = 0; start < changedFiles.size(); start += HASH_BATCH_SIZE) {
+            queue.add(new HashBatchOperation(changedFiles.subList(start, Math.min(start + HASH_BATCH_SIZE, changedFiles.size()))));
+        }
+        try {
+            queue.waitForCompletion();
+        } catch (MultipleBuildOperationFailures e) {
+            if (e.getCauses().size() == 1) {
+                throw UncheckedException.throwAsUncheckedException(e.getCauses().get(0));
+            }
+            throw e;
+        }
+    }
+
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
         FileInfo info = cache.get(absolutePath);
@@ -60,6 +130,51 @@ public class CachingFileSnapshotter implements FileSnapshotter, FileTreeElementS
         return info;
     }
 
+    private static class HashFileOperation {
+        private final int index;
+        private final File file;
+        private final long length;
+        private final long timestamp;
+        private byte[] hash;
+
+        HashFileOperation(int index, File file, long length, long timestamp) {
+            this.index = index;
+            this.file = file;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class HashBatchOperation implements BuildOperation {
+        private final List<HashFileOperation> files;
+
+        HashBatchOperation(List<HashFileOperation> files) {
+            this.files = files;
+        }
+
+        public String getDescription() {
+            return "hash " + files.size() + " files";
+        }
+    }
+
+    private static class HashBatchWorker implements BuildOperationWorker<HashBatchOperation> {
+        private final Hasher hasher;
+
+        HashBatchWorker(Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        public String getDisplayName() {
+            return "file hasher";
+        }
+
+        public void execute(HashBatchOperation operation) {
+            for (HashFileOperation file : operation.files) {
+                file.hash = hasher.hash(file.file);
+            }
+        }
+    }
+
     public static class FileInfo implements FileSnapshot {
         private final byte[] hash;
         private final long timestamp;
@@ -33,12 +33,10 @@ import java.util.*;
 
 public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshotter {
     private final FileTreeElementSnapshotter snapshotter;
-    private TaskArtifactStateCacheAccess cacheAccess;
     private final StringInterner stringInterner;
 
-    public DefaultFileCollectionSnapshotter(FileTreeElementSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
+    public DefaultFileCollectionSnapshotter(FileTreeElementSnapshotter snapshotter, StringInterner stringInterner) {
         this.snapshotter = snapshotter;
-        this.cacheAccess = cacheAccess;
         this.stringInterner = stringInterner;
     }
 
@@ -47,34 +45,35 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
     }
 
     public FileCollectionSnapshot emptySnapshot() {
-        return new FileCollectionSnapshotImpl(new HashMap<String, IncrementalFileSnapshot>());
+        return FileCollectionSnapshotImpl.EMPTY;
     }
 
     public FileCollectionSnapshot snapshot(final FileCollection input) {
-        final List<FileVisitDetails> allFileVisitDetails = visitFiles(input);
+        List<FileVisitDetails> allFileVisitDetails = visitFiles(input);
 
         if (allFileVisitDetails.isEmpty()) {
-            return new FileCollectionSnapshotImpl(Collections.<String, IncrementalFileSnapshot>emptyMap());
+            return FileCollectionSnapshotImpl.EMPTY;
         }
 
-        final Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
-
-        cacheAccess.useCache("Create file snapshot", new Runnable() {
-            public void run() {
-                for (FileVisitDetails fileDetails : allFileVisitDetails) {
-                    final String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
-                    if (!snapshots.containsKey(absolutePath)) {
-                        if (fileDetails.isDirectory()) {
-                            snapshots.put(absolutePath, DirSnapshot.getInstance());
-                        } else {
-                            snapshots.put(absolutePath, new FileHashSnapshot(snapshotter.snapshot(fileDetails).getHash()));
-                        }
-                    }
-                }
+        Builder builder = new Builder(allFileVisitDetails.size());
+
+        List<String> filePaths = new ArrayList<String>();
+        List<FileVisitDetails> files = new ArrayList<FileVisitDetails>();
+        for (FileVisitDetails fileDetails : allFileVisitDetails) {
+            final String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
+            if (fileDetails.isDirectory()) {
+                builder.addDirectory(absolutePath);
+            } else {
+                filePaths.add(absolutePath);
+                files.add(fileDetails);
             }
-        });
+        }
+        List<FileSnapshot> fileSnapshots = snapshotter.snapshotAll(files);
+        for (int i = 0; i < filePaths.size(); i++) {
+            builder.addFile(filePaths.get(i), fileSnapshots.get(i).getHash());
+        }
 
-        return new FileCollectionSnapshotImpl(snapshots);
+        return builder.build();
     }
 
     private List<FileVisitDetails> visitFiles(FileCollection input) {
@@ -125,26 +124,13 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         return null;
     }
 
-    static interface IncrementalFileSnapshot {
-        boolean isUpToDate(IncrementalFileSnapshot snapshot);
-    }
-
-    static class FileHashSnapshot implements IncrementalFileSnapshot, FileSnapshot {
+    static class FileHashSnapshot implements FileSnapshot {
         final byte[] hash;
 
         public FileHashSnapshot(byte[] hash) {
             this.hash = hash;
         }
 
-        public boolean isUpToDate(IncrementalFileSnapshot snapshot) {
-            if (!(snapshot instanceof FileHashSnapshot)) {
-                return false;
-            }
-
-            FileHashSnapshot other = (FileHashSnapshot) snapshot;
-            return Arrays.equals(hash, other.hash);
-        }
-
         @Override
         public String toString() {
             return new BigInteger(1, hash).toString(16);
@@ -155,39 +141,43 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         }
     }
 
-    static class DirSnapshot implements IncrementalFileSnapshot {
-        private static DirSnapshot instance = new DirSnapshot();
-
-        private DirSnapshot() {
-        }
-
-        static DirSnapshot getInstance() {
-            return instance;
-        }
-
-        public boolean isUpToDate(IncrementalFileSnapshot snapshot) {
-            return snapshot instanceof DirSnapshot;
+    /**
+     * A snapshot of a file collection, held as a table of entries sorted by path. The hashes of all files are stored in a single array, so that
+     * snapshots of large file collections are compact, and diffing two snapshots is a merge of two sorted tables.
+     */
+    static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
+        static final byte DIR = 1;
+        static final byte MISSING = 2;
+        static final byte FILE = 3;
+
+        static final FileCollectionSnapshotImpl EMPTY = new Builder(0).build();
+
+        final String[] paths;
+        final byte[] kinds;
+        // The hash of the entry at index i is stored in hashes[hashOffsets[i]] to hashes[hashOffsets[i + 1] - 1]
+        final int[] hashOffsets;
+        final byte[] hashes;
+
+        FileCollectionSnapshotImpl(String[] paths, byte[] kinds, int[] hashOffsets, byte[] hashes) {
+            this.paths = paths;
+            this.kinds = kinds;
+            this.hashOffsets = hashOffsets;
+            this.hashes = hashes;
         }
-    }
 
-    static class MissingFileSnapshot implements IncrementalFileSnapshot {
-        public boolean isUpToDate(IncrementalFileSnapshot snapshot) {
-            return snapshot instanceof MissingFileSnapshot;
+        int size() {
+            return paths.length;
         }
-    }
-
-    static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
-        final Map<String, IncrementalFileSnapshot> snapshots;
 
-        public FileCollectionSnapshotImpl(Map<String, IncrementalFileSnapshot> snapshots) {
-            this.snapshots = snapshots;
+        byte[] getHash(int index) {
+            return Arrays.copyOfRange(hashes, hashOffsets[index], hashOffsets[index + 1]);
         }
 
         public FileCollection getFiles() {
             List<File> files = new ArrayList<File>();
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
-                if (entry.getValue() instanceof FileHashSnapshot) {
-                    files.add(new File(entry.getKey()));
+            for (int i = 0; i < paths.length; i++) {
+                if (kinds[i] == FILE) {
+                    files.add(new File(paths[i]));
                 }
             }
             return new SimpleFileCollection(files);
@@ -196,9 +186,9 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         public FilesSnapshotSet getSnapshot() {
             return new FilesSnapshotSet() {
                 public FileSnapshot findSnapshot(File file) {
-                    IncrementalFileSnapshot s = snapshots.get(file.getAbsolutePath());
-                    if (s instanceof FileSnapshot) {
-                        return (FileSnapshot) s;
+                    int index = Arrays.binarySearch(paths, file.getAbsolutePath());
+                    if (index >= 0 && kinds[index] == FILE) {
+                        return new FileHashSnapshot(getHash(index));
                     }
                     return null;
                 }
@@ -206,37 +196,31 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         }
 
         public ChangeIterator<String> iterateChangesSince(FileCollectionSnapshot oldSnapshot) {
-            FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
-            final Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(other.snapshots);
-            final Iterator<String> currentFiles = snapshots.keySet().iterator();
+            final FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
 
             return new ChangeIterator<String>() {
-                private Iterator<String> removedFiles;
+                private int current;
+                private int previous;
 
                 public boolean next(ChangeListener<String> listener) {
-                    while (currentFiles.hasNext()) {
-                        String currentFile = currentFiles.next();
-                        IncrementalFileSnapshot otherFile = otherSnapshots.remove(currentFile);
-
-                        if (otherFile == null) {
-                            listener.added(currentFile);
+                    while (current < paths.length || previous < other.paths.length) {
+                        int comparison = compare(current, other, previous);
+                        if (comparison < 0) {
+                            listener.added(paths[current++]);
                             return true;
-                        } else if (!snapshots.get(currentFile).isUpToDate(otherFile)) {
-                            listener.changed(currentFile);
+                        }
+                        if (comparison > 0) {
+                            listener.removed(other.paths[previous++]);
+                            return true;
+                        }
+                        boolean upToDate = isUpToDate(current, other, previous);
+                        current++;
+                        previous++;
+                        if (!upToDate) {
+                            listener.changed(paths[current - 1]);
                             return true;
                         }
                     }
-
-                    // Create a single iterator to use for all of the removed files
-                    if (removedFiles == null) {
-                        removedFiles = otherSnapshots.keySet().iterator();
-                    }
-
-                    if (removedFiles.hasNext()) {
-                        listener.removed(removedFiles.next());
-                        return true;
-                    }
-
                     return false;
                 }
             };
@@ -249,30 +233,178 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
                     return applyTo(snapshot, new NoOpChangeListener<Merge>());
                 }
 
-                public FileCollectionSnapshot applyTo(FileCollectionSnapshot snapshot, final ChangeListener<Merge> listener) {
-                    FileCollectionSnapshotImpl target = (FileCollectionSnapshotImpl) snapshot;
-                    final Map<String, IncrementalFileSnapshot> newSnapshots = new HashMap<String, IncrementalFileSnapshot>(target.snapshots);
-                    diff(snapshots, other.snapshots, new MapMergeChangeListener<String, IncrementalFileSnapshot>(listener, newSnapshots));
-                    return new FileCollectionSnapshotImpl(newSnapshots);
+                public FileCollectionSnapshot applyTo(FileCollectionSnapshot snapshot, ChangeListener<Merge> listener) {
+                    return merge(other, (FileCollectionSnapshotImpl) snapshot, listener);
                 }
             };
         }
 
-        private void diff(Map<String, IncrementalFileSnapshot> snapshots, Map<String, IncrementalFileSnapshot> oldSnapshots,
-                          ChangeListener<Map.Entry<String, IncrementalFileSnapshot>> listener) {
-            Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(oldSnapshots);
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
-                IncrementalFileSnapshot otherFile = otherSnapshots.remove(entry.getKey());
-                if (otherFile == null) {
-                    listener.added(entry);
-                } else if (!entry.getValue().isUpToDate(otherFile)) {
-                    listener.changed(entry);
+        /**
+         * Applies the changes between the given old snapshot and this snapshot to the given target snapshot. The three snapshots are walked together in path order.
+         */
+        private FileCollectionSnapshotImpl merge(FileCollectionSnapshotImpl other, FileCollectionSnapshotImpl target, ChangeListener<Merge> listener) {
+            Builder builder = new Builder(target.size() + size());
+            int current = 0;
+            int previous = 0;
+            int targetIndex = 0;
+            while (current < paths.length || previous < other.paths.length) {
+                int comparison = compare(current, other, previous);
+                String path;
+                boolean removed;
+                MapMergeChangeListener.DefaultMerge merge = new MapMergeChangeListener.DefaultMerge();
+                if (comparison < 0) {
+                    path = paths[current];
+                    removed = false;
+                    listener.added(merge);
+                } else if (comparison > 0) {
+                    path = other.paths[previous++];
+                    removed = true;
+                    listener.removed(merge);
+                } else if (!isUpToDate(current, other, previous++)) {
+                    path = paths[current];
+                    removed = false;
+                    listener.changed(merge);
+                } else {
+                    current++;
+                    continue;
+                }
+
+                while (targetIndex < target.paths.length && target.paths[targetIndex].compareTo(path) < 0) {
+                    builder.add(target, targetIndex++);
+                }
+                boolean inTarget = targetIndex < target.paths.length && target.paths[targetIndex].equals(path);
+                if (merge.isIgnore()) {
+                    if (inTarget) {
+                        builder.add(target, targetIndex++);
+                    }
+                } else {
+                    if (inTarget) {
+                        targetIndex++;
+                    }
+                    if (!removed) {
+                        builder.add(this, current);
+                    }
+                }
+                if (!removed) {
+                    current++;
+                }
+            }
+            while (targetIndex < target.paths.length) {
+                builder.add(target, targetIndex++);
+            }
+            return builder.build();
+        }
+
+        private int compare(int index, FileCollectionSnapshotImpl other, int otherIndex) {
+            if (index >= paths.length) {
+                return 1;
+            }
+            if (otherIndex >= other.paths.length) {
+                return -1;
+            }
+            return paths[index].compareTo(other.paths[otherIndex]);
+        }
+
+        private boolean isUpToDate(int index, FileCollectionSnapshotImpl other, int otherIndex) {
+            if (kinds[index] != other.kinds[otherIndex]) {
+                return false;
+            }
+            int start = hashOffsets[index];
+            int length = hashOffsets[index + 1] - start;
+            int otherStart = other.hashOffsets[otherIndex];
+            if (length != other.hashOffsets[otherIndex + 1] - otherStart) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (hashes[start + i] != other.hashes[otherStart + i]) {
+                    return false;
                 }
             }
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : otherSnapshots.entrySet()) {
-                listener.removed(entry);
+            return true;
+        }
+    }
+
+    /**
+     * Collects the entries of a {@link FileCollectionSnapshotImpl}. Entries may be added in any order. When entries with the same path are added,
+     * the first one is kept.
+     */
+    static class Builder {
+        private String[] paths;
+        private byte[] kinds;
+        private int[] hashOffsets;
+        private byte[] hashes;
+        private int count;
+        private boolean sorted = true;
+
+        Builder(int expectedSize) {
+            paths = new String[expectedSize];
+            kinds = new byte[expectedSize];
+            hashOffsets = new int[expectedSize + 1];
+            hashes = new byte[expectedSize * 16];
+        }
+
+        Builder addDirectory(String path) {
+            return add(path, FileCollectionSnapshotImpl.DIR, hashes, 0, 0);
+        }
+
+        Builder addMissingFile(String path) {
+            return add(path, FileCollectionSnapshotImpl.MISSING, hashes, 0, 0);
+        }
+
+        Builder addFile(String path, byte[] hash) {
+            return add(path, FileCollectionSnapshotImpl.FILE, hash, 0, hash.length);
+        }
+
+        Builder add(FileCollectionSnapshotImpl snapshot, int index) {
+            int start = snapshot.hashOffsets[index];
+            return add(snapshot.paths[index], snapshot.kinds[index], snapshot.hashes, start, snapshot.hashOffsets[index + 1] - start);
+        }
+
+        private Builder add(String path, byte kind, byte[] hash, int hashStart, int hashLength) {
+            if (count == paths.length) {
+                int capacity = Math.max(16, count * 2);
+                paths = Arrays.copyOf(paths, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                hashOffsets = Arrays.copyOf(hashOffsets, capacity + 1);
+            }
+            int hashOffset = hashOffsets[count];
+            if (hashOffset + hashLength > hashes.length) {
+                hashes = Arrays.copyOf(hashes, Math.max(hashes.length * 2, hashOffset + hashLength));
+            }
+            if (sorted && count > 0 && paths[count - 1].compareTo(path) >= 0) {
+                sorted = false;
             }
+            paths[count] = path;
+            kinds[count] = kind;
+            System.arraycopy(hash, hashStart, hashes, hashOffset, hashLength);
+            hashOffsets[count + 1] = hashOffset + hashLength;
+            count++;
+            return this;
         }
 
+        FileCollectionSnapshotImpl build() {
+            if (sorted) {
+                return new FileCollectionSnapshotImpl(Arrays.copyOf(paths, count), Arrays.copyOf(kinds, count), Arrays.copyOf(hashOffsets, count + 1), Arrays.copyOf(hashes, hashOffsets[count]));
+            }
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            // The sort is stable, so the first entry added for a path comes first
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer left, Integer right) {
+                    return paths[left].compareTo(paths[right]);
+                }
+            });
+            Builder sortedBuilder = new Builder(count);
+            for (Integer index : order) {
+                if (sortedBuilder.count > 0 && sortedBuilder.paths[sortedBuilder.count - 1].equals(paths[index])) {
+                    continue;
+                }
+                int start = hashOffsets[index];
+                sortedBuilder.add(paths[index], kinds[index], hashes, start, hashOffsets[index + 1] - start);
+            }
+            return sortedBuilder.build();
+        }
     }
 }
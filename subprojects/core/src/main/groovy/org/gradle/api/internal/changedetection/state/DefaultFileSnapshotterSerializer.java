@@ -21,9 +21,9 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
 
-import java.util.HashMap;
-import java.util.Map;
-
+/**
+ * Writes the entries of a snapshot in path order. Each path is written as the length of the prefix it shares with the previous path, followed by the remainder.
+ */
 class DefaultFileSnapshotterSerializer implements Serializer<DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl> {
     private final StringInterner stringInterner;
 
@@ -32,43 +32,60 @@ class DefaultFileSnapshotterSerializer implements Serializer<DefaultFileCollecti
     }
 
     public DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl read(Decoder decoder) throws Exception {
-        Map<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot> snapshots = new HashMap<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot>();
-        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots);
         int snapshotsCount = decoder.readSmallInt();
+        DefaultFileCollectionSnapshotter.Builder builder = new DefaultFileCollectionSnapshotter.Builder(snapshotsCount);
+        String previousKey = "";
         for (int i = 0; i < snapshotsCount; i++) {
-            String key = stringInterner.intern(decoder.readString());
+            int commonPrefixLength = decoder.readSmallInt();
+            String key = stringInterner.intern(previousKey.substring(0, commonPrefixLength) + decoder.readString());
             byte fileSnapshotKind = decoder.readByte();
-            if (fileSnapshotKind == 1) {
-                snapshots.put(key, DefaultFileCollectionSnapshotter.DirSnapshot.getInstance());
-            } else if (fileSnapshotKind == 2) {
-                snapshots.put(key, new DefaultFileCollectionSnapshotter.MissingFileSnapshot());
-            } else if (fileSnapshotKind == 3) {
+            if (fileSnapshotKind == DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.DIR) {
+                builder.addDirectory(key);
+            } else if (fileSnapshotKind == DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.MISSING) {
+                builder.addMissingFile(key);
+            } else if (fileSnapshotKind == DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.FILE) {
                 byte hashSize = decoder.readByte();
                 byte[] hash = new byte[hashSize];
                 decoder.readBytes(hash);
-                snapshots.put(key, new DefaultFileCollectionSnapshotter.FileHashSnapshot(hash));
+                builder.addFile(key, hash);
             } else {
                 throw new RuntimeException("Unable to read serialized file collection snapshot. Unrecognized value found in the data stream.");
             }
+            previousKey = key;
         }
-        return snapshot;
+        return builder.build();
     }
 
     public void write(Encoder encoder, DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl value) throws Exception {
-        encoder.writeSmallInt(value.snapshots.size());
-        for (String key : value.snapshots.keySet()) {
-            encoder.writeString(key);
-            DefaultFileCollectionSnapshotter.IncrementalFileSnapshot incrementalFileSnapshot = value.snapshots.get(key);
-            if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.DirSnapshot) {
-                encoder.writeByte((byte) 1);
-            } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot) {
-                encoder.writeByte((byte) 2);
-            } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.FileHashSnapshot) {
-                encoder.writeByte((byte) 3);
-                byte[] hash = ((DefaultFileCollectionSnapshotter.FileHashSnapshot) incrementalFileSnapshot).hash;
-                encoder.writeByte((byte) hash.length);
-                encoder.writeBytes(hash);
+        encoder.writeSmallInt(value.size());
+        String previousKey = "";
+        for (int i = 0; i < value.size(); i++) {
+            String key = value.paths[i];
+            int commonPrefixLength = commonPrefixLength(previousKey, key);
+            encoder.writeSmallInt(commonPrefixLength);
+            encoder.writeString(key.substring(commonPrefixLength));
+            byte kind = value.kinds[i];
+            encoder.writeByte(kind);
+            if (kind == DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.FILE) {
+                int hashStart = value.hashOffsets[i];
+                int hashLength = value.hashOffsets[i + 1] - hashStart;
+                encoder.writeByte((byte) hashLength);
+                encoder.writeBytes(value.hashes, hashStart, hashLength);
             }
+            previousKey = key;
+        }
+    }
+
+    private static int commonPrefixLength(String left, String right) {
+        int length = Math.min(left.length(), right.length());
+        int i = 0;
+        while (i < length && left.charAt(i) == right.charAt(i)) {
+            i++;
+        }
+        // Don't split a surrogate pair
+        if (i > 0 && Character.isHighSurrogate(left.charAt(i - 1))) {
+            i--;
         }
+        return i;
     }
 }
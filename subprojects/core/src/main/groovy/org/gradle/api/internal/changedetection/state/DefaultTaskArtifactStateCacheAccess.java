@@ -26,18 +26,25 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.Closeable;
+import java.util.Collections;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess, Closeable {
+    /**
+     * When 'true', the task artifact caches are stored in append-only logs that are compacted in the background, rather than in BTrees.
+     */
+    public static final String LOG_STRUCTURED_PROPERTY = "org.gradle.internal.taskartifacts.logstructured";
+
     private final CacheDecorator inMemoryDecorator;
     private final PersistentCache cache;
 
-    public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator) {
+    public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator, String fileHashAlgorithm) {
         this.inMemoryDecorator = decorator;
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
                 .withDisplayName("task history cache")
+                .withProperties(Collections.singletonMap("fileHashAlgorithm", fileHashAlgorithm)) // The history is rebuilt when the file hash algorithm changes
                 .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
                 .open();
     }
@@ -48,7 +55,11 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
 
     public <K, V> PersistentIndexedCache<K, V> createCache(final String cacheName, final Class<K> keyType, final Serializer<V> valueSerializer) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keyType, valueSerializer)
-                .cacheDecorator(inMemoryDecorator);
+                .cacheDecorator(inMemoryDecorator)
+                .concurrentAccess();
+        if (Boolean.getBoolean(LOG_STRUCTURED_PROPERTY)) {
+            parameters.logStructured();
+        }
         return cache.createCache(parameters);
     }
 
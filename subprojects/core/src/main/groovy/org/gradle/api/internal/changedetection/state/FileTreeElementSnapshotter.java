@@ -18,6 +18,13 @@ package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.file.FileTreeElement;
 
+import java.util.List;
+
 public interface FileTreeElementSnapshotter extends FileSnapshotter {
     FileSnapshot snapshot(FileTreeElement fileDetails);
+
+    /**
+     * Takes a snapshot of each of the given elements, which must all exist and be files. Returns the snapshots in the same order as the elements.
+     */
+    List<FileSnapshot> snapshotAll(List<? extends FileTreeElement> fileDetails);
 }
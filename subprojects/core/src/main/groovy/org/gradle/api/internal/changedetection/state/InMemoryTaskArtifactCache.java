@@ -18,18 +18,32 @@ package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.cache.*;
 import org.gradle.api.internal.cache.HeapProportionalSizer;
+import org.gradle.api.internal.cache.OffHeapArena;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.cache.internal.FileLock;
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.util.NumberUtil;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
 public class InMemoryTaskArtifactCache implements CacheDecorator {
+    /**
+     * The number of megabytes of direct memory to use to hold the serialized values of the caches. When not set, the decoded values are held on the heap,
+     * with the number of entries of each cache limited by {@link CacheCapSizer}.
+     */
+    public static final String OFF_HEAP_SIZE_PROPERTY = "org.gradle.internal.taskartifacts.offheapmb";
+
     private final static Logger LOG = Logging.getLogger(InMemoryTaskArtifactCache.class);
     private final static Object NULL = new Object();
     private static final Map<String, Integer> CACHE_CAPS = new CacheCapSizer().calculateCaps();
@@ -40,9 +54,11 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         static {
             DEFAULT_CAP_SIZES.put("fileSnapshots", 10000);
             DEFAULT_CAP_SIZES.put("taskArtifacts", 2000);
+            DEFAULT_CAP_SIZES.put("taskDurations", 2000);
             DEFAULT_CAP_SIZES.put("outputFileStates", 3000);
             DEFAULT_CAP_SIZES.put("fileHashes", 400000);
             DEFAULT_CAP_SIZES.put("compilationState", 1000);
+            DEFAULT_CAP_SIZES.put("sourceIncludes", 100000);
         }
 
         final HeapProportionalSizer sizer;
@@ -71,18 +87,38 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             .build();
 
     private final Map<String, FileLock.State> states = new HashMap<String, FileLock.State>();
+    private final OffHeapArena offHeapArena;
+
+    public InMemoryTaskArtifactCache() {
+        this(Integer.getInteger(OFF_HEAP_SIZE_PROPERTY, 0) * 1024L * 1024L);
+    }
 
-    public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(final String cacheId, String cacheName, final MultiProcessSafePersistentIndexedCache<K, V> original) {
-        final Cache<Object, Object> data = loadData(cacheId, cacheName);
+    InMemoryTaskArtifactCache(long offHeapBytes) {
+        this.offHeapArena = offHeapBytes > 0 ? new OffHeapArena(offHeapBytes) : null;
+    }
+
+    public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(final String cacheId, String cacheName, Serializer<V> valueSerializer, final MultiProcessSafePersistentIndexedCache<K, V> original) {
+        final InMemoryData data = offHeapArena != null ? new OffHeapData<V>(offHeapArena, cacheId, valueSerializer) : new HeapData(loadData(cacheId, cacheName));
 
         return new MultiProcessSafePersistentIndexedCache<K, V>() {
+            // The in-memory data is only known to match the cache file while this process holds the file lock
+            private volatile boolean upToDate;
+
             public void close() {
                 original.close();
             }
 
+            public V getIfInMemory(K key) {
+                if (!upToDate) {
+                    return null;
+                }
+                Object value = data.get(key);
+                return value == NULL ? null : (V) value;
+            }
+
             public V get(K key) {
                 assert key instanceof String || key instanceof Long || key instanceof File : "Unsupported key type: " + key;
-                Object value = data.getIfPresent(key);
+                Object value = data.get(key);
                 if (value == NULL) {
                     return null;
                 }
@@ -115,9 +151,11 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
                     LOG.info("Invalidating in-memory cache of {}", cacheId);
                     data.invalidateAll();
                 }
+                upToDate = true;
             }
 
             public void onEndWork(FileLock.State currentCacheState) {
+                upToDate = false;
                 synchronized (lock) {
                     states.put(cacheId, currentCacheState);
                 }
@@ -125,6 +163,21 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         };
     }
 
+    /**
+     * Returns a summary of the use of the in-memory caches, for diagnostics.
+     */
+    public String getStatistics() {
+        if (offHeapArena != null) {
+            return String.format("%s hits, %s misses, %s evictions, %s of %s off-heap", offHeapArena.getHitCount(), offHeapArena.getMissCount(), offHeapArena.getEvictionCount(),
+                    NumberUtil.formatBytes(offHeapArena.getUsedBytes()), NumberUtil.formatBytes(offHeapArena.getMaxBytes()));
+        }
+        CacheStats stats = new CacheStats(0, 0, 0, 0, 0, 0);
+        for (Cache<Object, Object> data : cache.asMap().values()) {
+            stats = stats.plus(data.stats());
+        }
+        return String.format("%s hits, %s misses, %s evictions", stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
     private Cache<Object, Object> loadData(String cacheId, String cacheName) {
         Cache<Object, Object> theData;
         synchronized (lock) {
@@ -144,6 +197,90 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         return theData;
     }
 
+    private interface InMemoryData {
+        /**
+         * Returns the value, the NULL marker for a known missing value, or null when the value is not held in memory.
+         */
+        Object get(Object key);
+
+        void put(Object key, Object value);
+
+        void invalidateAll();
+    }
+
+    private static class HeapData implements InMemoryData {
+        private final Cache<Object, Object> data;
+
+        HeapData(Cache<Object, Object> data) {
+            this.data = data;
+        }
+
+        public Object get(Object key) {
+            return data.getIfPresent(key);
+        }
+
+        public void put(Object key, Object value) {
+            data.put(key, value);
+        }
+
+        public void invalidateAll() {
+            data.invalidateAll();
+        }
+    }
+
+    /**
+     * Holds the serialized values in the off-heap arena, and decodes them on each access. Each entry starts with a flag that marks a known missing value.
+     */
+    private static class OffHeapData<V> implements InMemoryData {
+        private static final byte[] MISSING = {0};
+        private static final byte PRESENT = 1;
+        private final OffHeapArena arena;
+        private final String cacheId;
+        private final Serializer<V> serializer;
+
+        OffHeapData(OffHeapArena arena, String cacheId, Serializer<V> serializer) {
+            this.arena = arena;
+            this.cacheId = cacheId;
+            this.serializer = serializer;
+        }
+
+        public Object get(Object key) {
+            byte[] contents = arena.get(cacheId, key);
+            if (contents == null) {
+                return null;
+            }
+            if (contents[0] != PRESENT) {
+                return NULL;
+            }
+            try {
+                return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(contents, 1, contents.length - 1)));
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        public void put(Object key, Object value) {
+            if (value == NULL) {
+                arena.put(cacheId, key, MISSING);
+                return;
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            outputStream.write(PRESENT);
+            KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+            try {
+                serializer.write(encoder, (V) value);
+                encoder.flush();
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            arena.put(cacheId, key, outputStream.toByteArray());
+        }
+
+        public void invalidateAll() {
+            arena.removeAll(cacheId);
+        }
+    }
+
     private static class LoggingEvictionListener implements RemovalListener<Object, Object> {
         private static Logger logger = Logging.getLogger(LoggingEvictionListener.class);
         private static final String EVICTION_MITIGATION_MESSAGE = "\nPerformance may suffer from in-memory cache misses. Increase max heap size of Gradle build process to reduce cache misses.";
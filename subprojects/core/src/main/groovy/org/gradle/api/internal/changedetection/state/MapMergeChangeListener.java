@@ -53,7 +53,7 @@ class MapMergeChangeListener<K, V> implements ChangeListener<Map.Entry<K, V>> {
         }
     }
 
-    private static class DefaultMerge implements FileCollectionSnapshot.Merge {
+    static class DefaultMerge implements FileCollectionSnapshot.Merge {
         private boolean ignore;
 
         public boolean isIgnore() {
@@ -17,10 +17,21 @@ package org.gradle.api.internal.hash;
 
 import org.gradle.internal.hash.HashUtil;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 
 public class DefaultHasher implements Hasher {
+    public static final String ALGORITHM = "MD5";
+
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
     public byte[] hash(File file) {
-        return HashUtil.createHash(file, "MD5").asByteArray();
+        return HashUtil.createHash(file, ALGORITHM).asByteArray();
+    }
+
+    public byte[] hash(byte[] content) {
+        return HashUtil.createHash(new ByteArrayInputStream(content), ALGORITHM).asByteArray();
     }
 }
\ No newline at end of file
@@ -18,5 +18,12 @@ package org.gradle.api.internal.hash;
 import java.io.File;
 
 public interface Hasher {
+    /**
+     * Returns the name of the algorithm used by this hasher. Hashes created by different algorithms are not comparable.
+     */
+    String getAlgorithm();
+
     byte[] hash(File file);
-}
+
+    byte[] hash(byte[] content);
+}
\ No newline at end of file
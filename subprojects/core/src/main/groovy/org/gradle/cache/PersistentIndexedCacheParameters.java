@@ -26,6 +26,8 @@ public class PersistentIndexedCacheParameters<K, V> {
     private final Serializer<K> keySerializer;
     private final Serializer<V> valueSerializer;
     private CacheDecorator cacheDecorator;
+    private boolean concurrentAccess;
+    private boolean logStructured;
 
     public PersistentIndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this.cacheName = cacheName;
@@ -67,4 +69,29 @@ public class PersistentIndexedCacheParameters<K, V> {
         this.cacheDecorator = cacheDecorator;
         return this;
     }
+
+    public boolean isConcurrentAccess() {
+        return concurrentAccess;
+    }
+
+    /**
+     * Allows the cache to be used by many threads at the same time, without holding the cache lock. Reads of values held in memory do not lock the cache,
+     * and writes are buffered and applied to the cache file in batches.
+     */
+    public PersistentIndexedCacheParameters<K, V> concurrentAccess() {
+        this.concurrentAccess = true;
+        return this;
+    }
+
+    public boolean isLogStructured() {
+        return logStructured;
+    }
+
+    /**
+     * Stores the entries in an append-only log that is compacted in the background, rather than in a BTree that is updated in place.
+     */
+    public PersistentIndexedCacheParameters<K, V> logStructured() {
+        this.logStructured = true;
+        return this;
+    }
 }
\ No newline at end of file
@@ -16,10 +16,13 @@
 
 package org.gradle.cache.internal;
 
+import org.gradle.internal.serialize.Serializer;
+
 public interface CacheDecorator {
     /**
      * @param cacheId Unique id for this cache instance.
      * @param cacheName Name for the type of contents stored in this cache instance.
+     * @param valueSerializer Serializer for the values stored in this cache instance.
      */
-    <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(String cacheId, String cacheName, MultiProcessSafePersistentIndexedCache<K, V> original);
+    <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(String cacheId, String cacheName, Serializer<V> valueSerializer, MultiProcessSafePersistentIndexedCache<K, V> original);
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.cache.CacheAccess;
+import org.gradle.internal.Factory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link MultiProcessSafePersistentIndexedCache} that can be used by many threads at the same time, without holding the cache lock.
+ *
+ * <p>Values held in memory by the backing cache are returned without locking the cache, so that any number of threads can read them concurrently. Other reads
+ * lock the cache for the lookup only. Writes are buffered in memory, and are applied to the backing cache in batches by a background thread while the cache is
+ * locked. The remaining writes are applied when the backing cache is closed, which happens before the file lock is released, so that other processes see all
+ * writes. When the background thread cannot keep up, writes are applied by the writing thread instead.</p>
+ *
+ * <p>A thread that the owner of the cache lock is waiting for must not use this cache, as it may need to wait for the lock.</p>
+ */
+@ThreadSafe
+class ConcurrentAccessIndexedCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
+    static final int WRITE_BEHIND_BATCH_SIZE = 100;
+    static final int MAX_PENDING_WRITES = 1000;
+    private static final Object REMOVED = new Object();
+
+    private final String cacheName;
+    private final MultiProcessSafePersistentIndexedCache<K, V> delegate;
+    private final CacheAccess cacheAccess;
+    private final Executor writeBehindExecutor;
+    private final ConcurrentMap<K, Object> pendingWrites = new ConcurrentHashMap<K, Object>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final Runnable applyPendingWrites = new Runnable() {
+        public void run() {
+            applyPendingWrites();
+        }
+    };
+
+    ConcurrentAccessIndexedCache(String cacheName, MultiProcessSafePersistentIndexedCache<K, V> delegate, CacheAccess cacheAccess, Executor writeBehindExecutor) {
+        this.cacheName = cacheName;
+        this.delegate = delegate;
+        this.cacheAccess = cacheAccess;
+        this.writeBehindExecutor = writeBehindExecutor;
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    public V get(final K key) {
+        V value = getIfInMemory(key);
+        if (value != null) {
+            return value;
+        }
+        if (pendingWrites.get(key) == REMOVED) {
+            return null;
+        }
+        return cacheAccess.useCache(String.format("Read %s", cacheName), new Factory<V>() {
+            public V create() {
+                return delegate.get(key);
+            }
+        });
+    }
+
+    public V getIfInMemory(K key) {
+        Object pending = pendingWrites.get(key);
+        if (pending != null) {
+            return pending == REMOVED ? null : (V) pending;
+        }
+        return delegate.getIfInMemory(key);
+    }
+
+    public void put(K key, V value) {
+        pendingWrites.put(key, value);
+        maybeApplyPendingWrites();
+    }
+
+    public void remove(K key) {
+        pendingWrites.put(key, REMOVED);
+        maybeApplyPendingWrites();
+    }
+
+    boolean hasPendingWrites() {
+        return !pendingWrites.isEmpty();
+    }
+
+    private void maybeApplyPendingWrites() {
+        int pending = pendingWrites.size();
+        if (pending >= MAX_PENDING_WRITES) {
+            cacheAccess.useCache(String.format("Write %s", cacheName), applyPendingWrites);
+        } else if (pending >= WRITE_BEHIND_BATCH_SIZE && writeScheduled.compareAndSet(false, true)) {
+            writeBehindExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        cacheAccess.useCache(String.format("Write %s", cacheName), applyPendingWrites);
+                    } finally {
+                        writeScheduled.set(false);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Must be called while holding the cache lock.
+     */
+    private void applyPendingWrites() {
+        for (Map.Entry<K, Object> entry : pendingWrites.entrySet()) {
+            K key = entry.getKey();
+            Object value = entry.getValue();
+            if (value == REMOVED) {
+                delegate.remove(key);
+            } else {
+                delegate.put(key, (V) value);
+            }
+            // Keep the entry if it has been written again in the meantime
+            pendingWrites.remove(key, value);
+        }
+    }
+
+    public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
+        delegate.onStartWork(operationDisplayName, currentCacheState);
+    }
+
+    public void onEndWork(FileLock.State currentCacheState) {
+        delegate.onEndWork(currentCacheState);
+    }
+
+    public void close() {
+        applyPendingWrites();
+        delegate.close();
+    }
+}
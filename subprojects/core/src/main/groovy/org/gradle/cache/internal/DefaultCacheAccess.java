@@ -21,17 +21,25 @@ import org.gradle.api.logging.Logging;
 import org.gradle.cache.CacheOpenException;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.cache.internal.btree.BlockStore;
+import org.gradle.cache.internal.btree.FileBackedBlockStore;
+import org.gradle.cache.internal.btree.MappedFileBlockStore;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
 import org.gradle.cache.internal.filelock.LockOptions;
+import org.gradle.cache.internal.logstore.LogStructuredPersistentIndexedCache;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -42,6 +50,17 @@ import static org.gradle.cache.internal.FileLockManager.LockMode.Shared;
 @ThreadSafe
 public class DefaultCacheAccess implements CacheCoordinator {
 
+    /**
+     * Selects how the indexed caches access their files: 'file' (the default) to read and write each block through the file, or 'mapped' to read and write
+     * blocks in place through memory mapped regions of the file. The mapped store is not used on Windows.
+     */
+    public static final String BLOCK_STORE_PROPERTY = "org.gradle.internal.cache.blockstore";
+
+    /**
+     * The maximum number of regions that each indexed cache keeps mapped, when the mapped store is used.
+     */
+    public static final String MAPPED_REGIONS_PROPERTY = "org.gradle.internal.cache.mappedregions";
+
     private final static Logger LOG = Logging.getLogger(DefaultCacheAccess.class);
 
     private final String cacheDisplayName;
@@ -60,13 +79,17 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private boolean contended;
     private final CacheAccessOperationsStack operations;
     private int cacheClosedCount;
+    private final ExecutorFactory executorFactory;
+    private final Executor backgroundExecutor = new BackgroundExecutor();
+    private StoppableExecutor backgroundThreads;
 
-    public DefaultCacheAccess(String cacheDisplayName, File lockTarget, File baseDir, FileLockManager lockManager, CacheInitializationAction initializationAction) {
+    public DefaultCacheAccess(String cacheDisplayName, File lockTarget, File baseDir, FileLockManager lockManager, CacheInitializationAction initializationAction, ExecutorFactory executorFactory) {
         this.cacheDisplayName = cacheDisplayName;
         this.lockTarget = lockTarget;
         this.baseDir = baseDir;
         this.lockManager = lockManager;
         this.initializationAction = initializationAction;
+        this.executorFactory = executorFactory;
         this.operations = new CacheAccessOperationsStack();
     }
 
@@ -149,26 +172,77 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     public void close() {
-        lock.lock();
         try {
-            // Take ownership
-            if (owner == null) {
-                owner = Thread.currentThread();
-            } else if (lockOptions.getMode() != Shared && owner != Thread.currentThread()) {
-                // TODO:ADAM - The check for shared mode is a work around. Owner should release the lock
-                throw new IllegalStateException(String.format("Cannot close %s as it is currently being used by another thread.", cacheDisplayName));
-            }
-            if (fileLock != null) {
-                closeFileLock();
-            }
-            if (cacheClosedCount != 1) {
-                LOG.debug("Cache {} was closed {} times.", cacheDisplayName, cacheClosedCount);
+            stopBackgroundWork();
+        } finally {
+            lock.lock();
+            try {
+                // Take ownership
+                if (owner == null) {
+                    owner = Thread.currentThread();
+                } else if (lockOptions.getMode() != Shared && owner != Thread.currentThread()) {
+                    // TODO:ADAM - The check for shared mode is a work around. Owner should release the lock
+                    throw new IllegalStateException(String.format("Cannot close %s as it is currently being used by another thread.", cacheDisplayName));
+                }
+                if (fileLock == null && hasPendingWrites()) {
+                    // Lock the file again, so that the writes buffered by the caches are applied when the caches are closed
+                    operations.pushCacheAction(String.format("Close %s", cacheDisplayName));
+                    try {
+                        onStartWork();
+                    } finally {
+                        operations.popCacheAction();
+                    }
+                }
+                if (fileLock != null) {
+                    closeFileLock();
+                }
+                if (cacheClosedCount != 1) {
+                    LOG.debug("Cache {} was closed {} times.", cacheDisplayName, cacheClosedCount);
+                }
+            } finally {
+                lockOptions = null;
+                owner = null;
+                lock.unlock();
             }
+        }
+    }
+
+    /**
+     * Waits for the background work to complete, and rethrows any failure of that work.
+     */
+    private void stopBackgroundWork() {
+        final StoppableExecutor executor;
+        boolean owner;
+        lock.lock();
+        try {
+            executor = backgroundThreads;
+            backgroundThreads = null;
+            owner = this.owner == Thread.currentThread() && lockOptions.getMode() != Shared;
         } finally {
-            lockOptions = null;
-            owner = null;
             lock.unlock();
         }
+        if (executor == null) {
+            return;
+        }
+        if (owner) {
+            // Background work may be waiting for this thread to release the cache, so let it have the cache while waiting
+            longRunningOperation(String.format("Complete background work for %s", cacheDisplayName), new Runnable() {
+                public void run() {
+                    executor.stop();
+                }
+            });
+        } else {
+            executor.stop();
+        }
+    }
+
+    private boolean hasPendingWrites() {
+        for (MultiProcessSafePersistentIndexedCache cache : caches) {
+            if (cache instanceof ConcurrentAccessIndexedCache && ((ConcurrentAccessIndexedCache) cache).hasPendingWrites()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public void useCache(String operationDisplayName, Runnable action) {
@@ -184,6 +258,10 @@ public class DefaultCacheAccess implements CacheCoordinator {
         lock.lock();
         try {
             takeOwnership(operationDisplayName);
+            if (lockOptions == null) {
+                releaseOwnership();
+                throw new IllegalStateException(String.format("Cannot use %s as it has been closed.", cacheDisplayName));
+            }
             wasStarted = onStartWork();
         } finally {
             lock.unlock();
@@ -314,16 +392,22 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final PersistentIndexedCacheParameters<K, V> parameters) {
-        final File cacheFile = new File(baseDir, parameters.getCacheName() + ".bin");
-        Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<BTreePersistentIndexedCache<K, V>>() {
-            public BTreePersistentIndexedCache<K, V> create() {
+        final File cacheFile = new File(baseDir, parameters.getCacheName() + (parameters.isLogStructured() ? ".log" : ".bin"));
+        Factory<FileBackedPersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<FileBackedPersistentIndexedCache<K, V>>() {
+            public FileBackedPersistentIndexedCache<K, V> create() {
+                if (parameters.isLogStructured()) {
+                    return new LogStructuredPersistentIndexedCache<K, V>(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer(), backgroundExecutor);
+                }
                 return doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
             }
         };
 
         MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
         CacheDecorator decorator = parameters.getCacheDecorator();
-        indexedCache = decorator == null ? indexedCache : decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), indexedCache);
+        indexedCache = decorator == null ? indexedCache : decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), parameters.getValueSerializer(), indexedCache);
+        if (parameters.isConcurrentAccess()) {
+            indexedCache = new ConcurrentAccessIndexedCache<K, V>(parameters.getCacheName(), indexedCache, this, backgroundExecutor);
+        }
 
         lock.lock();
         try {
@@ -339,7 +423,23 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+        return new BTreePersistentIndexedCache<K, V>(cacheFile, createBlockStore(cacheFile), keySerializer, valueSerializer);
+    }
+
+    static BlockStore createBlockStore(File cacheFile) {
+        String blockStore = System.getProperty(BLOCK_STORE_PROPERTY, "file");
+        if (blockStore.equals("file")) {
+            return new FileBackedBlockStore(cacheFile);
+        }
+        if (blockStore.equals("mapped")) {
+            // A mapped file cannot be truncated on Windows until the buffer has been garbage collected
+            if (OperatingSystem.current().isWindows()) {
+                return new FileBackedBlockStore(cacheFile);
+            }
+            int maxMappedRegions = Integer.getInteger(MAPPED_REGIONS_PROPERTY, MappedFileBlockStore.DEFAULT_MAX_MAPPED_REGIONS);
+            return new MappedFileBlockStore(cacheFile, MappedFileBlockStore.DEFAULT_REGION_SIZE, maxMappedRegions);
+        }
+        throw new IllegalArgumentException(String.format("Unknown block store '%s' specified by system property '%s'. Supported values are 'file' and 'mapped'.", blockStore, BLOCK_STORE_PROPERTY));
     }
 
     private boolean onStartWork() {
@@ -405,6 +505,26 @@ public class DefaultCacheAccess implements CacheCoordinator {
         }
     }
 
+    /**
+     * Applies the buffered writes of the caches and compacts the caches in the background, on threads that are started on demand.
+     */
+    private class BackgroundExecutor implements Executor {
+        public void execute(Runnable command) {
+            lock.lock();
+            try {
+                if (lockOptions == null) {
+                    throw new IllegalStateException(String.format("Cannot start background work for %s as it has been closed.", cacheDisplayName));
+                }
+                if (backgroundThreads == null) {
+                    backgroundThreads = executorFactory.create(String.format("Background work for %s", cacheDisplayName));
+                }
+                backgroundThreads.execute(command);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
     Runnable whenContended() {
         return new Runnable() {
             public void run() {
@@ -30,6 +30,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
@@ -46,6 +48,9 @@ public class DefaultFileLockManager implements FileLockManager {
     private final IdGenerator<Long> generator;
     private final FileLockContentionHandler fileLockContentionHandler;
     private final long shortTimeoutMs = 10000;
+    private final long pollIntervalMs = 200;
+    private final AtomicInteger contendedLocks = new AtomicInteger();
+    private final AtomicLong totalLockWaitMs = new AtomicLong();
 
     public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, FileLockContentionHandler fileLockContentionHandler) {
         this(metaDataProvider, DEFAULT_LOCK_TIMEOUT, fileLockContentionHandler);
@@ -89,6 +94,12 @@ public class DefaultFileLockManager implements FileLockManager {
         fileLockContentionHandler.start(internalLock.lockId, whenContended);
     }
 
+    private void lockAcquiredAfterWaiting(String displayName, long waitMs) {
+        int count = contendedLocks.incrementAndGet();
+        long total = totalLockWaitMs.addAndGet(waitMs);
+        LOGGER.info("Waited {} ms for the lock on {}. This process has waited for file locks {} times, for {} ms in total.", waitMs, displayName, count, total);
+    }
+
     private class DefaultFileLock extends AbstractFileAccess implements FileLock {
         private final File lockFile;
         private final File target;
@@ -233,6 +244,11 @@ public class DefaultFileLockManager implements FileLockManager {
                     }
                 }
             });
+            stoppable.add(new Stoppable() {
+                public void stop() {
+                    fileLockContentionHandler.lockReleased(lockId);
+                }
+            });
             stoppable.add(new Stoppable() {
                 public void stop() {
                     lock = null;
@@ -308,22 +324,36 @@ public class DefaultFileLockManager implements FileLockManager {
         }
 
         private java.nio.channels.FileLock lockStateRegion(LockMode lockMode, final long waitUntil) throws IOException, InterruptedException {
+            long startedWaiting = System.currentTimeMillis();
+            boolean contended = false;
             do {
                 java.nio.channels.FileLock fileLock = lockFileAccess.tryLockState(lockMode == LockMode.Shared);
                 if (fileLock != null) {
+                    if (contended) {
+                        lockAcquiredAfterWaiting(displayName, System.currentTimeMillis() - startedWaiting);
+                    }
                     return fileLock;
                 }
+                contended = true;
+                long pollUntil = System.currentTimeMillis() + pollIntervalMs;
                 if (port != -1) { //we don't like the assumption about the port very much
                     LockInfo lockInfo = readInformationRegion(System.currentTimeMillis()); //no need for timeout here, as we're already looping with timeout
                     if (lockInfo.port != -1) {
                         LOGGER.debug("The file lock is held by a different Gradle process (pid: {}, operation: {}). Will attempt to ping owner at port {}", lockInfo.pid, lockInfo.operation, lockInfo.port);
                         fileLockContentionHandler.pingOwner(lockInfo.port, lockInfo.lockId, displayName);
+                        // The owner tells us when it has released the lock, so try again straight away rather than at the next poll
+                        if (fileLockContentionHandler.waitForRelease(lockInfo.lockId, pollIntervalMs)) {
+                            continue;
+                        }
                     } else {
                         LOGGER.debug("The file lock is held by a different Gradle process. I was unable to read on which port the owner listens for lock access requests.");
                     }
                 }
                 //TODO SF we should inform on the progress/status bar that we're waiting
-                Thread.sleep(200L);
+                long remaining = pollUntil - System.currentTimeMillis();
+                if (remaining > 0) {
+                    Thread.sleep(remaining);
+                }
             } while (System.currentTimeMillis() < waitUntil);
             return null;
         }
@@ -16,18 +16,29 @@
 
 package org.gradle.cache.internal;
 
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.messaging.remote.internal.inet.InetAddressFactory;
 
 import java.io.*;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.SocketAddress;
 import java.net.SocketException;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
+/**
+ * Sends and receives lock contention messages over UDP.
+ *
+ * <p>A lock request holds the protocol version and the lock id. A lock release confirmation is a lock request followed by a marker byte. Older versions read
+ * only the first 9 bytes of a message, so they see a confirmation as a request for a lock that they do not hold, and ignore it.</p>
+ */
 public class FileLockCommunicator {
+    private static final Logger LOGGER = Logging.getLogger(FileLockCommunicator.class);
     private static final byte PROTOCOL_VERSION = 1;
+    private static final byte LOCK_RELEASED = 1;
     private final DatagramSocket socket;
     private final InetAddressFactory addressFactory;
     private boolean stopped;
@@ -43,7 +54,7 @@ public class FileLockCommunicator {
 
     public void pingOwner(int ownerPort, long lockId, String displayName) {
         try {
-            byte[] bytesToSend = encode(lockId);
+            byte[] bytesToSend = encode(lockId, false);
             // Ping the owner via all available local addresses
             for (InetAddress address : addressFactory.findLocalAddresses()) {
                 socket.send(new DatagramPacket(bytesToSend, bytesToSend.length, address, ownerPort));
@@ -53,12 +64,25 @@ public class FileLockCommunicator {
         }
     }
 
-    public long receive() throws GracefullyStoppedException {
+    /**
+     * Tells the process at the given address, which has asked for the given lock, that the lock has been released. This is best-effort: when the
+     * confirmation cannot be sent, the requester finds out that the lock has been released when its wait times out.
+     */
+    public void confirmLockRelease(SocketAddress requester, long lockId) {
         try {
-            byte[] bytes = new byte[9];
+            byte[] bytesToSend = encode(lockId, true);
+            socket.send(new DatagramPacket(bytesToSend, bytesToSend.length, requester));
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Failed to confirm release of lock to %s (lock id: %s)", requester, lockId), e);
+        }
+    }
+
+    public Message receive() throws GracefullyStoppedException {
+        try {
+            byte[] bytes = new byte[10];
             DatagramPacket packet = new DatagramPacket(bytes, bytes.length);
             socket.receive(packet);
-            return decode(bytes);
+            return decode(bytes, packet.getLength(), packet.getSocketAddress());
         } catch (IOException e) {
             if (!stopped) {
                 throw new RuntimeException(e);
@@ -72,25 +96,57 @@ public class FileLockCommunicator {
         socket.close();
     }
 
-    private static byte[] encode(long lockId) throws IOException {
+    private static byte[] encode(long lockId, boolean lockReleased) throws IOException {
         ByteArrayOutputStream packet = new ByteArrayOutputStream();
         DataOutputStream dataOutput = new DataOutputStream(packet);
         dataOutput.writeByte(PROTOCOL_VERSION);
         dataOutput.writeLong(lockId);
+        if (lockReleased) {
+            dataOutput.writeByte(LOCK_RELEASED);
+        }
         dataOutput.flush();
         return packet.toByteArray();
     }
 
-    private static long decode(byte[] bytes) throws IOException {
-        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(bytes));
+    private static Message decode(byte[] bytes, int length, SocketAddress sender) throws IOException {
+        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
         byte version = dataInput.readByte();
         if (version != PROTOCOL_VERSION) {
             throw new IllegalArgumentException(String.format("Unexpected protocol version %s received in lock contention notification message", version));
         }
-        return dataInput.readLong();
+        long lockId = dataInput.readLong();
+        boolean lockReleased = length > 9 && dataInput.readByte() == LOCK_RELEASED;
+        return new Message(lockId, lockReleased, sender);
     }
 
     public int getPort() {
         return socket.getLocalPort();
     }
-}
\ No newline at end of file
+
+    public static class Message {
+        private final long lockId;
+        private final boolean lockReleased;
+        private final SocketAddress sender;
+
+        Message(long lockId, boolean lockReleased, SocketAddress sender) {
+            this.lockId = lockId;
+            this.lockReleased = lockReleased;
+            this.sender = sender;
+        }
+
+        public long getLockId() {
+            return lockId;
+        }
+
+        /**
+         * Returns true if this message confirms that the lock has been released, false if this message requests the lock.
+         */
+        public boolean isLockReleased() {
+            return lockReleased;
+        }
+
+        public SocketAddress getSender() {
+            return sender;
+        }
+    }
+}
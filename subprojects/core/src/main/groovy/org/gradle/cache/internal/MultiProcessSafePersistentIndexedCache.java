@@ -15,12 +15,21 @@
  */
 package org.gradle.cache.internal;
 
+import org.gradle.api.Nullable;
 import org.gradle.cache.PersistentIndexedCache;
 
 import java.io.Closeable;
 
 public interface MultiProcessSafePersistentIndexedCache<K, V> extends
         PersistentIndexedCache<K, V>, UnitOfWorkParticipant, Closeable {
+    /**
+     * Returns the value for the given key when it is held in memory and can be returned without reading the cache file, or null otherwise.
+     *
+     * <p>Unlike the other methods, this method can be called by any thread, without holding the cache lock.</p>
+     */
+    @Nullable
+    V getIfInMemory(K key);
+
     /**
      * Note: this method is called before {@link UnitOfWorkParticipant#onEndWork(org.gradle.cache.internal.FileLock.State)}.
      */
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link BlockStore} that reads and writes blocks in place, through memory mapped regions of the cache file. Uses the same file format as {@link FileBackedBlockStore}.
+ *
+ * <p>The most recently used regions are kept mapped, up to the given maximum. Before a region past the end of the file is mapped, the file is grown to the end
+ * of the region by writing zeros, so that running out of disk space is reported as an {@link IOException} rather than as a fault when the mapped memory is
+ * written. The file is truncated to the end of the last block when the store is closed or cleared.</p>
+ *
+ * <p>Regions are unmapped as soon as they are evicted, and when the store is closed or cleared, rather than when the buffers are garbage collected. Unmapping
+ * relies on JVM internals, so a region that cannot be unmapped is left to the garbage collector. A mapped file cannot be truncated or deleted on Windows until
+ * it has been unmapped.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    public static final int DEFAULT_REGION_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_MAPPED_REGIONS = 128;
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileBlockStore.class);
+    private static final int ZEROS_SIZE = 8192;
+
+    private final File cacheFile;
+    private final int regionShift;
+    private final long regionMask;
+    private final Map<Long, MappedByteBuffer> regions;
+    private final RegionInputStream regionInputStream = new RegionInputStream();
+    private final DataInputStream inputStream = new DataInputStream(regionInputStream);
+    private final RegionOutputStream regionOutputStream = new RegionOutputStream();
+    private final DataOutputStream outputStream = new DataOutputStream(regionOutputStream);
+    private RandomAccessFile file;
+    private long currentRegionIndex = -1;
+    private MappedByteBuffer currentRegion;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+    private long allocatedFileSize;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE, DEFAULT_MAX_MAPPED_REGIONS);
+    }
+
+    /**
+     * @param regionSize The size of each mapped region. Must be a power of 2.
+     * @param maxMappedRegions The maximum number of regions to keep mapped.
+     */
+    public MappedFileBlockStore(File cacheFile, int regionSize, final int maxMappedRegions) {
+        if (regionSize <= 0 || Integer.bitCount(regionSize) != 1) {
+            throw new IllegalArgumentException(String.format("Region size must be a power of 2, but was %s.", regionSize));
+        }
+        if (maxMappedRegions < 1) {
+            throw new IllegalArgumentException(String.format("Must keep at least one region mapped, but was %s.", maxMappedRegions));
+        }
+        this.cacheFile = cacheFile;
+        this.regionShift = Integer.numberOfTrailingZeros(regionSize);
+        this.regionMask = regionSize - 1;
+        this.regions = new LinkedHashMap<Long, MappedByteBuffer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                if (size() > maxMappedRegions) {
+                    unmap(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache '%s'", cacheFile);
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(cacheFile, "rw");
+            currentFileSize = file.length();
+            allocatedFileSize = currentFileSize;
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        try {
+            try {
+                unmapRegions();
+                if (file.length() > currentFileSize) {
+                    file.setLength(currentFileSize);
+                }
+                allocatedFileSize = currentFileSize;
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        try {
+            unmapRegions();
+            file.setLength(0);
+            currentFileSize = 0;
+            allocatedFileSize = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(new BlockPointer(0), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    private void unmapRegions() {
+        currentRegionIndex = -1;
+        currentRegion = null;
+        for (MappedByteBuffer region : regions.values()) {
+            unmap(region);
+        }
+        regions.clear();
+    }
+
+    /**
+     * Unmaps the given region, which must not be used afterwards. Does nothing when the JVM does not allow buffers to be unmapped.
+     */
+    private static void unmap(MappedByteBuffer region) {
+        try {
+            Method cleanerMethod = region.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(region);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not unmap region of cache file. The region will be unmapped when it is garbage collected.", e);
+        }
+    }
+
+    /**
+     * Grows the file to at least the given size by writing zeros to it, so that the disk space is allocated before it is mapped.
+     */
+    private void allocate(long size) throws IOException {
+        if (size <= allocatedFileSize) {
+            return;
+        }
+        allocatedFileSize = Math.max(allocatedFileSize, file.length());
+        FileChannel channel = file.getChannel();
+        ByteBuffer zeros = ByteBuffer.allocate(ZEROS_SIZE);
+        while (allocatedFileSize < size) {
+            zeros.clear();
+            zeros.limit((int) Math.min(ZEROS_SIZE, size - allocatedFileSize));
+            while (zeros.hasRemaining()) {
+                allocatedFileSize += channel.write(zeros, allocatedFileSize);
+            }
+        }
+    }
+
+    /**
+     * Returns the region containing the given position in the file, mapping the region if required.
+     */
+    private MappedByteBuffer region(long pos) throws IOException {
+        long index = pos >>> regionShift;
+        if (index != currentRegionIndex) {
+            MappedByteBuffer region = regions.get(index);
+            if (region == null) {
+                allocate((index + 1) << regionShift);
+                region = file.getChannel().map(FileChannel.MapMode.READ_WRITE, index << regionShift, regionMask + 1);
+                regions.put(index, region);
+            }
+            currentRegionIndex = index;
+            currentRegion = region;
+        }
+        return currentRegion;
+    }
+
+    /**
+     * Reads the bytes of a block directly from the mapped regions.
+     */
+    private class RegionInputStream extends InputStream {
+        private long start;
+        private long pos;
+        private long limit;
+
+        void reset(long start, long limit) {
+            this.start = start;
+            this.pos = start;
+            this.limit = limit;
+        }
+
+        void limit(long limit) {
+            this.limit = limit;
+        }
+
+        long getCount() {
+            return pos - start;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos >= limit) {
+                return -1;
+            }
+            int offset = (int) (pos & regionMask);
+            MappedByteBuffer region = region(pos);
+            pos++;
+            return region.get(offset) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (pos >= limit) {
+                return -1;
+            }
+            int count = (int) Math.min(length, Math.min(limit - pos, regionMask + 1 - (pos & regionMask)));
+            MappedByteBuffer region = region(pos);
+            region.position((int) (pos & regionMask));
+            region.get(buffer, offset, count);
+            pos += count;
+            return count;
+        }
+    }
+
+    /**
+     * Writes the bytes of a block directly to the mapped regions.
+     */
+    private class RegionOutputStream extends OutputStream {
+        private long start;
+        private long pos;
+
+        void reset(long start) {
+            this.start = start;
+            this.pos = start;
+        }
+
+        long getCount() {
+            return pos - start;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            int offset = (int) (pos & regionMask);
+            MappedByteBuffer region = region(pos);
+            pos++;
+            region.put(offset, (byte) b);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            while (length > 0) {
+                int count = (int) Math.min(length, regionMask + 1 - (pos & regionMask));
+                MappedByteBuffer region = region(pos);
+                region.position((int) (pos & regionMask));
+                region.put(buffer, offset, count);
+                pos += count;
+                offset += count;
+                length -= count;
+            }
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 2 + INT_SIZE;
+        private static final int TAIL_SIZE = LONG_SIZE;
+        static final int BLOCK_MARKER = 0xCC;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = new BlockPointer(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+            regionOutputStream.reset(pos);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(BLOCK_MARKER);
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            outputStream.writeLong(regionOutputStream.getCount());
+
+            if (currentFileSize < finalSize) {
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+            regionInputStream.reset(pos, currentFileSize);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != (byte) BLOCK_MARKER) {
+                throw blockCorruptedException();
+            }
+            type = inputStream.readByte();
+            if (type != (byte) payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            regionInputStream.limit(pos + HEADER_SIZE + TAIL_SIZE + payloadSize);
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = regionInputStream.getCount();
+            long count = inputStream.readLong();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+}
@@ -25,15 +25,30 @@ import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.messaging.remote.internal.inet.InetAddressFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.net.SocketAddress;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
+
+/**
+ * Listens for requests from other processes for the locks held by this process, and hands the locks over once they have been released.
+ *
+ * <p>Each process that asks for a lock is queued, in the order of its first request. When the lock is released, the process that has waited longest is told
+ * so, and can take the lock straight away. The other processes keep asking for the lock, and queue up with the next owner. A process that misses the
+ * confirmation still finds the lock free the next time it polls.</p>
+ */
 public class DefaultFileLockContentionHandler implements FileLockContentionHandler, Stoppable {
     private static final Logger LOGGER = Logging.getLogger(DefaultFileLockContentionHandler.class);
     private final Lock lock = new ReentrantLock();
+    private final Condition releaseConfirmed = lock.newCondition();
     private final Map<Long, Runnable> contendedActions = new HashMap<Long, Runnable>();
+    private final Map<Long, Set<SocketAddress>> waitingProcesses = new HashMap<Long, Set<SocketAddress>>();
+    private final Set<Long> awaitedLocks = new HashSet<Long>();
+    private final Set<Long> releasedLocks = new HashSet<Long>();
     private final ExecutorFactory executorFactory;
     private final InetAddressFactory addressFactory;
 
@@ -62,20 +77,34 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
 
             private void doRun() {
                 while (true) {
-                    long lockId;
+                    FileLockCommunicator.Message message;
                     try {
-                        lockId = communicator.receive();
+                        message = communicator.receive();
                     } catch (GracefullyStoppedException e) {
                         return;
                     }
+                    long lockId = message.getLockId();
                     lock.lock();
                     Runnable action;
                     try {
+                        if (message.isLockReleased()) {
+                            if (awaitedLocks.contains(lockId)) {
+                                releasedLocks.add(lockId);
+                                releaseConfirmed.signalAll();
+                            }
+                            continue;
+                        }
                         action = contendedActions.get(lockId);
                         if (action == null) {
                             //received access request for lock that is already closed
                             continue;
                         }
+                        Set<SocketAddress> waiting = waitingProcesses.get(lockId);
+                        if (waiting == null) {
+                            waiting = new LinkedHashSet<SocketAddress>();
+                            waitingProcesses.put(lockId, waiting);
+                        }
+                        waiting.add(message.getSender());
                     } finally {
                         lock.unlock();
                     }
@@ -92,10 +121,7 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
             if (communicator == null) {
                 throw new IllegalStateException("Must initialize the handler by reserving the port first.");
             }
-            if (executor == null) {
-                executor = executorFactory.create("File lock request listener");
-                executor.execute(listener());
-            }
+            startListening();
             if (contendedActions.containsKey(lockId)) {
                 throw new UnsupportedOperationException("Multiple contention actions for a given lock are currently not supported.");
             }
@@ -105,8 +131,63 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
         }
     }
 
+    private void startListening() {
+        if (executor == null) {
+            executor = executorFactory.create("File lock request listener");
+            executor.execute(listener());
+        }
+    }
+
     public void pingOwner(int port, long lockId, String displayName) {
-        getCommunicator().pingOwner(port, lockId, displayName);
+        FileLockCommunicator communicator;
+        lock.lock();
+        try {
+            communicator = getCommunicator();
+            // Listen for the confirmation that the lock has been released
+            startListening();
+            awaitedLocks.add(lockId);
+        } finally {
+            lock.unlock();
+        }
+        communicator.pingOwner(port, lockId, displayName);
+    }
+
+    public boolean waitForRelease(long lockId, long timeoutMs) {
+        long waitUntil = System.currentTimeMillis() + timeoutMs;
+        lock.lock();
+        try {
+            while (!releasedLocks.remove(lockId)) {
+                long remaining = waitUntil - System.currentTimeMillis();
+                if (stopped || remaining <= 0) {
+                    return false;
+                }
+                releaseConfirmed.await(remaining, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            throw throwAsUncheckedException(e);
+        } finally {
+            awaitedLocks.remove(lockId);
+            lock.unlock();
+        }
+    }
+
+    public void lockReleased(long lockId) {
+        SocketAddress next;
+        FileLockCommunicator communicator;
+        lock.lock();
+        try {
+            Set<SocketAddress> waiting = waitingProcesses.remove(lockId);
+            if (stopped || waiting == null) {
+                return;
+            }
+            next = waiting.iterator().next();
+            communicator = this.communicator;
+        } finally {
+            lock.unlock();
+        }
+        LOGGER.debug("Confirming release of lock {} to {}.", lockId, next);
+        communicator.confirmLockRelease(next, lockId);
     }
 
     private void assertNotStopped() {
@@ -130,6 +211,8 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
         try {
             stopped = true;
             contendedActions.clear();
+            waitingProcesses.clear();
+            releaseConfirmed.signalAll();
             if (communicator != null) {
                 communicator.stop();
             }
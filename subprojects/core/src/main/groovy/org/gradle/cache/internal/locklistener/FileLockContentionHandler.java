@@ -24,4 +24,16 @@ public interface FileLockContentionHandler {
     int reservePort();
 
     void pingOwner(int port, long lockId, String displayName);
+
+    /**
+     * Waits until the owner of the given lock, which has been pinged using {@link #pingOwner(int, long, String)}, confirms that it has released the lock.
+     *
+     * @return true if the owner confirmed the release, false if the timeout expired first.
+     */
+    boolean waitForRelease(long lockId, long timeoutMs);
+
+    /**
+     * Called after the given lock has been released by this process, to tell the process that has waited longest for the lock that it can take the lock.
+     */
+    void lockReleased(long lockId);
 }
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.logstore;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.internal.FileBackedPersistentIndexedCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link org.gradle.cache.PersistentIndexedCache} that appends each update as a record to the end of the cache file, and keeps the position of the latest
+ * record of each key in an in-memory index. The index is rebuilt by reading the file when the cache is opened.
+ *
+ * <p>Records that have been replaced or removed are garbage. Once the garbage exceeds both the given minimum and the size of the live records, the live records
+ * are copied to a new file in the background. The new file replaces the cache file on the first access after the copy has finished, or when the cache is
+ * closed.</p>
+ *
+ * <p>Each record carries a checksum, so that records that were only partly written when a process crashed are discarded when the cache is opened.</p>
+ */
+public class LogStructuredPersistentIndexedCache<K, V> implements FileBackedPersistentIndexedCache<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredPersistentIndexedCache.class);
+    public static final long DEFAULT_MIN_COMPACTION_GARBAGE = 4 * 1024 * 1024;
+    private static final HashFunction KEY_HASH = Hashing.murmur3_128();
+    private static final int FILE_MARKER = 0x474c4f47;
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    // Record type, key length and value length, then the key and value, then the checksum
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int RECORD_OVERHEAD = RECORD_HEADER_SIZE + 4;
+    private static final byte[] NO_VALUE = new byte[0];
+
+    private final File cacheFile;
+    private final File compactedFile;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final Executor compactionExecutor;
+    private final long minCompactionGarbage;
+    private final CRC32 checksum = new CRC32();
+    private RandomAccessFile file;
+    private Map<Long, Record> index;
+    private long end;
+    private long liveBytes;
+    private FutureTask<Compaction> compaction;
+
+    public LogStructuredPersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, Executor compactionExecutor) {
+        this(cacheFile, keySerializer, valueSerializer, compactionExecutor, DEFAULT_MIN_COMPACTION_GARBAGE);
+    }
+
+    /**
+     * @param compactionExecutor The executor to copy the live records to a new file on.
+     * @param minCompactionGarbage The number of bytes of garbage that the file must contain before it is compacted.
+     */
+    public LogStructuredPersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, Executor compactionExecutor, long minCompactionGarbage) {
+        this.cacheFile = cacheFile;
+        this.compactedFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".compacted");
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.compactionExecutor = compactionExecutor;
+        this.minCompactionGarbage = minCompactionGarbage;
+        try {
+            open();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache %s (%s)", cacheFile.getName(), cacheFile);
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        // Left behind when the process stopped during compaction
+        compactedFile.delete();
+        cacheFile.getParentFile().mkdirs();
+        file = new RandomAccessFile(cacheFile, "rw");
+        index = new HashMap<Long, Record>();
+        if (file.length() >= FILE_HEADER_SIZE && file.readInt() == FILE_MARKER && file.readInt() == FILE_VERSION) {
+            end = readRecords(cacheFile, FILE_HEADER_SIZE, index);
+            if (end < file.length()) {
+                LOGGER.warn("{} contains partly written records. Discarding them.", this);
+                file.setLength(end);
+            }
+        } else {
+            if (file.length() > 0) {
+                LOGGER.warn("{} is corrupt. Discarding.", this);
+            }
+            file.setLength(0);
+            file.writeInt(FILE_MARKER);
+            file.writeInt(FILE_VERSION);
+            end = FILE_HEADER_SIZE;
+        }
+        liveBytes = sizeOf(index);
+    }
+
+    public V get(K key) {
+        try {
+            maybeFinishCompaction();
+            byte[] keyBytes = serialize(keySerializer, key);
+            Record record = index.get(hash(keyBytes));
+            if (record == null) {
+                return null;
+            }
+            byte[] bytes = new byte[record.length];
+            file.seek(record.pos);
+            file.readFully(bytes);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            buffer.get();
+            int keyLength = buffer.getInt();
+            int valueLength = buffer.getInt();
+            if (!Arrays.equals(keyBytes, Arrays.copyOfRange(bytes, RECORD_HEADER_SIZE, RECORD_HEADER_SIZE + keyLength))) {
+                // Another key with the same hash
+                return null;
+            }
+            return valueSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(bytes, RECORD_HEADER_SIZE + keyLength, valueLength)));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    public void put(K key, V value) {
+        try {
+            maybeFinishCompaction();
+            byte[] keyBytes = serialize(keySerializer, key);
+            Record record = append(PUT, keyBytes, serialize(valueSerializer, value));
+            Record previous = index.put(hash(keyBytes), record);
+            liveBytes += record.length - (previous == null ? 0 : previous.length);
+            maybeStartCompaction();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    public void remove(K key) {
+        try {
+            maybeFinishCompaction();
+            byte[] keyBytes = serialize(keySerializer, key);
+            long hash = hash(keyBytes);
+            if (!index.containsKey(hash)) {
+                return;
+            }
+            append(REMOVE, keyBytes, NO_VALUE);
+            liveBytes -= index.remove(hash).length;
+            maybeStartCompaction();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    public void close() {
+        LOGGER.debug("Closing {}", this);
+        try {
+            try {
+                if (compaction != null) {
+                    finishCompaction();
+                }
+            } finally {
+                file.close();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of bytes in the cache file that are taken by replaced and removed records.
+     */
+    long getGarbage() {
+        return end - FILE_HEADER_SIZE - liveBytes;
+    }
+
+    private Record append(byte type, byte[] keyBytes, byte[] valueBytes) throws IOException {
+        byte[] bytes = new byte[RECORD_OVERHEAD + keyBytes.length + valueBytes.length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.put(type);
+        buffer.putInt(keyBytes.length);
+        buffer.putInt(valueBytes.length);
+        buffer.put(keyBytes);
+        buffer.put(valueBytes);
+        checksum.reset();
+        checksum.update(bytes, 0, bytes.length - 4);
+        buffer.putInt((int) checksum.getValue());
+        file.seek(end);
+        file.write(bytes);
+        Record record = new Record(end, bytes.length);
+        end += bytes.length;
+        return record;
+    }
+
+    /**
+     * Reads the records of the given file, starting at the given position, into the given index. Stops at the first record that is incomplete or corrupt.
+     *
+     * @return The position after the last valid record.
+     */
+    private long readRecords(File source, long start, Map<Long, Record> index) throws IOException {
+        long length = source.length();
+        FileInputStream fileInputStream = new FileInputStream(source);
+        fileInputStream.getChannel().position(start);
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(fileInputStream));
+        try {
+            long pos = start;
+            CRC32 checksum = new CRC32();
+            byte[] bytes = new byte[1024];
+            while (pos + RECORD_OVERHEAD <= length) {
+                byte type = inputStream.readByte();
+                int keyLength = inputStream.readInt();
+                int valueLength = inputStream.readInt();
+                if (type != PUT && type != REMOVE || keyLength < 0 || valueLength < 0 || pos + RECORD_OVERHEAD + keyLength + valueLength > length) {
+                    break;
+                }
+                int recordLength = RECORD_OVERHEAD + keyLength + valueLength;
+                if (bytes.length < recordLength) {
+                    bytes = new byte[Math.max(recordLength, 2 * bytes.length)];
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                buffer.put(type);
+                buffer.putInt(keyLength);
+                buffer.putInt(valueLength);
+                inputStream.readFully(bytes, RECORD_HEADER_SIZE, keyLength + valueLength + 4);
+                checksum.reset();
+                checksum.update(bytes, 0, recordLength - 4);
+                buffer.position(recordLength - 4);
+                if (buffer.getInt() != (int) checksum.getValue()) {
+                    break;
+                }
+                long hash = hash(bytes, RECORD_HEADER_SIZE, keyLength);
+                if (type == PUT) {
+                    index.put(hash, new Record(pos, recordLength));
+                } else {
+                    index.remove(hash);
+                }
+                pos += recordLength;
+            }
+            return pos;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private void maybeStartCompaction() {
+        long garbage = getGarbage();
+        if (compaction != null || garbage < minCompactionGarbage || garbage <= liveBytes) {
+            return;
+        }
+        LOGGER.debug("Compacting {}: {} bytes of live records, {} bytes of garbage.", this, liveBytes, garbage);
+        final Map<Long, Record> records = new HashMap<Long, Record>(index);
+        final long compactedEnd = end;
+        compaction = new FutureTask<Compaction>(new Callable<Compaction>() {
+            public Compaction call() throws Exception {
+                return compact(records, compactedEnd);
+            }
+        });
+        compactionExecutor.execute(compaction);
+    }
+
+    /**
+     * Copies the given records to a new file. Runs in the background, while the cache file is being appended to. The given records are never changed.
+     */
+    private Compaction compact(Map<Long, Record> records, long compactedEnd) throws IOException {
+        List<Map.Entry<Long, Record>> entries = new ArrayList<Map.Entry<Long, Record>>(records.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Long, Record>>() {
+            public int compare(Map.Entry<Long, Record> entry1, Map.Entry<Long, Record> entry2) {
+                long pos1 = entry1.getValue().pos;
+                long pos2 = entry2.getValue().pos;
+                return pos1 < pos2 ? -1 : pos1 == pos2 ? 0 : 1;
+            }
+        });
+        Map<Long, Record> compactedIndex = new HashMap<Long, Record>(entries.size());
+        RandomAccessFile source = new RandomAccessFile(cacheFile, "r");
+        try {
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compactedFile)));
+            try {
+                outputStream.writeInt(FILE_MARKER);
+                outputStream.writeInt(FILE_VERSION);
+                long pos = FILE_HEADER_SIZE;
+                byte[] bytes = new byte[1024];
+                for (Map.Entry<Long, Record> entry : entries) {
+                    Record record = entry.getValue();
+                    if (bytes.length < record.length) {
+                        bytes = new byte[Math.max(record.length, 2 * bytes.length)];
+                    }
+                    source.seek(record.pos);
+                    source.readFully(bytes, 0, record.length);
+                    outputStream.write(bytes, 0, record.length);
+                    compactedIndex.put(entry.getKey(), new Record(pos, record.length));
+                    pos += record.length;
+                }
+            } finally {
+                outputStream.close();
+            }
+        } finally {
+            source.close();
+        }
+        return new Compaction(compactedIndex, compactedEnd);
+    }
+
+    private void maybeFinishCompaction() throws IOException {
+        if (compaction != null && compaction.isDone()) {
+            finishCompaction();
+        }
+    }
+
+    /**
+     * Waits for the compaction to finish, then copies the records appended since the compaction started to the compacted file and replaces the cache file with it.
+     */
+    private void finishCompaction() throws IOException {
+        Compaction result;
+        try {
+            result = compaction.get();
+        } catch (ExecutionException e) {
+            LOGGER.warn(String.format("Could not compact %s.", this), e.getCause());
+            compactedFile.delete();
+            return;
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            compaction = null;
+        }
+
+        long compactedLength = compactedFile.length();
+        RandomAccessFile compacted = new RandomAccessFile(compactedFile, "rw");
+        try {
+            compacted.seek(compactedLength);
+            byte[] bytes = new byte[8192];
+            file.seek(result.end);
+            for (long remaining = end - result.end; remaining > 0;) {
+                int count = file.read(bytes, 0, (int) Math.min(bytes.length, remaining));
+                compacted.write(bytes, 0, count);
+                remaining -= count;
+            }
+        } finally {
+            compacted.close();
+        }
+        long compactedEnd = readRecords(compactedFile, compactedLength, result.index);
+
+        file.close();
+        if (!compactedFile.renameTo(cacheFile)) {
+            // Cannot rename over an existing file on some platforms
+            cacheFile.delete();
+            if (!compactedFile.renameTo(cacheFile)) {
+                throw new IOException(String.format("Could not replace %s with the compacted file.", this));
+            }
+        }
+        file = new RandomAccessFile(cacheFile, "rw");
+        index = result.index;
+        end = compactedEnd;
+        liveBytes = sizeOf(index);
+        LOGGER.debug("Compacted {}: {} bytes.", this, end);
+    }
+
+    private static long sizeOf(Map<Long, Record> index) {
+        long size = 0;
+        for (Record record : index.values()) {
+            size += record.length;
+        }
+        return size;
+    }
+
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static long hash(byte[] bytes) {
+        return hash(bytes, 0, bytes.length);
+    }
+
+    private static long hash(byte[] bytes, int offset, int length) {
+        return KEY_HASH.hashBytes(bytes, offset, length).asLong();
+    }
+
+    private static class Record {
+        final long pos;
+        final int length;
+
+        private Record(long pos, int length) {
+            this.pos = pos;
+            this.length = length;
+        }
+    }
+
+    private static class Compaction {
+        final Map<Long, Record> index;
+        final long end;
+
+        private Compaction(Map<Long, Record> index, long end) {
+            this.index = index;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.*;
+import org.gradle.plugin.use.internal.PluginRequests;
+import org.gradle.plugin.use.internal.PluginRequestsSerializer;
+
+/**
+ * Creates the operations used to compile the two passes of a script.
+ */
+class BuildScriptCompileOperations {
+    private final DocumentationRegistry documentationRegistry;
+    private final BuildScriptDataSerializer buildScriptDataSerializer = new BuildScriptDataSerializer();
+    private final PluginRequestsSerializer pluginRequestsSerializer = new PluginRequestsSerializer();
+
+    BuildScriptCompileOperations(DocumentationRegistry documentationRegistry) {
+        this.documentationRegistry = documentationRegistry;
+    }
+
+    /**
+     * The first pass, which extracts plugin requests and compiles only the classpath block.
+     */
+    CompileOperation<PluginRequests> getInitialPassOperation(ScriptSource scriptSource, ScriptTarget scriptTarget) {
+        String onPluginBlockError = scriptTarget.getSupportsPluginsBlock() ? null : "Only Project build scripts can contain plugins {} blocks";
+        InitialPassStatementTransformer initialPassStatementTransformer = new InitialPassStatementTransformer(scriptTarget.getClasspathBlockName(), onPluginBlockError, scriptSource, documentationRegistry);
+        SubsetScriptTransformer initialTransformer = new SubsetScriptTransformer(initialPassStatementTransformer);
+        return new FactoryBackedCompileOperation<PluginRequests>("cp_" + scriptTarget.getId(), initialTransformer, initialPassStatementTransformer, pluginRequestsSerializer);
+    }
+
+    /**
+     * The second pass, which compiles everything except the classpath block and plugin requests.
+     */
+    CompileOperation<BuildScriptData> getBuildScriptOperation(ScriptSource scriptSource, ScriptTarget scriptTarget) {
+        BuildScriptTransformer buildScriptTransformer = new BuildScriptTransformer(scriptTarget.getClasspathBlockName(), scriptSource);
+        return new FactoryBackedCompileOperation<BuildScriptData>(scriptTarget.getId(), buildScriptTransformer, buildScriptTransformer, buildScriptDataSerializer);
+    }
+}
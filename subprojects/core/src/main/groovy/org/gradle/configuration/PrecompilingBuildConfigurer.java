@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler.ScriptToCompile;
+import org.gradle.internal.Actions;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier;
+import org.gradle.util.Clock;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles the build scripts of all projects concurrently, before the projects are configured.
+ *
+ * <p>The first pass of every build script is compiled with the base class loader shared by all projects. The second pass is compiled with the class loader
+ * of the project, which is only known before configuration when neither the project nor its ancestors can change their class loader. This is the case when
+ * their scripts contain neither a classpath block nor a plugins block. Compiled classes are used only when configuration compiles the script with the same
+ * class loader, so the script class cache and class loader scoping are unchanged.</p>
+ */
+public class PrecompilingBuildConfigurer implements BuildConfigurer {
+    public static final String TOGGLE = "org.gradle.internal.scripts.precompile";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrecompilingBuildConfigurer.class);
+
+    private final BuildConfigurer delegate;
+    private final FileCacheBackedScriptClassCompiler scriptCompiler;
+    private final BuildScriptCompileOperations compileOperations;
+    private final ExecutorFactory executorFactory;
+    private final TemporaryFileProvider temporaryFileProvider;
+
+    public PrecompilingBuildConfigurer(BuildConfigurer delegate, FileCacheBackedScriptClassCompiler scriptCompiler, DocumentationRegistry documentationRegistry,
+                                       ExecutorFactory executorFactory, TemporaryFileProvider temporaryFileProvider) {
+        this.delegate = delegate;
+        this.scriptCompiler = scriptCompiler;
+        this.compileOperations = new BuildScriptCompileOperations(documentationRegistry);
+        this.executorFactory = executorFactory;
+        this.temporaryFileProvider = temporaryFileProvider;
+    }
+
+    public void configure(GradleInternal gradle) {
+        // Only some projects are configured when configuring on demand, so don't compile the scripts of all of them
+        if (gradle.getStartParameter().isConfigureOnDemand()) {
+            delegate.configure(gradle);
+            return;
+        }
+
+        File stagingDir = temporaryFileProvider.createTemporaryDirectory("scripts", null);
+        try {
+            precompile(gradle, stagingDir);
+            delegate.configure(gradle);
+        } finally {
+            scriptCompiler.discardPrecompiledScripts(stagingDir);
+            GFileUtils.deleteQuietly(stagingDir);
+        }
+    }
+
+    private void precompile(GradleInternal gradle, File stagingDir) {
+        ProjectInternal rootProject = gradle.getRootProject();
+        ClassLoaderScope baseScope = rootProject.getBaseClassLoaderScope();
+        if (!baseScope.isLocked()) {
+            return;
+        }
+
+        Clock clock = new Clock();
+        List<ScriptToCompile> scripts = new ArrayList<ScriptToCompile>();
+        addScripts(rootProject, baseScope.getExportClassLoader(), true, scripts);
+        int threads = Math.max(1, gradle.getStartParameter().getMaxWorkerCount());
+        StoppableExecutor executor = executorFactory.create("Build script compiler", threads);
+        try {
+            scriptCompiler.precompile(scripts, stagingDir, executor);
+        } finally {
+            executor.stop();
+        }
+        LOGGER.debug("Timing: Precompiling build scripts took {}", clock.getTime());
+    }
+
+    private void addScripts(ProjectInternal project, ClassLoader baseClassLoader, boolean classLoaderKnown, List<ScriptToCompile> scripts) {
+        ScriptSource source = project.getBuildScriptSource();
+        String text = source.getResource().getText();
+        boolean emptyScript = text == null || text.matches("\\s*");
+        ScriptTarget scriptTarget = new ProjectScriptTarget(project);
+        boolean projectClassLoaderKnown = classLoaderKnown && (emptyScript || !text.contains(scriptTarget.getClasspathBlockName()) && !text.contains("plugins"));
+        if (!emptyScript) {
+            scripts.add(new ScriptToCompile(source, baseClassLoader, compileOperations.getInitialPassOperation(source, scriptTarget), scriptTarget.getScriptClass(), Actions.doNothing()));
+            if (projectClassLoaderKnown) {
+                // A project scope without any classpath of its own uses the class loader of its parent, and so on up to the base scope
+                scripts.add(new ScriptToCompile(source, baseClassLoader, compileOperations.getBuildScriptOperation(source, scriptTarget), scriptTarget.getScriptClass(), ClosureCreationInterceptingVerifier.INSTANCE));
+            }
+        }
+        for (Project child : project.getChildProjects().values()) {
+            addScripts((ProjectInternal) child, baseClassLoader, projectClassLoaderKnown, scripts);
+        }
+    }
+}
@@ -18,7 +18,6 @@ package org.gradle.execution.taskgraph;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.StandardSystemProperty;
 import com.google.common.collect.*;
 import org.gradle.api.*;
 import org.gradle.api.internal.TaskInternal;
@@ -41,12 +40,13 @@ import org.gradle.internal.graph.DirectedGraphRenderer;
 import org.gradle.internal.graph.GraphNodeRenderer;
 import org.gradle.logging.StyledTextOutput;
 import org.gradle.util.CollectionUtils;
-import org.gradle.util.TextUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -58,16 +58,32 @@ import java.util.concurrent.locks.ReentrantLock;
 public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     public static final String INTRA_PROJECT_TOGGLE = "org.gradle.parallel.intra";
+    public static final String CRITICAL_PATH_TOGGLE = "org.gradle.parallel.criticalpath";
 
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
     private final Lock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
+    private final Condition workerCondition = lock.newCondition();
+    private final Condition completionCondition = lock.newCondition();
     private final Set<TaskInfo> tasksInUnknownState = new LinkedHashSet<TaskInfo>();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    private final Set<TaskInfo> executionQueue = new LinkedHashSet<TaskInfo>();
+    private final Map<TaskInfo, Integer> executionQueuePositions = Maps.newHashMap();
+    private final Map<TaskInfo, Long> criticalPathLengths = Maps.newHashMap();
+    private final TreeSet<TaskInfo> readyQueue = new TreeSet<TaskInfo>(new Comparator<TaskInfo>() {
+        public int compare(TaskInfo o1, TaskInfo o2) {
+            if (criticalPathPrioritization) {
+                int result = criticalPathLengths.get(o2).compareTo(criticalPathLengths.get(o1));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return executionQueuePositions.get(o1).compareTo(executionQueuePositions.get(o2));
+        }
+    });
+    private int waitingWorkers;
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
 
@@ -76,23 +92,39 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Multiset<String> projectsWithRunningTasks = HashMultiset.create();
     private final Multiset<String> projectsWithRunningNonParallelizableTasks = HashMultiset.create();
     private final Set<TaskInternal> runningTasks = Sets.newIdentityHashSet();
-    private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
+    private final OutputPathTrie runningTaskOutputs = new OutputPathTrie();
+    private final ConcurrentMap<Task, Set<String>> canonicalizedOutputCache = new ConcurrentHashMap<Task, Set<String>>();
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
 
     private final boolean intraProjectParallelization;
+    private final boolean criticalPathPrioritization;
+    private final TaskDurationHistory taskDurationHistory;
 
-    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, boolean criticalPathPrioritization, TaskDurationHistory taskDurationHistory) {
         this.cancellationToken = cancellationToken;
         this.intraProjectParallelization = intraProjectParallelization;
+        this.criticalPathPrioritization = criticalPathPrioritization;
+        this.taskDurationHistory = taskDurationHistory;
 
         if (intraProjectParallelization) {
             LOGGER.info("intra project task parallelization is enabled");
         }
+        if (criticalPathPrioritization) {
+            LOGGER.info("critical path task prioritization is enabled");
+        }
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+        this(cancellationToken, intraProjectParallelization, false, TaskDurationHistory.NONE);
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, TaskDurationHistory taskDurationHistory) {
+        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE), Boolean.getBoolean(CRITICAL_PATH_TOGGLE), taskDurationHistory);
     }
 
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken) {
-        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE));
+        this(cancellationToken, TaskDurationHistory.NONE);
     }
 
     public void addToTaskGraph(Collection<? extends Task> tasks) {
@@ -315,6 +347,91 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         executionQueue.clear();
         executionQueue.addAll(executionPlan.values());
+        executionQueuePositions.clear();
+        for (TaskInfo taskInfo : executionQueue) {
+            executionQueuePositions.put(taskInfo, executionQueuePositions.size());
+        }
+        if (criticalPathPrioritization) {
+            calculateCriticalPathLengths();
+        }
+        rebuildReadyQueue();
+    }
+
+    /**
+     * Estimates, for each queued task, the time from its start until the end of the longest chain of tasks that have to wait for it. Ready tasks with the longest
+     * remaining chain are started first. Tasks that have not been executed before are assumed to take the average duration of the known tasks.
+     */
+    private void calculateCriticalPathLengths() {
+        List<TaskInfo> queuedTasks = new ArrayList<TaskInfo>(executionQueue);
+        List<TaskInternal> tasks = new ArrayList<TaskInternal>(queuedTasks.size());
+        for (TaskInfo taskInfo : queuedTasks) {
+            tasks.add(taskInfo.getTask());
+        }
+        Map<TaskInternal, Long> durations = taskDurationHistory.getPreviousDurations(tasks);
+        long defaultDuration = 1;
+        if (!durations.isEmpty()) {
+            long total = 0;
+            for (Long duration : durations.values()) {
+                total += duration;
+            }
+            defaultDuration = Math.max(1, total / durations.size());
+        }
+
+        criticalPathLengths.clear();
+        // Tasks that have to wait for a given task always come later in the queue, so visit the queue in reverse
+        for (int i = queuedTasks.size() - 1; i >= 0; i--) {
+            TaskInfo taskInfo = queuedTasks.get(i);
+            long longestWaitingChain = 0;
+            for (TaskInfo waiting : Iterables.concat(taskInfo.getDependencyPredecessors(), taskInfo.getMustPredecessors())) {
+                Long length = criticalPathLengths.get(waiting);
+                if (length != null && length > longestWaitingChain) {
+                    longestWaitingChain = length;
+                }
+            }
+            Long duration = durations.get(taskInfo.getTask());
+            criticalPathLengths.put(taskInfo, (duration == null ? defaultDuration : duration) + longestWaitingChain);
+        }
+    }
+
+    /**
+     * Recalculates the set of queued tasks whose dependencies have all completed. This is a full scan of the queue, and is only used when the plan is
+     * created and when execution is aborted. Otherwise, the ready queue is maintained incrementally as tasks complete.
+     */
+    private void rebuildReadyQueue() {
+        readyQueue.clear();
+        for (TaskInfo taskInfo : executionQueue) {
+            maybeMarkReady(taskInfo);
+        }
+    }
+
+    private void maybeMarkReady(TaskInfo taskInfo) {
+        if (taskInfo.isReady() && executionQueue.contains(taskInfo) && taskInfo.allDependenciesComplete()) {
+            readyQueue.add(taskInfo);
+        }
+    }
+
+    /**
+     * Called when the given task has reached a complete state. Only the tasks that depend on or must run after this task can become ready as a result.
+     */
+    private void dependenciesMayHaveCompleted(TaskInfo taskInfo) {
+        for (TaskInfo predecessor : taskInfo.getDependencyPredecessors()) {
+            maybeMarkReady(predecessor);
+        }
+        for (TaskInfo predecessor : taskInfo.getMustPredecessors()) {
+            maybeMarkReady(predecessor);
+        }
+    }
+
+    private void signalWorkers() {
+        if (runningTasks.isEmpty() && readyQueue.isEmpty()) {
+            // Nothing more will become ready - wake every worker so that it can finish
+            workerCondition.signalAll();
+            return;
+        }
+        int toWake = Math.min(waitingWorkers, readyQueue.size());
+        for (int i = 0; i < toWake; i++) {
+            workerCondition.signal();
+        }
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -436,12 +553,16 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             entryTasks.clear();
             executionPlan.clear();
             executionQueue.clear();
+            readyQueue.clear();
+            executionQueuePositions.clear();
+            criticalPathLengths.clear();
             failures.clear();
             projectsWithRunningTasks.clear();
             projectsWithRunningNonParallelizableTasks.clear();
             canonicalizedOutputCache.clear();
             isParallelSafeCache.clear();
             runningTasks.clear();
+            runningTaskOutputs.clear();
         } finally {
             lock.unlock();
         }
@@ -469,25 +590,49 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                     }
                 }
                 TaskInfo nextMatching = null;
-                boolean allTasksComplete = true;
-                Iterator<TaskInfo> iterator = executionQueue.iterator();
+                TaskInternal needsOutputs = null;
+                Iterator<TaskInfo> iterator = readyQueue.iterator();
                 while (iterator.hasNext()) {
                     TaskInfo taskInfo = iterator.next();
-                    allTasksComplete = allTasksComplete && taskInfo.isComplete();
-                    if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
+                    if (!taskInfo.isReady() || !taskInfo.allDependenciesComplete()) {
+                        // Task has been skipped, or a finalizer it depends on has since been enforced. It is offered again when its dependencies complete
+                        iterator.remove();
+                        continue;
+                    }
+                    if (!canonicalizedOutputCache.containsKey(taskInfo.getTask())) {
+                        needsOutputs = taskInfo.getTask();
+                        break;
+                    }
+                    if (canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
                         nextMatching = taskInfo;
                         iterator.remove();
+                        executionQueue.remove(taskInfo);
                         break;
                     }
                 }
-                if (allTasksComplete) {
-                    return null;
+                if (needsOutputs != null) {
+                    // Resolving and canonicalizing the outputs of a task can be expensive, so do this without holding the lock and then look again
+                    lock.unlock();
+                    try {
+                        canonicalizedOutputPaths(needsOutputs);
+                    } finally {
+                        lock.lock();
+                    }
+                    continue;
                 }
                 if (nextMatching == null) {
+                    if (runningTasks.isEmpty() && allQueuedTasksComplete()) {
+                        workerCondition.signalAll();
+                        completionCondition.signalAll();
+                        return null;
+                    }
+                    waitingWorkers++;
                     try {
-                        condition.await();
+                        workerCondition.await();
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
+                    } finally {
+                        waitingWorkers--;
                     }
                 } else {
                     if (nextMatching.allDependenciesSuccessful()) {
@@ -496,7 +641,8 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                         return nextMatching;
                     } else {
                         nextMatching.skipExecution();
-                        condition.signalAll();
+                        dependenciesMayHaveCompleted(nextMatching);
+                        signalWorkers();
                     }
                 }
             }
@@ -505,6 +651,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    private boolean allQueuedTasksComplete() {
+        for (TaskInfo taskInfo : executionQueue) {
+            if (!taskInfo.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean canRunWithWithCurrentlyExecutedTasks(TaskInfo taskInfo) {
         TaskInternal task = taskInfo.getTask();
         String projectPath = task.getProject().getPath();
@@ -529,10 +684,13 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         return false;
     }
 
+    /**
+     * Can be called without holding the lock.
+     */
     private Set<String> canonicalizedOutputPaths(TaskInternal task) {
         Set<String> paths = canonicalizedOutputCache.get(task);
         if (paths == null) {
-            paths = Sets.newHashSet(Iterables.transform(task.getOutputs().getFiles(), new Function<File, String>() {
+            paths = ImmutableSet.copyOf(Iterables.transform(task.getOutputs().getFiles(), new Function<File, String>() {
                 @Override
                 public String apply(File file) {
                     String path;
@@ -544,7 +702,10 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                     return path;
                 }
             }));
-            canonicalizedOutputCache.put(task, paths);
+            Set<String> existing = canonicalizedOutputCache.putIfAbsent(task, paths);
+            if (existing != null) {
+                paths = existing;
+            }
         }
 
         return paths;
@@ -552,41 +713,20 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     @Nullable
     private Pair<TaskInternal, String> firstTaskWithOverlappingOutput(TaskInternal candidateTask) {
-        if (runningTasks.isEmpty()) {
+        if (runningTaskOutputs.isEmpty()) {
             return null;
         }
 
         for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
-            for (TaskInternal runningTask : runningTasks) {
-                for (String runningTaskOutputPath : canonicalizedOutputPaths(runningTask)) {
-                    if (pathsOverlap(candidateTaskOutputPath, runningTaskOutputPath)) {
-                        return Pair.of(runningTask, TextUtil.shorterOf(candidateTaskOutputPath, runningTaskOutputPath));
-                    }
-                }
+            Pair<TaskInternal, String> overlap = runningTaskOutputs.findOverlap(candidateTaskOutputPath);
+            if (overlap != null) {
+                return overlap;
             }
         }
 
         return null;
     }
 
-
-    private boolean pathsOverlap(String firstPath, String secondPath) {
-        if (firstPath.equals(secondPath)) {
-            return true;
-        }
-
-        String shorter;
-        String longer;
-        if (firstPath.length() > secondPath.length()) {
-            shorter = secondPath;
-            longer = firstPath;
-        } else {
-            shorter = firstPath;
-            longer = secondPath;
-        }
-        return longer.startsWith(shorter + StandardSystemProperty.FILE_SEPARATOR.value());
-    }
-
     boolean isParallelizable(TaskInternal task) {
         if (intraProjectParallelization) {
             Boolean safe = isParallelSafeCache.get(task);
@@ -621,6 +761,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         projectsWithRunningTasks.add(projectPath);
         runningTasks.add(task);
+        runningTaskOutputs.add(task, canonicalizedOutputPaths(task));
     }
 
     private void recordTaskCompleted(TaskInfo taskInfo) {
@@ -630,6 +771,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             projectsWithRunningNonParallelizableTasks.remove(projectPath);
         }
         projectsWithRunningTasks.remove(projectPath);
+        runningTaskOutputs.remove(task, canonicalizedOutputPaths(task));
         canonicalizedOutputCache.remove(task);
         isParallelSafeCache.remove(task);
         runningTasks.remove(task);
@@ -645,7 +787,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
             taskInfo.finishExecution();
             recordTaskCompleted(taskInfo);
-            condition.signalAll();
+            dependenciesMayHaveCompleted(taskInfo);
+            signalWorkers();
+            completionCondition.signalAll();
         } finally {
             lock.unlock();
         }
@@ -665,6 +809,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         if (node.isMustNotRun() || node.isRequired()) {
             node.enforceRun();
+            maybeMarkReady(node);
         }
     }
 
@@ -697,6 +842,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 aborted = true;
             }
         }
+        if (aborted) {
+            rebuildReadyQueue();
+        }
         return aborted;
     }
 
@@ -705,7 +853,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         try {
             while (!allTasksComplete()) {
                 try {
-                    condition.await();
+                    completionCondition.await();
                 } catch (InterruptedException e) {
                     throw new RuntimeException(e);
                 }
@@ -64,17 +64,19 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private final ListenerBroadcast<InternalTaskExecutionListener> internalTaskListeners;
     private final DefaultTaskExecutionPlan taskExecutionPlan;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final TaskDurationHistory taskDurationHistory;
     private TaskGraphState taskGraphState = TaskGraphState.EMPTY;
 
-    public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, Factory<? extends TaskExecuter> taskExecuter, BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor) {
+    public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, Factory<? extends TaskExecuter> taskExecuter, BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor, TaskDurationHistory taskDurationHistory) {
         this.taskPlanExecutor = taskPlanExecutor;
         this.taskExecuter = taskExecuter;
         this.timeProvider = timeProvider;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.taskDurationHistory = taskDurationHistory;
         graphListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionGraphListener.class);
         taskListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionListener.class);
         internalTaskListeners = listenerManager.createAnonymousBroadcaster(InternalTaskExecutionListener.class);
-        taskExecutionPlan = new DefaultTaskExecutionPlan(cancellationToken);
+        taskExecutionPlan = new DefaultTaskExecutionPlan(cancellationToken, taskDurationHistory);
     }
 
     public void useFailureHandler(TaskFailureHandler handler) {
@@ -111,6 +113,7 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
             logger.debug("Timing: Executing the DAG took " + clock.getTime());
         } finally {
             taskExecutionPlan.clear();
+            taskDurationHistory.flush();
         }
     }
 
@@ -202,6 +205,10 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
                 taskListeners.getSource().beforeExecute(task);
                 taskExecuter.execute(task, task.getState(), new DefaultTaskExecutionContext());
                 taskListeners.getSource().afterExecute(task, state);
+                // Up-to-date and skipped tasks say nothing about how long the task takes to run
+                if (!state.getSkipped() && state.getFailure() == null) {
+                    taskDurationHistory.recordDuration(task, timeProvider.getCurrentTime() - startTime);
+                }
             } finally {
                 long endTime = timeProvider.getCurrentTime();
                 internalTaskListeners.getSource().afterExecute(taskOperation, new OperationResult(startTime, endTime, task.getState().getFailure()));
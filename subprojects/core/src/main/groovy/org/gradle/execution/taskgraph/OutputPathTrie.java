@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.internal.Pair;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the canonical output paths of the currently running tasks, organized as a trie of path segments.
+ *
+ * Checking whether a path overlaps with (is equal to, is an ancestor of or is a descendant of) any indexed path costs O(depth of the path),
+ * independent of the number of running tasks and the number of their outputs. Not thread-safe.
+ */
+class OutputPathTrie {
+    private final char separator;
+    private final Node root = new Node();
+
+    OutputPathTrie() {
+        this(File.separatorChar);
+    }
+
+    OutputPathTrie(char separator) {
+        this.separator = separator;
+    }
+
+    public boolean isEmpty() {
+        return root.ownersInSubtree == 0;
+    }
+
+    public void clear() {
+        root.owners.clear();
+        root.children.clear();
+        root.ownersInSubtree = 0;
+    }
+
+    public void add(TaskInternal task, Iterable<String> paths) {
+        for (String path : paths) {
+            add(task, path);
+        }
+    }
+
+    public void remove(TaskInternal task, Iterable<String> paths) {
+        for (String path : paths) {
+            remove(task, path);
+        }
+    }
+
+    /**
+     * Returns some task whose output overlaps with the given path, along with the shorter of the two overlapping paths. Returns null when there is no overlap.
+     */
+    @Nullable
+    public Pair<TaskInternal, String> findOverlap(String path) {
+        if (isEmpty()) {
+            return null;
+        }
+        Node node = root;
+        int start = 0;
+        while (true) {
+            int end = path.indexOf(separator, start);
+            node = node.getChild(end < 0 ? path.substring(start) : path.substring(start, end));
+            if (node == null) {
+                return null;
+            }
+            if (!node.owners.isEmpty()) {
+                // An indexed path is equal to or an ancestor of the given path
+                return Pair.of(node.owners.get(0), end < 0 ? path : path.substring(0, end));
+            }
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+        // Some indexed paths are descendants of the given path
+        TaskInternal owner = node.findAnyOwner();
+        return owner == null ? null : Pair.of(owner, path);
+    }
+
+    private void add(TaskInternal task, String path) {
+        Node node = root;
+        node.ownersInSubtree++;
+        int start = 0;
+        while (true) {
+            int end = path.indexOf(separator, start);
+            node = node.getOrCreateChild(end < 0 ? path.substring(start) : path.substring(start, end));
+            node.ownersInSubtree++;
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+        node.owners.add(task);
+    }
+
+    private void remove(TaskInternal task, String path) {
+        List<Node> visited = new ArrayList<Node>();
+        Node node = root;
+        visited.add(node);
+        int start = 0;
+        while (true) {
+            int end = path.indexOf(separator, start);
+            node = node.getChild(end < 0 ? path.substring(start) : path.substring(start, end));
+            if (node == null) {
+                return;
+            }
+            visited.add(node);
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+        if (!node.owners.remove(task)) {
+            return;
+        }
+        for (int i = visited.size() - 1; i >= 0; i--) {
+            Node current = visited.get(i);
+            current.ownersInSubtree--;
+            if (i > 0 && current.ownersInSubtree == 0) {
+                visited.get(i - 1).children.remove(current.segment);
+            }
+        }
+    }
+
+    private static class Node {
+        private final String segment;
+        private final List<TaskInternal> owners = new ArrayList<TaskInternal>(1);
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private int ownersInSubtree;
+
+        Node() {
+            this("");
+        }
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        @Nullable
+        Node getChild(String segment) {
+            return children.get(segment);
+        }
+
+        Node getOrCreateChild(String segment) {
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node(segment);
+                children.put(segment, child);
+            }
+            return child;
+        }
+
+        @Nullable
+        TaskInternal findAnyOwner() {
+            if (ownersInSubtree == 0) {
+                return null;
+            }
+            if (!owners.isEmpty()) {
+                return owners.get(0);
+            }
+            for (Node child : children.values()) {
+                TaskInternal owner = child.findAnyOwner();
+                if (owner != null) {
+                    return owner;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.internal.TaskInternal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Records how long tasks took to execute, so that later builds can use the durations to schedule tasks.
+ */
+public interface TaskDurationHistory {
+    TaskDurationHistory NONE = new TaskDurationHistory() {
+        public Map<TaskInternal, Long> getPreviousDurations(Collection<? extends TaskInternal> tasks) {
+            return Collections.emptyMap();
+        }
+
+        public void recordDuration(TaskInternal task, long durationMillis) {
+        }
+
+        public void flush() {
+        }
+    };
+
+    /**
+     * Returns the duration of the most recent execution of each of the given tasks, in milliseconds. Tasks with no known duration are not included in the result.
+     */
+    Map<TaskInternal, Long> getPreviousDurations(Collection<? extends TaskInternal> tasks);
+
+    /**
+     * Records the duration of a task that has executed its actions. Recorded durations may not be persisted until {@link #flush()} is called.
+     */
+    void recordDuration(TaskInternal task, long durationMillis);
+
+    /**
+     * Persists the durations recorded since the last flush.
+     */
+    void flush();
+}
@@ -22,26 +22,46 @@ import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
 import org.gradle.cache.PersistentCache;
+import org.gradle.groovy.scripts.DelegatingScriptSource;
 import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderSpec;
+import org.gradle.internal.classloader.ClassLoaderVisitor;
+import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.hash.HashUtil;
 import org.gradle.logging.ProgressLogger;
 import org.gradle.logging.ProgressLoggerFactory;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 /**
  * A {@link ScriptClassCompiler} which compiles scripts to a cache directory, and loads them from there.
+ *
+ * <p>Where possible, a script is compiled once into a cache shared by all scripts with the same content and class path, and its classes are then copied
+ * into the cache directory for the script with the script class renamed.</p>
  */
 public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileCacheBackedScriptClassCompiler.class);
     private final ScriptCompilationHandler scriptCompilationHandler;
     private final ProgressLoggerFactory progressLoggerFactory;
     private final CacheRepository cacheRepository;
     private final CacheValidator validator;
     private final CompositeStoppable caches = new CompositeStoppable();
+    private final Map<String, PrecompiledScript> precompiledScripts = new ConcurrentHashMap<String, PrecompiledScript>();
 
     public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, CacheValidator validator, ScriptCompilationHandler scriptCompilationHandler,
                                               ProgressLoggerFactory progressLoggerFactory) {
@@ -54,18 +74,9 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
     @Override
     public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource source, final ClassLoader classLoader, final ClassLoaderId classLoaderId, CompileOperation<M> operation, final Class<T> scriptBaseClass,
                                                               Action<? super ClassNode> verifier) {
-        Map<String, Object> properties = new HashMap<String, Object>();
-        properties.put("source.filename", source.getFileName());
-        properties.put("source.hash", HashUtil.createCompactMD5(source.getResource().getText()));
-
-        String dslId = operation.getId();
-        String cacheName = String.format("scripts/%s/%s", source.getClassName(), dslId);
-        PersistentCache cache = cacheRepository.cache(cacheName)
-                .withProperties(properties)
-                .withValidator(validator)
-                .withDisplayName(String.format("%s class cache for %s", dslId, source.getDisplayName()))
-                .withInitializer(new ProgressReportingInitializer(progressLoggerFactory, new CacheInitializer(source, classLoader, operation, verifier, scriptBaseClass)))
-                .open();
+        String sourceHash = HashUtil.createCompactMD5(source.getResource().getText());
+        CacheInitializer initializer = new CacheInitializer(source, classLoader, operation, verifier, scriptBaseClass, sourceHash);
+        PersistentCache cache = openCache(source, operation, sourceHash, new ProgressReportingInitializer(progressLoggerFactory, initializer));
 
         // This isn't quite right. The cache will be closed at the end of the build, releasing the shared lock on the classes. Instead, the cache for a script should be
         // closed once we no longer require the script classes. This may be earlier than the end of the current build, or it may used across multiple builds
@@ -77,16 +88,135 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         return scriptCompilationHandler.loadFromDir(source, classLoader, classesDir, metadataDir, operation, scriptBaseClass, classLoaderId);
     }
 
+    /**
+     * Compiles the given scripts into a staging directory, using the given executor to compile several scripts at the same time. Scripts that are already
+     * cached are skipped. A staged script is moved into its cache by a later call to {@link #compile}, when that call uses the same source and class loader.
+     * Otherwise, {@link #compile} compiles the script as usual. Scripts that fail to compile here are also left for {@link #compile} to report.
+     */
+    public void precompile(Iterable<? extends ScriptToCompile> scripts, File stagingDir, Executor executor) {
+        List<ScriptToCompile> notCached = new ArrayList<ScriptToCompile>();
+        for (ScriptToCompile script : scripts) {
+            if (!isCached(script)) {
+                notCached.add(script);
+            }
+        }
+        if (notCached.isEmpty()) {
+            return;
+        }
+
+        LOGGER.info("Precompiling {} scripts.", notCached.size());
+        final CountDownLatch finished = new CountDownLatch(notCached.size());
+        for (int i = 0; i < notCached.size(); i++) {
+            final ScriptToCompile script = notCached.get(i);
+            final File scriptStagingDir = new File(stagingDir, String.valueOf(i));
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        stage(script, scriptStagingDir);
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Discards the scripts staged in the given directory by {@link #precompile} that have not been moved into their caches.
+     */
+    public void discardPrecompiledScripts(File stagingDir) {
+        Iterator<PrecompiledScript> iterator = precompiledScripts.values().iterator();
+        while (iterator.hasNext()) {
+            PrecompiledScript precompiledScript = iterator.next();
+            if (precompiledScript.dir.getParentFile().equals(stagingDir)) {
+                iterator.remove();
+                GFileUtils.deleteQuietly(precompiledScript.dir);
+            }
+        }
+    }
+
+    private boolean isCached(ScriptToCompile script) {
+        String sourceHash = HashUtil.createCompactMD5(script.source.getResource().getText());
+        try {
+            caches.add(openCache(script.source, script.operation, sourceHash, new Action<PersistentCache>() {
+                public void execute(PersistentCache cache) {
+                    throw new ScriptNotCachedException();
+                }
+            }));
+            return true;
+        } catch (RuntimeException e) {
+            // The cache wraps the failure of its initializer
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ScriptNotCachedException) {
+                    return false;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void stage(ScriptToCompile script, File scriptStagingDir) {
+        String sourceHash = HashUtil.createCompactMD5(script.source.getResource().getText());
+        File classesDir = classesDir(scriptStagingDir);
+        File metadataDir = metadataDir(scriptStagingDir);
+        try {
+            scriptCompilationHandler.compileToDir(script.source, script.classLoader, classesDir, metadataDir, script.operation, script.scriptBaseClass, script.verifier);
+        } catch (RuntimeException e) {
+            LOGGER.debug(String.format("Could not precompile %s.", script.source.getDisplayName()), e);
+            GFileUtils.deleteQuietly(scriptStagingDir);
+            return;
+        }
+        precompiledScripts.put(cacheName(script.source, script.operation), new PrecompiledScript(scriptStagingDir, script.classLoader, sourceHash));
+    }
+
+    private PersistentCache openCache(ScriptSource source, CompileOperation<?> operation, String sourceHash, Action<? super PersistentCache> initializer) {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("source.filename", source.getFileName());
+        properties.put("source.hash", sourceHash);
+
+        String dslId = operation.getId();
+        return cacheRepository.cache(cacheName(source, operation))
+                .withProperties(properties)
+                .withValidator(validator)
+                .withDisplayName(String.format("%s class cache for %s", dslId, source.getDisplayName()))
+                .withInitializer(initializer)
+                .open();
+    }
+
+    private static String cacheName(ScriptSource source, CompileOperation<?> operation) {
+        return String.format("scripts/%s/%s", source.getClassName(), operation.getId());
+    }
+
     public void close() {
-        caches.stop();
+        try {
+            caches.stop();
+        } finally {
+            for (PrecompiledScript precompiledScript : precompiledScripts.values()) {
+                GFileUtils.deleteQuietly(precompiledScript.dir);
+            }
+            precompiledScripts.clear();
+        }
     }
 
     private File classesDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "classes");
+        return classesDir(cache.getBaseDir());
     }
 
     private File metadataDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "metadata");
+        return metadataDir(cache.getBaseDir());
+    }
+
+    private static File classesDir(File baseDir) {
+        return new File(baseDir, "classes");
+    }
+
+    private static File metadataDir(File baseDir) {
+        return new File(baseDir, "metadata");
     }
 
     private class CacheInitializer implements Action<PersistentCache> {
@@ -95,21 +225,149 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         private final ClassLoader classLoader;
         private final CompileOperation<?> transformer;
         private final ScriptSource source;
+        private final String sourceHash;
 
         public <T extends Script> CacheInitializer(ScriptSource source, ClassLoader classLoader, CompileOperation<?> transformer,
-                                                   Action<? super ClassNode> verifier, Class<T> scriptBaseClass) {
+                                                   Action<? super ClassNode> verifier, Class<T> scriptBaseClass, String sourceHash) {
             this.source = source;
             this.classLoader = classLoader;
             this.transformer = transformer;
             this.verifier = verifier;
             this.scriptBaseClass = scriptBaseClass;
+            this.sourceHash = sourceHash;
         }
 
         public void execute(PersistentCache cache) {
             File classesDir = classesDir(cache);
             File metadataDir = metadataDir(cache);
+            PrecompiledScript precompiledScript = precompiledScripts.remove(cacheName(source, transformer));
+            if (precompiledScript != null) {
+                if (precompiledScript.classLoader == classLoader && precompiledScript.sourceHash.equals(sourceHash)) {
+                    GFileUtils.moveDirectory(classesDir(precompiledScript.dir), classesDir);
+                    GFileUtils.moveDirectory(metadataDir(precompiledScript.dir), metadataDir);
+                    return;
+                }
+                GFileUtils.deleteQuietly(precompiledScript.dir);
+            }
+            if (isShareable(source)) {
+                copyFromSharedCache(classesDir, metadataDir);
+                return;
+            }
             scriptCompilationHandler.compileToDir(source, classLoader, classesDir, metadataDir, transformer, scriptBaseClass, verifier);
         }
+
+        /**
+         * Copies the classes from a cache shared by all scripts with the same content and class loader, compiling them there first if required.
+         * The script class is renamed to the class name of this script, and the debug info points to this script's file.
+         */
+        private void copyFromSharedCache(File classesDir, File metadataDir) {
+            String sharedClassName = "script_" + sourceHash;
+            final ScriptSource sharedSource = new SharedScriptSource(source, sharedClassName);
+            PersistentCache sharedCache = cacheRepository.cache(String.format("scripts-shared/%s/%s/%s", sourceHash, transformer.getId(), classLoaderHash(classLoader)))
+                    .withValidator(validator)
+                    .withDisplayName(String.format("%s class cache for scripts with hash %s", transformer.getId(), sourceHash))
+                    .withInitializer(new Action<PersistentCache>() {
+                        public void execute(PersistentCache sharedCache) {
+                            scriptCompilationHandler.compileToDir(sharedSource, classLoader, classesDir(sharedCache), metadataDir(sharedCache), transformer, scriptBaseClass, verifier);
+                        }
+                    })
+                    .open();
+            // Keep the shared cache open, so that scripts with the same content that are compiled later in the build don't validate it again
+            caches.add(sharedCache);
+
+            new ScriptClassRemapper(sharedClassName, source.getClassName(), source.getFileName()).remap(classesDir(sharedCache), classesDir);
+            GFileUtils.mkdirs(metadataDir);
+            File[] metadataFiles = metadataDir(sharedCache).listFiles();
+            if (metadataFiles != null) {
+                for (File metadataFile : metadataFiles) {
+                    GFileUtils.copyFile(metadataFile, new File(metadataDir, metadataFile.getName()));
+                }
+            }
+        }
+    }
+
+    /**
+     * A script can share its compiled classes with scripts that have the same content only when compiling it does not capture anything about the script's
+     * location. This is the case except for the model {} block, whose rules record the script they are defined in, and the plugins {} block, whose requests
+     * record the script that made them.
+     */
+    private static boolean isShareable(ScriptSource source) {
+        String text = source.getResource().getText();
+        return !text.contains("model") && !text.contains("plugins");
+    }
+
+    /**
+     * Returns a hash of the class path visible through the given class loader, which identifies the classes a script compiled with the loader can refer to.
+     * The specs of the loaders in the hierarchy are included, as they determine which classes of their parents are visible. The full contents of a filtering
+     * spec are included, rather than its hash code, so that specs that allow different packages or classes do not share a cache entry.
+     */
+    static String classLoaderHash(ClassLoader classLoader) {
+        final StringBuilder classPath = new StringBuilder();
+        new ClassLoaderVisitor() {
+            @Override
+            public void visitSpec(ClassLoaderSpec spec) {
+                classPath.append(spec.getClass().getName()).append(';');
+                if (spec instanceof FilteringClassLoader.Spec) {
+                    classPath.append(spec).append(';');
+                }
+            }
+
+            @Override
+            public void visitClassPath(URL[] urls) {
+                for (URL url : urls) {
+                    classPath.append(url).append(';');
+                }
+            }
+        }.visit(classLoader);
+        return HashUtil.createCompactMD5(classPath.toString());
+    }
+
+    private static class SharedScriptSource extends DelegatingScriptSource {
+        private final String className;
+
+        SharedScriptSource(ScriptSource source, String className) {
+            super(source);
+            this.className = className;
+        }
+
+        @Override
+        public String getClassName() {
+            return className;
+        }
+    }
+
+    /**
+     * A script to compile ahead of its use, with the same parameters that will be passed to {@link #compile}.
+     */
+    public static class ScriptToCompile {
+        private final ScriptSource source;
+        private final ClassLoader classLoader;
+        private final CompileOperation<?> operation;
+        private final Class<? extends Script> scriptBaseClass;
+        private final Action<? super ClassNode> verifier;
+
+        public ScriptToCompile(ScriptSource source, ClassLoader classLoader, CompileOperation<?> operation, Class<? extends Script> scriptBaseClass, Action<? super ClassNode> verifier) {
+            this.source = source;
+            this.classLoader = classLoader;
+            this.operation = operation;
+            this.scriptBaseClass = scriptBaseClass;
+            this.verifier = verifier;
+        }
+    }
+
+    private static class PrecompiledScript {
+        private final File dir;
+        private final ClassLoader classLoader;
+        private final String sourceHash;
+
+        PrecompiledScript(File dir, ClassLoader classLoader, String sourceHash) {
+            this.dir = dir;
+            this.classLoader = classLoader;
+            this.sourceHash = sourceHash;
+        }
+    }
+
+    private static class ScriptNotCachedException extends RuntimeException {
     }
 
     static class ProgressReportingInitializer implements Action<PersistentCache> {
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import com.google.common.io.Files;
+import org.gradle.internal.UncheckedException;
+import org.gradle.util.GFileUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.Remapper;
+import org.objectweb.asm.commons.RemappingClassAdapter;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Copies the classes compiled for a script, renaming the script class and its closure classes, and changing the source file recorded in the debug info.
+ */
+class ScriptClassRemapper {
+    private final String fromClassName;
+    private final String toClassName;
+    private final String sourceFileName;
+
+    ScriptClassRemapper(String fromClassName, String toClassName, String sourceFileName) {
+        this.fromClassName = fromClassName;
+        this.toClassName = toClassName;
+        this.sourceFileName = sourceFileName;
+    }
+
+    void remap(File fromDir, File toDir) {
+        GFileUtils.mkdirs(toDir);
+        File[] classFiles = fromDir.listFiles();
+        if (classFiles == null) {
+            return;
+        }
+        try {
+            for (File classFile : classFiles) {
+                String className = classFile.getName().substring(0, classFile.getName().length() - ".class".length());
+                ClassReader reader = new ClassReader(Files.toByteArray(classFile));
+                ClassWriter writer = new ClassWriter(0);
+                reader.accept(new RemappingClassAdapter(new SourceFileAdapter(writer), new ScriptNameRemapper()), 0);
+                Files.write(writer.toByteArray(), new File(toDir, map(className) + ".class"));
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private String map(String name) {
+        if (name.equals(fromClassName) || name.startsWith(fromClassName + "$")) {
+            return toClassName + name.substring(fromClassName.length());
+        }
+        return name;
+    }
+
+    private class ScriptNameRemapper extends Remapper {
+        @Override
+        public String map(String typeName) {
+            return ScriptClassRemapper.this.map(typeName);
+        }
+
+        @Override
+        public Object mapValue(Object value) {
+            // Groovy refers to classes by name in some generated code
+            if (value instanceof String) {
+                return ScriptClassRemapper.this.map((String) value);
+            }
+            return super.mapValue(value);
+        }
+    }
+
+    private class SourceFileAdapter extends ClassVisitor {
+        public SourceFileAdapter(ClassVisitor cv) {
+            super(Opcodes.ASM5, cv);
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            super.visitSource(sourceFileName, debug);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.gradle.api.internal.component.ComponentTypeRegistry;
 import org.gradle.api.internal.component.DefaultComponentTypeRegistry;
 import org.gradle.api.internal.file.FileLookup;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.internal.initialization.DefaultScriptHandlerFactory;
 import org.gradle.api.internal.initialization.ScriptHandlerFactory;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
@@ -295,8 +296,13 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         return new TaskPathProjectEvaluator(cancellationToken);
     }
 
-    protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer) {
-        return new DefaultBuildConfigurer(projectConfigurer);
+    protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer, FileCacheBackedScriptClassCompiler scriptCompiler, DocumentationRegistry documentationRegistry,
+                                                    ExecutorFactory executorFactory, TemporaryFileProvider temporaryFileProvider) {
+        BuildConfigurer buildConfigurer = new DefaultBuildConfigurer(projectConfigurer);
+        if (Boolean.getBoolean(PrecompilingBuildConfigurer.TOGGLE)) {
+            return new PrecompilingBuildConfigurer(buildConfigurer, scriptCompiler, documentationRegistry, executorFactory, temporaryFileProvider);
+        }
+        return buildConfigurer;
     }
 
     protected ProjectAccessListener createProjectAccessListener() {
@@ -24,11 +24,15 @@ import org.gradle.api.internal.changedetection.changes.DefaultTaskArtifactStateR
 import org.gradle.api.internal.changedetection.changes.ShortCircuitTaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.state.*;
 import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.hash.Murmur3Hasher;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheDecorator;
+import org.gradle.execution.taskgraph.DefaultTaskExecutionPlan;
+import org.gradle.execution.taskgraph.TaskDurationHistory;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.execution.taskgraph.TaskPlanExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -42,6 +46,8 @@ import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.SerializerRegistry;
 
 public class TaskExecutionServices {
+    // Selects the algorithm used to hash the content of task input and output files. One of 'murmur3' (the default) or 'md5'.
+    public static final String FILE_HASHER_PROPERTY = "org.gradle.internal.filehasher";
 
     TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, Gradle gradle) {
         // TODO - need a more comprehensible way to only collect inputs for the outer build
@@ -71,22 +77,33 @@ public class TaskExecutionServices {
         );
     }
 
-    TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment) {
+    TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment, Hasher fileHasher) {
         CacheDecorator decorator;
         if (environment.isLongLivingProcess()) {
             decorator = inMemoryTaskArtifactCache;
         } else {
             decorator = new NoOpDecorator();
         }
-        return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
+        return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator, fileHasher.getAlgorithm());
     }
 
-    FileTreeElementSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
-        return new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+    FileTreeElementSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, BuildOperationProcessor buildOperationProcessor, Hasher fileHasher) {
+        return new CachingFileSnapshotter(fileHasher, cacheAccess, stringInterner, buildOperationProcessor);
+    }
+
+    Hasher createFileHasher() {
+        String hasher = System.getProperty(FILE_HASHER_PROPERTY, "murmur3");
+        if (hasher.equalsIgnoreCase("md5")) {
+            return new DefaultHasher();
+        }
+        if (hasher.equalsIgnoreCase("murmur3")) {
+            return new Murmur3Hasher();
+        }
+        throw new IllegalArgumentException(String.format("Unknown file hasher '%s' specified by system property '%s'. Supported values are 'murmur3' and 'md5'.", hasher, FILE_HASHER_PROPERTY));
     }
 
     TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileTreeElementSnapshotter fileSnapshotter, StringInterner stringInterner) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner);
+        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, stringInterner);
 
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess, stringInterner);
 
@@ -112,6 +129,13 @@ public class TaskExecutionServices {
         );
     }
 
+    TaskDurationHistory createTaskDurationHistory(TaskArtifactStateCacheAccess cacheAccess) {
+        if (Boolean.getBoolean(DefaultTaskExecutionPlan.CRITICAL_PATH_TOGGLE)) {
+            return new CacheBackedTaskDurationHistory(cacheAccess);
+        }
+        return TaskDurationHistory.NONE;
+    }
+
     TaskPlanExecutor createTaskExecutorFactory(StartParameter startParameter, ExecutorFactory executorFactory) {
         return new TaskPlanExecutorFactory(startParameter.getParallelThreadCount(), executorFactory).create();
     }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.cache
+
+import spock.lang.Specification
+
+class OffHeapArenaTest extends Specification {
+    final arena = new OffHeapArena(1000, 100)
+
+    def "stores contents spanning several blocks"() {
+        def contents = bytes(250)
+
+        when:
+        arena.put("owner", "key", contents)
+
+        then:
+        arena.get("owner", "key") == contents
+        arena.get("other", "key") == null
+        arena.usedBytes == 300
+        arena.hitCount == 1
+        arena.missCount == 1
+    }
+
+    def "replaces existing entry"() {
+        when:
+        arena.put("owner", "key", bytes(250))
+        arena.put("owner", "key", bytes(50))
+
+        then:
+        arena.get("owner", "key") == bytes(50)
+        arena.usedBytes == 100
+        arena.size() == 1
+    }
+
+    def "evicts least recently used entries when full"() {
+        given:
+        arena.put("owner", "a", bytes(400))
+        arena.put("owner", "b", bytes(400))
+        arena.get("owner", "a")
+
+        when:
+        arena.put("owner", "c", bytes(400))
+
+        then:
+        arena.get("owner", "a") == bytes(400)
+        arena.get("owner", "b") == null
+        arena.get("owner", "c") == bytes(400)
+        arena.evictionCount == 1
+    }
+
+    def "does not store contents larger than the arena"() {
+        given:
+        arena.put("owner", "a", bytes(400))
+
+        expect:
+        !arena.put("owner", "b", bytes(1001))
+        arena.get("owner", "a") == bytes(400)
+        arena.get("owner", "b") == null
+    }
+
+    def "discards all entries of an owner"() {
+        given:
+        arena.put("owner", "a", bytes(10))
+        arena.put("owner", "b", bytes(10))
+        arena.put("other", "a", bytes(10))
+
+        when:
+        arena.removeAll("owner")
+
+        then:
+        arena.get("owner", "a") == null
+        arena.get("owner", "b") == null
+        arena.get("other", "a") == bytes(10)
+        arena.usedBytes == 100
+    }
+
+    private static byte[] bytes(int count) {
+        def bytes = new byte[count]
+        count.times { bytes[it] = (byte) (it + count) }
+        return bytes
+    }
+}
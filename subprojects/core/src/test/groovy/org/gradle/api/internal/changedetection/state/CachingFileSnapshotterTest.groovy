@@ -18,7 +18,10 @@ package org.gradle.api.internal.changedetection.state
 
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.hash.Hasher
+import org.gradle.api.file.FileTreeElement
 import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
@@ -36,7 +39,7 @@ class CachingFileSnapshotterTest extends Specification {
     def setup() {
         file.write("some-content")
         1 * cacheAccess.createCache("fileHashes", _, _) >> cache
-        hasher = new CachingFileSnapshotter(target, cacheAccess, new StringInterner());
+        hasher = new CachingFileSnapshotter(target, cacheAccess, new StringInterner(), new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4));
     }
 
     def hashesFileWhenHashNotCached() {
@@ -104,4 +107,37 @@ class CachingFileSnapshotterTest extends Specification {
         1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
         0 * _._
     }
+
+    def "hashes changed files concurrently and updates cache in order"() {
+        given:
+        def files = (1..200).collect { tmpDir.createFile("file$it").write("content $it") }
+        def unchanged = files[10]
+        def putKeys = []
+
+        when:
+        def result = hasher.snapshotAll(files.collect { element(it) })
+
+        then:
+        result.size() == 200
+        result.eachWithIndex { snapshot, i -> assert snapshot.hash == files[i].name.bytes }
+
+        and:
+        200 * cache.get(_) >> { String key ->
+            key == unchanged.absolutePath ? new CachingFileSnapshotter.FileInfo(unchanged.name.bytes, unchanged.length(), unchanged.lastModified()) : null
+        }
+        199 * target.hash(_) >> { File f -> f.name.bytes }
+        199 * cache.put(_, _) >> { String key, CachingFileSnapshotter.FileInfo fileInfo -> putKeys << key }
+        0 * _._
+
+        and:
+        putKeys == (files - unchanged)*.absolutePath
+    }
+
+    def element(File file) {
+        Stub(FileTreeElement) {
+            getFile() >> file
+            getSize() >> file.length()
+            getLastModified() >> file.lastModified()
+        }
+    }
 }
@@ -30,8 +30,7 @@ import spock.lang.Specification
 @UsesNativeServices
 public class DefaultFileCollectionSnapshotterTest extends Specification {
     def fileSnapshotter = Stub(FileTreeElementSnapshotter)
-    def cacheAccess = Stub(TaskArtifactStateCacheAccess)
-    def snapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, new StringInterner())
+    def snapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, new StringInterner())
 
     def listener = Mock(ChangeListener)
     @Rule
@@ -48,8 +47,12 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
                 getHash() >> HashUtil.sha1(file).asByteArray()
             }
         }
-        cacheAccess.useCache(_, _) >> { String name, Runnable action ->
-            action.run()
+        fileSnapshotter.snapshotAll(_) >> { List<FileTreeElement> fileTreeElements ->
+            return fileTreeElements.collect { fileTreeElement ->
+                Stub(FileSnapshot) {
+                    getHash() >> HashUtil.sha1(fileTreeElement.file).asByteArray()
+                }
+            }
         }
     }
 
@@ -371,6 +374,40 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
         0 * _
     }
 
+    def diffMergesChangesIntoSnapshotInPathOrder() {
+        TestFile added = tmpDir.createFile('a')
+        TestFile changed = tmpDir.createFile('b')
+        TestFile unchanged = tmpDir.createFile('c')
+        TestFile removed = tmpDir.createFile('d')
+        TestFile other = tmpDir.createFile('e')
+
+        given:
+        def changes = []
+        FileCollectionSnapshot original = snapshotter.snapshot(files(removed, changed, unchanged))
+        FileCollectionSnapshot target = snapshotter.snapshot(files(other, removed, changed, unchanged))
+        changed.write('new content')
+        FileCollectionSnapshot modified = snapshotter.snapshot(files(unchanged, changed, added))
+
+        when:
+        FileCollectionSnapshot merged = modified.changesSince(original).applyTo(target)
+
+        then:
+        merged.files.files as List == [added, changed, unchanged, other]
+
+        when:
+        def iterator = merged.iterateChangesSince(target)
+        while (iterator.next(listener)) {}
+
+        then:
+        1 * listener.added(added.path) >> { String path -> changes << "added $path".toString() }
+        1 * listener.changed(changed.path) >> { String path -> changes << "changed $path".toString() }
+        1 * listener.removed(removed.path) >> { String path -> changes << "removed $path".toString() }
+        0 * listener.added(_)
+        0 * listener.changed(_)
+        0 * listener.removed(_)
+        changes == ["added $added.path", "changed $changed.path", "removed $removed.path"]*.toString()
+    }
+
     private FileCollection files(File... files) {
         new SimpleFileCollection(files)
     }
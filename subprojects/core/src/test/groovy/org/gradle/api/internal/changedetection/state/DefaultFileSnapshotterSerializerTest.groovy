@@ -25,15 +25,30 @@ class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
 
     def "reads and writes the snapshot"() {
         when:
-        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl([
-                "1": DefaultFileCollectionSnapshotter.DirSnapshot.getInstance(),
-                "2": new DefaultFileCollectionSnapshotter.MissingFileSnapshot(),
-                "3": new DefaultFileCollectionSnapshotter.FileHashSnapshot("foo".bytes)]), serializer)
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(new DefaultFileCollectionSnapshotter.Builder(3)
+                .addDirectory("1")
+                .addMissingFile("2")
+                .addFile("3", "foo".bytes)
+                .build(), serializer)
 
         then:
-        out.snapshots.size() == 3
-        out.snapshots['1'] instanceof DefaultFileCollectionSnapshotter.DirSnapshot
-        out.snapshots['2'] instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot
-        ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots['3']).hash == "foo".bytes
+        out.paths as List == ["1", "2", "3"]
+        out.kinds as List == [DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.DIR, DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.MISSING, DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.FILE]
+        out.getHash(0).length == 0
+        out.getHash(1).length == 0
+        out.getHash(2) == "foo".bytes
+    }
+
+    def "reads and writes paths that share prefixes"() {
+        def paths = ["/a/b/c", "/a/b/c/d.txt", "/a/b/e", "/a/bc", "/x", "/\uD83D\uDE00/a", "/\uD83D\uDE01/a"]
+        def builder = new DefaultFileCollectionSnapshotter.Builder(0)
+        paths.reverse().each { builder.addFile(it, it.bytes) }
+
+        when:
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(builder.build(), serializer)
+
+        then:
+        out.paths as List == paths.sort()
+        out.paths.eachWithIndex { path, i -> assert out.getHash(i) == path.bytes }
     }
 }
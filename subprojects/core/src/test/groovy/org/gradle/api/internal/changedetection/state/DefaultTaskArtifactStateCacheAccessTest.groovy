@@ -32,11 +32,12 @@ class DefaultTaskArtifactStateCacheAccessTest extends Specification {
         PersistentCache backingCache = Mock()
 
         when:
-        new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator())
+        new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator(), "MURMUR3_128")
 
         then:
         1 * cacheRepository.cache(gradle, "taskArtifacts") >> cacheBuilder
         1 * cacheBuilder.withDisplayName(_) >> cacheBuilder
+        1 * cacheBuilder.withProperties([fileHashAlgorithm: "MURMUR3_128"]) >> cacheBuilder
         1 * cacheBuilder.withLockOptions(LockOptionsBuilder.mode(FileLockManager.LockMode.None)) >> cacheBuilder
         1 * cacheBuilder.open() >> backingCache
         0 * _._
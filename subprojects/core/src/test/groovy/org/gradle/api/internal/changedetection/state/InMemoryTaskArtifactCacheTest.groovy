@@ -16,16 +16,19 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.cache.internal.FileLock
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache
+import org.gradle.internal.serialize.DefaultSerializer
 import spock.lang.Specification
 
 class InMemoryTaskArtifactCacheTest extends Specification {
     def cacheFactory = new InMemoryTaskArtifactCache()
+    def serializer = new DefaultSerializer<String>()
     def target = Mock(MultiProcessSafePersistentIndexedCache)
 
     def "caches result from backing cache"() {
         given:
-        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", serializer, target)
 
         when:
         def result = cache.get("key")
@@ -49,7 +52,7 @@ class InMemoryTaskArtifactCacheTest extends Specification {
 
     def "caches null result from backing cache"() {
         given:
-        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", serializer, target)
 
         when:
         def result = cache.get("key")
@@ -73,7 +76,7 @@ class InMemoryTaskArtifactCacheTest extends Specification {
 
     def "caches result of putting item"() {
         given:
-        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", serializer, target)
 
         when:
         def result = cache.get("key")
@@ -104,7 +107,7 @@ class InMemoryTaskArtifactCacheTest extends Specification {
 
     def "caches result of removing item"() {
         given:
-        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", serializer, target)
 
         when:
         def result = cache.get("key")
@@ -133,4 +136,87 @@ class InMemoryTaskArtifactCacheTest extends Specification {
         0 * target._
     }
 
+    def "returns value held in memory only while the file is locked"() {
+        given:
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", serializer, target)
+        def state = Stub(FileLock.State)
+
+        when:
+        cache.onStartWork("use cache", state)
+        cache.get("key")
+
+        then:
+        1 * target.get("key") >> "result"
+
+        and:
+        cache.getIfInMemory("key") == "result"
+        cache.getIfInMemory("unknown") == null
+
+        when:
+        cache.onEndWork(state)
+
+        then:
+        cache.getIfInMemory("key") == null
+        0 * target._
+    }
+
+    def "holds serialized values off-heap"() {
+        given:
+        def cache = new InMemoryTaskArtifactCache(1024 * 1024).decorate("path/fileSnapshots.bin", "fileSnapshots", serializer, target)
+
+        when:
+        def result = cache.get("key")
+        def missing = cache.get("missing")
+
+        then:
+        result == "result"
+        missing == null
+
+        and:
+        1 * target.get("key") >> "result"
+        1 * target.get("missing") >> null
+        0 * target._
+
+        when:
+        cache.put("key", "new value")
+
+        then:
+        1 * target.put("key", "new value")
+        0 * target._
+
+        when:
+        result = cache.get("key")
+        missing = cache.get("missing")
+
+        then:
+        result == "new value"
+        missing == null
+
+        and:
+        0 * target._
+    }
+
+    def "invalidates off-heap values when the cache file has been updated by another process"() {
+        given:
+        def cacheFactory = new InMemoryTaskArtifactCache(1024 * 1024)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", serializer, target)
+        def state = Stub(FileLock.State)
+        def updatedState = Stub(FileLock.State) {
+            hasBeenUpdatedSince(state) >> true
+        }
+
+        when:
+        cache.onStartWork("use cache", state)
+        cache.get("key")
+        cache.onEndWork(state)
+        cache.onStartWork("use cache", updatedState)
+        def result = cache.get("key")
+
+        then:
+        result == "updated"
+
+        and:
+        1 * target.get("key") >> "result"
+        1 * target.get("key") >> "updated"
+    }
 }
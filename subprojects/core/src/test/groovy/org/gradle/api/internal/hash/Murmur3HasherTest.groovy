@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import com.google.common.hash.Hashing
+import org.gradle.api.UncheckedIOException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class Murmur3HasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    @Unroll
+    def "hashes content of #size byte file"() {
+        def content = new byte[size]
+        new Random(size).nextBytes(content)
+        def file = tmpDir.file("file.bin")
+        file.bytes = content
+
+        expect:
+        new Murmur3Hasher().hash(file) == Hashing.murmur3_128().hashBytes(content).asBytes()
+
+        where:
+        size << [0, 100, 64 * 1024, 64 * 1024 + 1, 1024 * 1024 + 7]
+    }
+
+    def "files with different content have different hashes"() {
+        def file1 = tmpDir.file("file1.txt") << "content"
+        def file2 = tmpDir.file("file2.txt") << "other content"
+        def hasher = new Murmur3Hasher()
+
+        expect:
+        hasher.hash(file1) == hasher.hash(tmpDir.file("file1.txt"))
+        hasher.hash(file1) != hasher.hash(file2)
+    }
+
+    def "hashes content in memory the same as a file with that content"() {
+        def file = tmpDir.file("file.txt") << "content"
+        def hasher = new Murmur3Hasher()
+
+        expect:
+        hasher.hash("content".bytes) == hasher.hash(file)
+    }
+
+    def "reports missing file"() {
+        def file = tmpDir.file("missing.txt")
+
+        when:
+        new Murmur3Hasher().hash(file)
+
+        then:
+        UncheckedIOException e = thrown()
+        e.message == "Failed to create MURMUR3_128 hash for file ${file.absolutePath}."
+    }
+}
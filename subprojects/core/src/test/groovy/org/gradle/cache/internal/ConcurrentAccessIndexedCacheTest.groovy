@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.CacheAccess
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+
+class ConcurrentAccessIndexedCacheTest extends Specification {
+    final delegate = Mock(MultiProcessSafePersistentIndexedCache)
+    final cacheAccess = Mock(CacheAccess)
+    final executor = Mock(Executor)
+    final cache = new ConcurrentAccessIndexedCache<String, String>("cache", delegate, cacheAccess, executor)
+
+    def "reads value held in memory without locking the cache"() {
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+
+        and:
+        1 * delegate.getIfInMemory("key") >> "value"
+        0 * _._
+    }
+
+    def "locks the cache to read value that is not held in memory"() {
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+
+        and:
+        1 * delegate.getIfInMemory("key") >> null
+        1 * cacheAccess.useCache("Read cache", _) >> { String name, Factory action -> action.create() }
+        1 * delegate.get("key") >> "value"
+        0 * _._
+    }
+
+    def "reads buffered writes without locking the cache"() {
+        when:
+        cache.put("key1", "value1")
+        cache.remove("key2")
+
+        then:
+        cache.get("key1") == "value1"
+        cache.get("key2") == null
+
+        and:
+        0 * _._
+
+        when:
+        def result = cache.get("key3")
+
+        then:
+        result == "value3"
+
+        and:
+        1 * delegate.getIfInMemory("key3") >> null
+        1 * cacheAccess.useCache("Read cache", _) >> { String name, Factory action -> action.create() }
+        1 * delegate.get("key3") >> "value3"
+        0 * _._
+    }
+
+    def "applies a batch of writes in the background"() {
+        def write
+
+        when:
+        (1..<ConcurrentAccessIndexedCache.WRITE_BEHIND_BATCH_SIZE).each { cache.put("key$it".toString(), "value") }
+
+        then:
+        0 * _._
+
+        when:
+        cache.put("last", "value")
+
+        then:
+        1 * executor.execute(_) >> { Runnable action -> write = action }
+        0 * _._
+
+        when:
+        cache.put("other", "value")
+
+        then:
+        0 * _._
+
+        when:
+        write.run()
+
+        then:
+        1 * cacheAccess.useCache("Write cache", _) >> { String name, Runnable action -> action.run() }
+        (ConcurrentAccessIndexedCache.WRITE_BEHIND_BATCH_SIZE + 1) * delegate.put(_, "value")
+        0 * _._
+    }
+
+    def "applies writes on the writing thread when too many writes are pending"() {
+        when:
+        (1..<ConcurrentAccessIndexedCache.MAX_PENDING_WRITES).each { cache.put("key$it".toString(), "value") }
+
+        then:
+        1 * executor.execute(_)
+        0 * _._
+
+        when:
+        cache.put("last", "value")
+
+        then:
+        1 * cacheAccess.useCache("Write cache", _) >> { String name, Runnable action -> action.run() }
+        ConcurrentAccessIndexedCache.MAX_PENDING_WRITES * delegate.put(_, "value")
+        0 * _._
+    }
+
+    def "applies pending writes when closed"() {
+        given:
+        cache.put("key1", "value1")
+        cache.remove("key2")
+
+        when:
+        cache.close()
+
+        then:
+        1 * delegate.put("key1", "value1")
+        1 * delegate.remove("key2")
+
+        then:
+        1 * delegate.close()
+        0 * _._
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.cache.internal
 import org.gradle.cache.PersistentIndexedCacheParameters
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
 import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.serialize.Serializer
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -38,7 +39,7 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
     DefaultCacheAccess access = newAccess()
 
     private DefaultCacheAccess newAccess() {
-        new DefaultCacheAccess("<display-name>", lockFile, cacheDir, lockManager, initializationAction) {
+        new DefaultCacheAccess("<display-name>", lockFile, cacheDir, lockManager, initializationAction, new DefaultExecutorFactory()) {
             @Override
             def <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
                 return backingCache
@@ -453,6 +454,101 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         0 * _._
     }
 
+    def "can read and write concurrent access cache without locking the file"() {
+        given:
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).concurrentAccess())
+
+        when:
+        cache.put("key", 12)
+
+        then:
+        cache.get("key") == 12
+        0 * _._
+    }
+
+    def "applies pending writes of concurrent access cache on close"() {
+        given:
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).concurrentAccess())
+        cache.put("key", 12)
+
+        when:
+        access.close()
+
+        then:
+        1 * lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "Close <display-name>") >> lock
+        _ * lock.writeFile(_) >> { Runnable r -> r.run() }
+        1 * backingCache.put("key", 12)
+        1 * backingCache.close()
+        1 * lock.close()
+    }
+
+    def "applies writes of concurrent access cache in the background"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", _) >> lock
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).concurrentAccess())
+
+        when:
+        (1..ConcurrentAccessIndexedCache.WRITE_BEHIND_BATCH_SIZE).each { cache.put("key$it".toString(), it) }
+        access.close()
+
+        then:
+        ConcurrentAccessIndexedCache.WRITE_BEHIND_BATCH_SIZE * backingCache.put(_, _)
+        1 * lock.close()
+    }
+
+    def "releases the lock and rethrows the failure when a background write fails"() {
+        given:
+        def failure = new RuntimeException("broken")
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", _) >> lock
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).concurrentAccess())
+        backingCache.put(_, _) >> { throw failure }
+
+        when:
+        (1..ConcurrentAccessIndexedCache.WRITE_BEHIND_BATCH_SIZE).each { cache.put("key$it".toString(), it) }
+        access.close()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+        1 * lock.close()
+    }
+
+    def "completes background writes that wait for the owner when the owner closes the cache"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>") >> lock
+        initializationAction.requiresInitialization(lock) >> false
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        access.open(mode(Exclusive))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).concurrentAccess())
+
+        when:
+        (1..ConcurrentAccessIndexedCache.WRITE_BEHIND_BATCH_SIZE).each { cache.put("key$it".toString(), it) }
+        access.close()
+
+        then:
+        ConcurrentAccessIndexedCache.WRITE_BEHIND_BATCH_SIZE * backingCache.put(_, _)
+        1 * lock.close()
+    }
+
+    def "cannot use cache once it has been closed"() {
+        given:
+        access.open(mode(None))
+        access.close()
+
+        when:
+        access.useCache("some operation", Mock(Factory))
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == "Cannot use <display-name> as it has been closed."
+    }
+
     def "contended action does nothing when no lock"() {
         when:
         access.whenContended().run()
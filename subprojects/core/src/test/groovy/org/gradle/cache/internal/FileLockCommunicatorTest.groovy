@@ -25,7 +25,7 @@ import static org.gradle.test.fixtures.ConcurrentTestUtil.poll
 class FileLockCommunicatorTest extends ConcurrentSpecification {
 
     def communicator = new FileLockCommunicator(new InetAddressFactory())
-    Long receivedId
+    FileLockCommunicator.Message received
 
     def cleanup() {
         communicator.stop()
@@ -46,11 +46,11 @@ class FileLockCommunicatorTest extends ConcurrentSpecification {
 
     def "can receive lock id"() {
         start {
-            receivedId = communicator.receive()
+            received = communicator.receive()
         }
 
         poll {
-            assert communicator.getPort() != -1 && receivedId == null
+            assert communicator.getPort() != -1 && received == null
         }
 
         when:
@@ -58,8 +58,28 @@ class FileLockCommunicatorTest extends ConcurrentSpecification {
 
         then:
         poll {
-            assert receivedId == 155
+            assert received != null
         }
+        received.lockId == 155
+        !received.lockReleased
+        received.sender.port == communicator.port
+    }
+
+    def "can confirm lock release to the process that requested the lock"() {
+        def requester = new FileLockCommunicator(new InetAddressFactory())
+
+        when:
+        requester.pingOwner(communicator.port, 155, "lock")
+        def request = communicator.receive()
+        communicator.confirmLockRelease(request.sender, 155)
+        def confirmation = requester.receive()
+
+        then:
+        confirmation.lockId == 155
+        confirmation.lockReleased
+
+        cleanup:
+        requester.stop()
     }
 
     def "may not receive after the stop"() {
@@ -78,6 +98,22 @@ class FileLockCommunicatorTest extends ConcurrentSpecification {
         noExceptionThrown()
     }
 
+    def "failing to confirm lock release is safe"() {
+        def requester = new FileLockCommunicator(new InetAddressFactory())
+        requester.pingOwner(communicator.port, 155, "lock")
+        def request = communicator.receive()
+        communicator.stop()
+
+        when:
+        communicator.confirmLockRelease(request.sender, 155)
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        requester.stop()
+    }
+
     def "can be stopped"() {
         expect:
         communicator.stop()
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+@Requires(TestPrecondition.NOT_WINDOWS)
+class MappedFileBlockStoreTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final serializer = new DefaultSerializer<String>()
+    final cacheFile = tmpDir.file("cache.bin")
+
+    def "persists entries"() {
+        when:
+        def cache = mappedCache()
+        (1..200).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        (1..200).step(3) { cache.remove("key_$it".toString()) }
+        cache.verify()
+        cache.close()
+
+        and:
+        cache = mappedCache()
+
+        then:
+        (1..200).each {
+            assert cache.get("key_$it".toString()) == (it % 3 == 1 ? null : "value_$it")
+        }
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "writes the same file as the file backed store"() {
+        given:
+        def otherFile = tmpDir.file("other.bin")
+
+        when:
+        applyUpdates(mappedCache())
+        applyUpdates(new BTreePersistentIndexedCache<String, String>(otherFile, new FileBackedBlockStore(otherFile), serializer, serializer, (short) 4, 100))
+
+        then:
+        cacheFile.length() == otherFile.length()
+        cacheFile.bytes == otherFile.bytes
+    }
+
+    def "reads the file written by the file backed store"() {
+        given:
+        def cache = new BTreePersistentIndexedCache<String, String>(cacheFile, new FileBackedBlockStore(cacheFile), serializer, serializer, (short) 4, 100)
+        (1..50).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        cache.close()
+
+        when:
+        cache = mappedCache()
+
+        then:
+        (1..50).each {
+            assert cache.get("key_$it".toString()) == "value_$it"
+        }
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "rebuilds corrupt cache file"() {
+        given:
+        cacheFile.text = "some junk"
+
+        when:
+        def cache = mappedCache()
+        cache.put("key_1", "value_1")
+
+        then:
+        cache.get("key_1") == "value_1"
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "writes the mapped regions to the file before they are used"() {
+        when:
+        def cache = mappedCache()
+        (1..50).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+
+        then:
+        cacheFile.length() > 0
+        cacheFile.length() % 256 == 0
+
+        when:
+        cache.close()
+
+        then:
+        cacheFile.delete()
+    }
+
+    def "validates the region size"() {
+        when:
+        new MappedFileBlockStore(cacheFile, 1000, 2)
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Region size must be a power of 2, but was 1000."
+    }
+
+    private void applyUpdates(BTreePersistentIndexedCache<String, String> cache) {
+        (1..300).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        (1..300).step(2) { cache.put("key_$it".toString(), "a longer value for key $it".toString()) }
+        (1..300).step(5) { cache.remove("key_$it".toString()) }
+        cache.close()
+    }
+
+    private BTreePersistentIndexedCache<String, String> mappedCache() {
+        // Use small regions, so that blocks span regions and regions are unmapped and mapped again
+        return new BTreePersistentIndexedCache<String, String>(cacheFile, new MappedFileBlockStore(cacheFile, 256, 4), serializer, serializer, (short) 4, 100)
+    }
+}
@@ -22,6 +22,7 @@ import org.gradle.messaging.remote.internal.inet.InetAddressFactory
 import org.gradle.util.ConcurrentSpecification
 
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 
 import static org.gradle.test.fixtures.ConcurrentTestUtil.poll
 
@@ -121,6 +122,54 @@ class DefaultFileLockContentionHandlerTest extends ConcurrentSpecification {
         poll { assert executed.get() }
     }
 
+    def "confirms release of lock to the process that has waited longest"() {
+        def other = new DefaultFileLockContentionHandler(executorFactory, addressFactory)
+        def requests = new AtomicInteger()
+
+        given:
+        int port = handler.reservePort()
+        handler.start(10, { requests.incrementAndGet() } as Runnable)
+        client.pingOwner(port, 10, "lock")
+        poll { assert requests.get() > 0 }
+        sleep(200) //the request is sent to each local address
+        def clientRequests = requests.get()
+        other.pingOwner(port, 10, "lock")
+        poll { assert requests.get() > clientRequests }
+        client.pingOwner(port, 10, "lock")
+
+        when:
+        handler.stop(10)
+        handler.lockReleased(10)
+
+        then:
+        client.waitForRelease(10, 5000)
+        !other.waitForRelease(10, 300)
+
+        cleanup:
+        other.stop()
+    }
+
+    def "does not wait for release when the owner does not confirm"() {
+        given:
+        int port = handler.reservePort()
+        handler.start(10, {} as Runnable)
+        client.pingOwner(port, 10, "lock")
+
+        expect:
+        !client.waitForRelease(10, 300)
+    }
+
+    def "can release lock that nobody waits for"() {
+        when:
+        handler.reservePort()
+        handler.start(10, {} as Runnable)
+        handler.stop(10)
+        handler.lockReleased(10)
+
+        then:
+        noExceptionThrown()
+    }
+
     def "reserving port is safely reentrant"() {
         when:
         int port = handler.reservePort()
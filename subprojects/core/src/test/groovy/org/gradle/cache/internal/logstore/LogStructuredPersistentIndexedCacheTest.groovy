@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstore
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+
+class LogStructuredPersistentIndexedCacheTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final serializer = new DefaultSerializer<String>()
+    final cacheFile = tmpDir.file("cache.log")
+    final List<Runnable> compactions = []
+    final Executor executor = { Runnable action -> compactions << action } as Executor
+
+    def "persists entries"() {
+        when:
+        def cache = logCache()
+        (1..200).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        (1..200).step(3) { cache.remove("key_$it".toString()) }
+        cache.put("key_2", "updated")
+        cache.close()
+
+        and:
+        cache = logCache()
+
+        then:
+        cache.get("key_2") == "updated"
+        (3..200).each {
+            assert cache.get("key_$it".toString()) == (it % 3 == 1 ? null : "value_$it")
+        }
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "discards partly written record at the end of the file"() {
+        given:
+        def cache = logCache()
+        cache.put("key_1", "value_1")
+        cache.put("key_2", "value_2")
+        cache.close()
+        def length = cacheFile.length()
+        def file = new RandomAccessFile(cacheFile, "rw")
+        file.setLength(length - 2)
+        file.close()
+
+        when:
+        cache = logCache()
+
+        then:
+        cache.get("key_1") == "value_1"
+        cache.get("key_2") == null
+
+        when:
+        cache.put("key_3", "value_3")
+        cache.close()
+        cache = logCache()
+
+        then:
+        cache.get("key_1") == "value_1"
+        cache.get("key_3") == "value_3"
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "rebuilds corrupt cache file"() {
+        given:
+        cacheFile.text = "some junk"
+
+        when:
+        def cache = logCache()
+        cache.put("key_1", "value_1")
+        cache.close()
+        cache = logCache()
+
+        then:
+        cache.get("key_1") == "value_1"
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "compacts file when garbage exceeds live records"() {
+        given:
+        def cache = logCache()
+        (1..20).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        def length = cacheFile.length()
+
+        when:
+        (1..5).each { round ->
+            (1..20).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+            compactions.each { it.run() }
+            compactions.clear()
+        }
+        cache.get("key_1")
+
+        then:
+        cache.garbage < length
+        cacheFile.length() < 2 * length
+
+        when:
+        cache.close()
+        cache = logCache()
+
+        then:
+        (1..20).each {
+            assert cache.get("key_$it".toString()) == "value_$it"
+        }
+        !tmpDir.file("cache.log.compacted").exists()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "keeps updates made while compacting"() {
+        given:
+        def cache = logCache()
+        (1..20).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        (1..20).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        cache.put("key_1", "value_1")
+
+        expect:
+        compactions.size() == 1
+
+        when:
+        cache.put("key_1", "updated")
+        cache.remove("key_2")
+        cache.put("key_21", "added")
+        compactions.first().run()
+
+        then:
+        cache.get("key_1") == "updated"
+        cache.get("key_2") == null
+        cache.get("key_3") == "value_3"
+        cache.get("key_21") == "added"
+
+        when:
+        cache.close()
+        cache = logCache()
+
+        then:
+        cache.get("key_1") == "updated"
+        cache.get("key_2") == null
+        cache.get("key_3") == "value_3"
+        cache.get("key_21") == "added"
+
+        cleanup:
+        cache?.close()
+    }
+
+    private LogStructuredPersistentIndexedCache<String, String> logCache() {
+        return new LogStructuredPersistentIndexedCache<String, String>(cacheFile, serializer, serializer, executor, 100)
+    }
+}
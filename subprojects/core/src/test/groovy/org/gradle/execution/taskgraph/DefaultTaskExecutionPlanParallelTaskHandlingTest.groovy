@@ -176,6 +176,24 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends Specification {
         requestedTasksBecomeAvailableForExecution()
     }
 
+    def "waiting worker is released when the last running task completes"() {
+        given:
+        Task a = root.task("a", type: Parallel)
+        TaskInfo taskForWaitingWorker = null
+
+        when:
+        addToGraphAndPopulate(a)
+        startTasks(1)
+        def waitingWorker = blockedThread { taskForWaitingWorker = executionPlan.getTaskToExecute() }
+
+        and:
+        completeAllStartedTasks()
+        waitingWorker.join()
+
+        then:
+        taskForWaitingWorker == null
+    }
+
     def "a parallelizable task with custom actions is not run in parallel"() {
         given:
         Task a = root.task("a", type: Parallel)
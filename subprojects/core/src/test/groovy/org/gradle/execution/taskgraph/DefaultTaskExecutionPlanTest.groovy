@@ -834,6 +834,42 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         executes(c)
     }
 
+    def "starts ready tasks with the longest remaining critical path first when prioritization is enabled"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        def durations = Stub(TaskDurationHistory) {
+            getPreviousDurations(_) >> [(a): 20L, (b): 10L, (c): 100L]
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, true, durations)
+
+        when:
+        addToGraphAndPopulate([a, c])
+
+        then:
+        executes(a, b, c)
+        executedTasks == [b, c, a]
+    }
+
+    def "assumes average duration for tasks without history when prioritizing by critical path"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d")
+        def durations = Stub(TaskDurationHistory) {
+            getPreviousDurations(_) >> [(a): 30L, (d): 10L]
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, true, durations)
+
+        when:
+        addToGraphAndPopulate([a, c, d])
+
+        then:
+        executedTasks == [b, a, c, d]
+    }
+
     def "one non parallelizable parallel task per project is allowed"() {
         given:
         //2 projects, 2 non parallelizable tasks each
@@ -41,7 +41,7 @@ class DefaultTaskGraphExecuterSpec extends Specification {
     def project = ProjectBuilder.builder().build()
     def listenerManager = new DefaultListenerManager()
     def executer = Mock(TaskExecuter)
-    def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(), Factories.constant(executer), cancellationToken, Stub(TimeProvider), Stub(BuildOperationExecutor))
+    def taskExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(), Factories.constant(executer), cancellationToken, Stub(TimeProvider), Stub(BuildOperationExecutor), TaskDurationHistory.NONE)
 
     def "notifies task listener as tasks are executed"() {
         def listener = Mock(TaskExecutionListener)
@@ -263,12 +263,35 @@ class DefaultTaskGraphExecuterSpec extends Specification {
         noExceptionThrown()
     }
 
-    def task(String name) {
+    def "records durations of tasks that executed and flushes them when execution completes"() {
+        def durations = Mock(TaskDurationHistory)
+        def graphExecuter = new DefaultTaskGraphExecuter(listenerManager, new DefaultTaskPlanExecutor(), Factories.constant(executer), cancellationToken, Stub(TimeProvider), Stub(BuildOperationExecutor), durations)
+        def a = task("a")
+        def b = task("b", true)
+        def c = brokenTask("c", new RuntimeException())
+
+        given:
+        graphExecuter.addTasks([a, b, c])
+
+        when:
+        graphExecuter.execute()
+
+        then:
+        thrown(RuntimeException)
+        1 * durations.recordDuration(a, _)
+
+        then:
+        1 * durations.flush()
+        0 * durations.recordDuration(_, _)
+    }
+
+    def task(String name, boolean skipped = false) {
         def mock = Mock(TaskInternal)
         _ * mock.name >> name
         _ * mock.project >> project
         _ * mock.state >> Stub(TaskStateInternal) {
             getFailure() >> null
+            getSkipped() >> skipped
         }
         _ * mock.taskDependencies >> Stub(TaskDependency)
         _ * mock.finalizedBy >> Stub(TaskDependency)
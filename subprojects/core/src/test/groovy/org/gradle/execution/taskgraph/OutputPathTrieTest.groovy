@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.internal.TaskInternal
+import spock.lang.Specification
+
+class OutputPathTrieTest extends Specification {
+    def trie = new OutputPathTrie('/' as char)
+    def a = Stub(TaskInternal)
+    def b = Stub(TaskInternal)
+
+    def "finds no overlap when empty"() {
+        expect:
+        trie.empty
+        trie.findOverlap("/build/classes") == null
+    }
+
+    def "finds overlap with equal path"() {
+        when:
+        trie.add(a, ["/build/classes"])
+
+        then:
+        def overlap = trie.findOverlap("/build/classes")
+        overlap.left == a
+        overlap.right == "/build/classes"
+    }
+
+    def "finds overlap with ancestor path"() {
+        when:
+        trie.add(a, ["/build"])
+
+        then:
+        def overlap = trie.findOverlap("/build/classes/main")
+        overlap.left == a
+        overlap.right == "/build"
+    }
+
+    def "finds overlap with descendant path"() {
+        when:
+        trie.add(a, ["/build/classes/main"])
+        trie.add(b, ["/build/other"])
+
+        then:
+        def overlap = trie.findOverlap("/build/classes")
+        overlap.left == a
+        overlap.right == "/build/classes"
+    }
+
+    def "does not treat sibling with common name prefix as overlap"() {
+        when:
+        trie.add(a, ["/build/classes", "/build/res"])
+
+        then:
+        trie.findOverlap("/build/classes2") == null
+        trie.findOverlap("/build/re") == null
+        trie.findOverlap("/other") == null
+    }
+
+    def "removes paths of completed task"() {
+        given:
+        trie.add(a, ["/build/a", "/build/common"])
+        trie.add(b, ["/build/b"])
+
+        when:
+        trie.remove(a, ["/build/a", "/build/common"])
+
+        then:
+        trie.findOverlap("/build/a") == null
+        trie.findOverlap("/build/common/sub") == null
+        trie.findOverlap("/build").left == b
+
+        when:
+        trie.remove(b, ["/build/b"])
+
+        then:
+        trie.empty
+        trie.findOverlap("/build") == null
+    }
+}
@@ -24,12 +24,22 @@ import org.gradle.cache.PersistentCache
 import org.gradle.groovy.scripts.Script
 import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.groovy.scripts.Transformer
+import org.gradle.internal.classloader.FilteringClassLoader
 import org.gradle.internal.resource.Resource
 import org.gradle.logging.ProgressLogger
 import org.gradle.logging.ProgressLoggerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
 import spock.lang.Specification
 
+import java.util.concurrent.Executor
+
 class FileCacheBackedScriptClassCompilerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     final ScriptCompilationHandler scriptCompilationHandler = Mock()
     final CacheRepository cacheRepository = Mock()
     final CacheBuilder cacheBuilder = Mock()
@@ -48,11 +58,12 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         loadClass() >> Script
     }
     def classLoaderId = ClassLoaderIds.buildScript("foo", "bar")
+    def scriptText = 'this is the script'
 
     def setup() {
         Resource resource = Mock()
         _ * source.resource >> resource
-        _ * resource.text >> 'this is the script'
+        _ * resource.text >> { scriptText }
         _ * source.className >> 'ScriptClassName'
         _ * source.fileName >> 'ScriptFileName'
         _ * operation.id >> 'TransformerId'
@@ -98,6 +109,7 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
     }
 
     def "compiles classes to cache directory when cache is invalid"() {
+        scriptText = 'model { }'
         def initializer
         def classesDir = classesDir
         def metadataDir = new File(cacheDir, "metadata")
@@ -118,6 +130,209 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         0 * scriptCompilationHandler._
     }
 
+    def "compiles script into cache shared by scripts with the same content and copies classes to cache directory"() {
+        def cacheDir = tmpDir.createDir("cache")
+        def sharedCacheDir = tmpDir.createDir("shared")
+        def cache = Stub(PersistentCache) {
+            getBaseDir() >> cacheDir
+        }
+        def sharedCache = Stub(PersistentCache) {
+            getBaseDir() >> sharedCacheDir
+        }
+        def sharedCacheBuilder = Mock(CacheBuilder)
+        def initializer
+        def sharedInitializer
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        1 * cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        1 * cacheBuilder.withProperties(!null) >> cacheBuilder
+        1 * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        1 * cacheBuilder.withValidator(!null) >> cacheBuilder
+        1 * cacheBuilder.withInitializer(!null) >> { args -> initializer = args[0]; return cacheBuilder }
+        1 * cacheBuilder.open() >> { initializer.execute(cache); return cache }
+        1 * cacheRepository.cache({ it.startsWith("scripts-shared/") && it.contains("/TransformerId/") }) >> sharedCacheBuilder
+        1 * sharedCacheBuilder.withDisplayName(!null) >> sharedCacheBuilder
+        1 * sharedCacheBuilder.withValidator(validator) >> sharedCacheBuilder
+        1 * sharedCacheBuilder.withInitializer(!null) >> { args -> sharedInitializer = args[0]; return sharedCacheBuilder }
+        1 * sharedCacheBuilder.open() >> { sharedInitializer.execute(sharedCache); return sharedCache }
+        1 * scriptCompilationHandler.compileToDir({ it.className.startsWith("script_") }, classLoader, new File(sharedCacheDir, "classes"), new File(sharedCacheDir, "metadata"), operation, Script, verifier) >> { args ->
+            writeClass(args[2], args[0].className)
+            args[3].mkdirs()
+            new File(args[3], "metadata.bin").text = "metadata"
+        }
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), new File(cacheDir, "metadata"), operation, Script, classLoaderId) >> compiledScript
+        0 * scriptCompilationHandler._
+
+        and:
+        def reader = new ClassReader(new File(cacheDir, "classes/ScriptClassName.class").bytes)
+        reader.className == "ScriptClassName"
+        sourceFile(reader) == "ScriptFileName"
+        new File(cacheDir, "metadata/metadata.bin").text == "metadata"
+    }
+
+    def "moves precompiled classes into cache directory when compiled with the same class loader"() {
+        def stagingDir = tmpDir.file("staging")
+        def cacheDir = tmpDir.createDir("cache")
+        def cache = Stub(PersistentCache) {
+            getBaseDir() >> cacheDir
+        }
+        def initializers = []
+        _ * cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        _ * cacheBuilder.withProperties(!null) >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        _ * cacheBuilder.withValidator(!null) >> cacheBuilder
+        _ * cacheBuilder.withInitializer(!null) >> { args -> initializers << args[0]; return cacheBuilder }
+        _ * cacheBuilder.open() >> { initializers.last().execute(cache); return cache }
+
+        when:
+        compiler.precompile([new FileCacheBackedScriptClassCompiler.ScriptToCompile(source, classLoader, operation, Script, verifier)], stagingDir, { it.run() } as Executor)
+
+        then:
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, _, _, operation, Script, verifier) >> { args ->
+            args[2].mkdirs()
+            new File(args[2], "Script.class").text = "compiled"
+            args[3].mkdirs()
+            new File(args[3], "metadata.bin").text = "metadata"
+        }
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        new File(cacheDir, "classes/Script.class").text == "compiled"
+        new File(cacheDir, "metadata/metadata.bin").text == "metadata"
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), new File(cacheDir, "metadata"), operation, Script, classLoaderId) >> compiledScript
+        0 * scriptCompilationHandler._
+    }
+
+    def "compiles script when it was precompiled with a different class loader"() {
+        scriptText = 'model { }'
+        def stagingDir = tmpDir.file("staging")
+        def cacheDir = tmpDir.createDir("cache")
+        def cache = Stub(PersistentCache) {
+            getBaseDir() >> cacheDir
+        }
+        def otherClassLoader = Mock(ClassLoader)
+        def initializers = []
+        _ * cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        _ * cacheBuilder.withProperties(!null) >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        _ * cacheBuilder.withValidator(!null) >> cacheBuilder
+        _ * cacheBuilder.withInitializer(!null) >> { args -> initializers << args[0]; return cacheBuilder }
+        _ * cacheBuilder.open() >> { initializers.last().execute(cache); return cache }
+
+        when:
+        compiler.precompile([new FileCacheBackedScriptClassCompiler.ScriptToCompile(source, otherClassLoader, operation, Script, verifier)], stagingDir, { it.run() } as Executor)
+
+        then:
+        1 * scriptCompilationHandler.compileToDir(source, otherClassLoader, _, _, operation, Script, verifier)
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, new File(cacheDir, "classes"), new File(cacheDir, "metadata"), operation, Script, verifier)
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), new File(cacheDir, "metadata"), operation, Script, classLoaderId) >> compiledScript
+        0 * scriptCompilationHandler._
+    }
+
+    def "does not precompile script that is already cached"() {
+        def cacheDir = tmpDir.createDir("cache")
+        def cache = Stub(PersistentCache) {
+            getBaseDir() >> cacheDir
+        }
+        _ * cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        _ * cacheBuilder.withProperties(!null) >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        _ * cacheBuilder.withValidator(!null) >> cacheBuilder
+        _ * cacheBuilder.withInitializer(!null) >> cacheBuilder
+        _ * cacheBuilder.open() >> cache
+
+        when:
+        compiler.precompile([new FileCacheBackedScriptClassCompiler.ScriptToCompile(source, classLoader, operation, Script, verifier)], tmpDir.file("staging"), Mock(Executor))
+
+        then:
+        0 * scriptCompilationHandler._
+    }
+
+    def "compiles script when its precompiled classes have been discarded"() {
+        def stagingDir = tmpDir.file("staging")
+        def cacheDir = tmpDir.createDir("cache")
+        def cache = Stub(PersistentCache) {
+            getBaseDir() >> cacheDir
+        }
+        def initializers = []
+        _ * cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        _ * cacheBuilder.withProperties(!null) >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        _ * cacheBuilder.withValidator(!null) >> cacheBuilder
+        _ * cacheBuilder.withInitializer(!null) >> { args -> initializers << args[0]; return cacheBuilder }
+        _ * cacheBuilder.open() >> { initializers.last().execute(cache); return cache }
+        scriptText = 'model { }'
+
+        when:
+        compiler.precompile([new FileCacheBackedScriptClassCompiler.ScriptToCompile(source, classLoader, operation, Script, verifier)], stagingDir, { it.run() } as Executor)
+        compiler.discardPrecompiledScripts(stagingDir)
+
+        then:
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, _, _, operation, Script, verifier)
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, new File(cacheDir, "classes"), new File(cacheDir, "metadata"), operation, Script, verifier)
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), new File(cacheDir, "metadata"), operation, Script, classLoaderId) >> compiledScript
+        0 * scriptCompilationHandler._
+    }
+
+    def "propagates failure to open cache when precompiling"() {
+        def failure = new RuntimeException("broken")
+        _ * cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        _ * cacheBuilder.withProperties(!null) >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        _ * cacheBuilder.withValidator(!null) >> cacheBuilder
+        _ * cacheBuilder.withInitializer(!null) >> cacheBuilder
+        _ * cacheBuilder.open() >> { throw failure }
+
+        when:
+        compiler.precompile([new FileCacheBackedScriptClassCompiler.ScriptToCompile(source, classLoader, operation, Script, verifier)], tmpDir.file("staging"), Mock(Executor))
+
+        then:
+        RuntimeException e = thrown()
+        e.is(failure)
+        0 * scriptCompilationHandler._
+    }
+
+    def "class loader hash includes the state of the class loaders in the hierarchy"() {
+        def parent = new URLClassLoader([tmpDir.file("lib.jar").toURI().toURL()] as URL[], (ClassLoader) null)
+        def filtering = { String packageName ->
+            def loader = new FilteringClassLoader(parent)
+            loader.allowPackage(packageName)
+            return loader
+        }
+
+        expect:
+        FileCacheBackedScriptClassCompiler.classLoaderHash(filtering("org.a")) == FileCacheBackedScriptClassCompiler.classLoaderHash(filtering("org.a"))
+        FileCacheBackedScriptClassCompiler.classLoaderHash(filtering("org.a")) != FileCacheBackedScriptClassCompiler.classLoaderHash(filtering("org.b"))
+    }
+
+    def "class loader hash distinguishes filtering specs with the same hash code"() {
+        def parent = new URLClassLoader([tmpDir.file("lib.jar").toURI().toURL()] as URL[], (ClassLoader) null)
+        def spec = { String packageName, String resourceName ->
+            return new FilteringClassLoader.Spec([], [packageName], [], [], [resourceName], [], [])
+        }
+        def first = spec("org.a", "org.b")
+        def second = spec("org.b", "org.a")
+
+        expect:
+        first.hashCode() == second.hashCode()
+        FileCacheBackedScriptClassCompiler.classLoaderHash(new FilteringClassLoader(parent, first)) != FileCacheBackedScriptClassCompiler.classLoaderHash(new FilteringClassLoader(parent, second))
+    }
+
     def "reports compilation progress even in case of a failure"() {
         def factory = Mock(ProgressLoggerFactory)
         def delegate = Mock(Action)
@@ -142,4 +357,24 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         then:
         1 * logger.completed()
     }
+
+    private static void writeClass(File dir, String className) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null)
+        writer.visitSource("script.gradle", null)
+        writer.visitEnd()
+        dir.mkdirs()
+        new File(dir, "${className}.class").bytes = writer.toByteArray()
+    }
+
+    private static String sourceFile(ClassReader reader) {
+        def sourceFiles = []
+        reader.accept(new ClassVisitor(Opcodes.ASM5) {
+            @Override
+            void visitSource(String source, String debug) {
+                sourceFiles << source
+            }
+        }, 0)
+        return sourceFiles.first()
+    }
 }
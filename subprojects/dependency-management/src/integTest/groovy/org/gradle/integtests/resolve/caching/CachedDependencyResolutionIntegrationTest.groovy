@@ -116,6 +116,11 @@ task retrieve(type: Sync) {
         module.jar.expectGet()
     }
 
+    void conditionalGetRequests() {
+        module.ivy.expectGet()
+        module.jar.expectGet()
+    }
+
     void unchangedResolve() {
         resolve()
         downloaded.assertHasNotChangedSince(lastState)
@@ -137,14 +142,14 @@ task retrieve(type: Sync) {
         initialResolve()
 
         expect:
-        headOnlyRequests()
+        conditionalGetRequests()
         unchangedResolve()
 
         when:
         change()
 
         then:
-        headSha1ThenGetRequests()
+        conditionalGetRequests()
         changedResolve()
     }
 
@@ -206,14 +211,14 @@ task retrieve(type: Sync) {
         initialResolve()
 
         expect:
-        headOnlyRequests()
+        conditionalGetRequests()
         unchangedResolve()
 
         when:
         change()
 
         then:
-        headThenGetRequests()
+        conditionalGetRequests()
         changedResolve()
     }
 
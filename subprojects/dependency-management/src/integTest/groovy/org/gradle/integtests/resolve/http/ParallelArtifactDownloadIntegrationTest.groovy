@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.resolve.http
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CacheLockReleasingModuleComponentsRepository
+import org.gradle.integtests.fixtures.AbstractHttpDependencyResolutionTest
+import org.mortbay.jetty.handler.AbstractHandler
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+import java.util.concurrent.atomic.AtomicInteger
+
+class ParallelArtifactDownloadIntegrationTest extends AbstractHttpDependencyResolutionTest {
+    final SlowArtifactHandler slowArtifacts = new SlowArtifactHandler()
+
+    def setup() {
+        server.addHandler(slowArtifacts)
+    }
+
+    def "downloads artifacts of a configuration concurrently"() {
+        given:
+        def modules = (1..8).collect { mavenHttpRepo.module('group', "project$it", '1.0').publish() }
+
+        buildFile << """
+repositories {
+    maven { url '${mavenHttpRepo.uri}' }
+}
+configurations { compile }
+dependencies {
+    ${modules.collect { "compile '${it.groupId}:${it.artifactId}:1.0'" }.join('\n    ')}
+}
+task retrieve(type: Sync) {
+    into 'libs'
+    from configurations.compile
+}
+"""
+
+        when:
+        modules.each {
+            it.pom.expectGet()
+            it.artifact.expectGet()
+        }
+
+        and:
+        executer.withArgument("--max-workers=8")
+        run 'retrieve'
+
+        then:
+        file('libs').assertHasDescendants(modules.collect { "${it.artifactId}-1.0.jar" } as String[])
+        slowArtifacts.maxConcurrent > 1
+        slowArtifacts.maxConcurrent <= CacheLockReleasingModuleComponentsRepository.MAX_CONCURRENT_DOWNLOADS
+    }
+
+    def "reports artifacts that cannot be downloaded when other artifacts are downloaded concurrently"() {
+        given:
+        def projectA = mavenHttpRepo.module('group', 'projectA', '1.0').publish()
+        def projectB = mavenHttpRepo.module('group', 'projectB', '1.0').publish()
+        def projectC = mavenHttpRepo.module('group', 'projectC', '1.0').publish()
+
+        buildFile << """
+repositories {
+    maven { url '${mavenHttpRepo.uri}' }
+}
+configurations { compile }
+dependencies {
+    compile 'group:projectA:1.0', 'group:projectB:1.0', 'group:projectC:1.0'
+}
+task retrieve(type: Sync) {
+    into 'libs'
+    from configurations.compile
+}
+"""
+
+        when:
+        projectA.pom.expectGet()
+        projectA.artifact.expectGet()
+        projectB.pom.expectGet()
+        projectB.artifact.expectGetMissing()
+        projectC.pom.expectGet()
+        projectC.artifact.expectGet()
+
+        and:
+        executer.withArgument("--max-workers=4")
+        fails 'retrieve'
+
+        then:
+        failure.assertHasCause("""Could not find projectB.jar (group:projectB:1.0).
+Searched in the following locations:
+    ${projectB.artifact.uri}""")
+    }
+
+    /**
+     * Adds latency to every jar download, and records the maximum number of jar downloads in progress at the same time.
+     */
+    static class SlowArtifactHandler extends AbstractHandler {
+        final AtomicInteger current = new AtomicInteger()
+        final AtomicInteger max = new AtomicInteger()
+
+        void handle(String target, HttpServletRequest request, HttpServletResponse response, int dispatch) {
+            if (request.method != 'GET' || !target.endsWith('.jar')) {
+                return
+            }
+            def count = current.incrementAndGet()
+            try {
+                while (true) {
+                    def previous = max.get()
+                    if (count <= previous || max.compareAndSet(previous, count)) {
+                        break
+                    }
+                }
+                Thread.sleep(500)
+            } finally {
+                current.decrementAndGet()
+            }
+        }
+
+        int getMaxConcurrent() {
+            return max.get()
+        }
+    }
+}
@@ -27,8 +27,8 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
     private final ResolvedModuleVersion owner;
     private final IvyArtifactName artifact;
     private final ComponentArtifactIdentifier artifactId;
-    private Factory<File> artifactSource;
-    private File file;
+    private volatile Factory<File> artifactSource;
+    private volatile File file;
 
     public DefaultResolvedArtifact(ResolvedModuleVersion owner, IvyArtifactName artifact, ComponentArtifactIdentifier artifactId, Factory<File> artifactSource) {
         this.owner = owner;
@@ -90,9 +90,18 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
         return artifact.getClassifier();
     }
 
+    /**
+     * Returns true when the file of this artifact has already been resolved.
+     */
+    public boolean isResolved() {
+        return file != null;
+    }
+
     public File getFile() {
-        if (file == null) {
-            file = artifactSource.create();
+        // The file may be downloaded concurrently by the artifact download stage, so the source is only discarded once the file is set
+        Factory<File> source = artifactSource;
+        if (file == null && source != null) {
+            file = source.create();
             artifactSource = null;
         }
         return file;
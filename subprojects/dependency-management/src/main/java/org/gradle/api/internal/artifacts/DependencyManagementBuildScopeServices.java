@@ -51,6 +51,7 @@ import org.gradle.api.internal.project.ProjectRegistry;
 import org.gradle.cache.CacheRepository;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetaData;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.cached.ByUrlCachedExternalResourceIndex;
 import org.gradle.internal.resource.cached.ivy.ArtifactAtRepositoryCachedArtifactIndex;
@@ -58,6 +59,7 @@ import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.resource.local.LocallyAvailableResourceFinder;
 import org.gradle.internal.resource.local.UniquePathKeyFileStore;
 import org.gradle.internal.resource.local.ivy.LocallyAvailableResourceFinderFactory;
+import org.gradle.internal.resource.transfer.RevalidationStatistics;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.logging.ProgressLoggerFactory;
 import org.gradle.util.BuildCommencedTimeProvider;
@@ -173,6 +175,7 @@ class DependencyManagementBuildScopeServices {
                                                                 ByUrlCachedExternalResourceIndex externalResourceIndex,
                                                                 BuildCommencedTimeProvider buildCommencedTimeProvider,
                                                                 CacheLockingManager cacheLockingManager,
+                                                                RevalidationStatistics revalidationStatistics,
                                                                 ServiceRegistry serviceRegistry) {
         return new RepositoryTransportFactory(
             serviceRegistry.getAll(ResourceConnectorFactory.class),
@@ -180,10 +183,15 @@ class DependencyManagementBuildScopeServices {
             temporaryFileProvider,
             externalResourceIndex,
             buildCommencedTimeProvider,
-            cacheLockingManager
+            cacheLockingManager,
+            revalidationStatistics
         );
     }
 
+    RevalidationStatistics createRevalidationStatistics() {
+        return new RevalidationStatistics();
+    }
+
     ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleVersionsCache moduleVersionsCache, ModuleMetaDataCache moduleMetaDataCache, ModuleArtifactsCache moduleArtifactsCache,
                                               ArtifactAtRepositoryCachedArtifactIndex artifactAtRepositoryCachedArtifactIndex, CacheLockingManager cacheLockingManager,
                                               BuildCommencedTimeProvider buildCommencedTimeProvider, InMemoryCachedRepositoryFactory inMemoryCachedRepositoryFactory,
@@ -207,18 +215,31 @@ class DependencyManagementBuildScopeServices {
                                                                 CacheLockingManager cacheLockingManager,
                                                                 IvyContextManager ivyContextManager,
                                                                 VersionComparator versionComparator,
-                                                                ServiceRegistry serviceRegistry) {
+                                                                ServiceRegistry serviceRegistry,
+                                                                StartParameter startParameter,
+                                                                ParallelComponentMetaDataPrefetcher metaDataPrefetcher) {
         DefaultArtifactDependencyResolver resolver = new DefaultArtifactDependencyResolver(
             serviceRegistry,
             resolveIvyFactory,
             dependencyDescriptorFactory,
             cacheLockingManager,
             ivyContextManager,
-            versionComparator
+            versionComparator,
+            startParameter.getMaxWorkerCount() > 1 ? metaDataPrefetcher : null
         );
         return new CacheLockingArtifactDependencyResolver(cacheLockingManager, resolver);
     }
 
+    ParallelComponentMetaDataPrefetcher createComponentMetaDataPrefetcher(CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager,
+                                                                          ExecutorFactory executorFactory, StartParameter startParameter) {
+        return new ParallelComponentMetaDataPrefetcher(cacheLockingManager, ivyContextManager, executorFactory, startParameter.getMaxWorkerCount());
+    }
+
+    ParallelArtifactDownloader createArtifactDownloader(CacheLockingManager cacheLockingManager, ProgressLoggerFactory progressLoggerFactory,
+                                                        ExecutorFactory executorFactory, StartParameter startParameter) {
+        return new ParallelArtifactDownloader(cacheLockingManager, progressLoggerFactory, executorFactory, startParameter.getMaxWorkerCount());
+    }
+
     ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider) {
         return new ResolutionResultsStoreFactory(temporaryFileProvider);
     }
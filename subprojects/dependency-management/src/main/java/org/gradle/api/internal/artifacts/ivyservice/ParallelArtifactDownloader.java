@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.logging.ProgressLogger;
+import org.gradle.logging.ProgressLoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Resolves the files of a set of artifacts on a pool of worker threads, before the artifacts are iterated. Each download holds the cache lock, except while it is
+ * accessing a remote repository, so that only the remote requests run concurrently. The number of concurrent downloads from a single repository is limited by
+ * the repository itself. The calling thread releases the cache lock while it waits for the downloads to complete.
+ *
+ * <p>Artifacts that cannot be resolved are left unresolved, so that the failure is reported when the file of the artifact is requested.</p>
+ */
+public class ParallelArtifactDownloader implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelArtifactDownloader.class);
+
+    private final CacheLockingManager lockingManager;
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private final int maxConcurrency;
+    private final StoppableExecutor executor;
+
+    public ParallelArtifactDownloader(CacheLockingManager lockingManager, ProgressLoggerFactory progressLoggerFactory, ExecutorFactory executorFactory, int maxConcurrency) {
+        this.lockingManager = lockingManager;
+        this.progressLoggerFactory = progressLoggerFactory;
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executorFactory.create("Artifact downloader", maxConcurrency);
+    }
+
+    /**
+     * Resolves the files of the given artifacts that have not been resolved yet. Must be called while holding the cache lock.
+     */
+    public void download(String displayName, Iterable<? extends ResolvedArtifact> artifacts) {
+        List<DefaultResolvedArtifact> unresolved = new ArrayList<DefaultResolvedArtifact>();
+        for (ResolvedArtifact artifact : artifacts) {
+            if (artifact instanceof DefaultResolvedArtifact && !((DefaultResolvedArtifact) artifact).isResolved()) {
+                unresolved.add((DefaultResolvedArtifact) artifact);
+            }
+        }
+        if (unresolved.size() < 2) {
+            return;
+        }
+
+        int total = unresolved.size();
+        final DownloadProgress progress = new DownloadProgress(progressLoggerFactory.newOperation(ParallelArtifactDownloader.class)
+                .start(String.format("Download artifacts for %s", displayName), String.format("Downloading %s artifacts", total)), total);
+        final Queue<DefaultResolvedArtifact> queue = new ConcurrentLinkedQueue<DefaultResolvedArtifact>(unresolved);
+        int workers = Math.min(maxConcurrency, total);
+        final CountDownLatch completed = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        DefaultResolvedArtifact artifact;
+                        while ((artifact = queue.poll()) != null) {
+                            resolve(artifact);
+                            progress.artifactCompleted();
+                        }
+                    } finally {
+                        completed.countDown();
+                    }
+                }
+            });
+        }
+
+        try {
+            lockingManager.longRunningOperation(String.format("Download %s artifacts for %s", total, displayName), new Runnable() {
+                public void run() {
+                    try {
+                        completed.await();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+            });
+        } finally {
+            progress.completed();
+        }
+    }
+
+    private void resolve(DefaultResolvedArtifact artifact) {
+        try {
+            artifact.getFile();
+        } catch (RuntimeException e) {
+            // Leave it to the caller to resolve the artifact again and report the failure
+            LOGGER.debug("Could not download {}.", artifact, e);
+        }
+    }
+
+    public void stop() {
+        executor.stop();
+    }
+
+    private static class DownloadProgress {
+        private final ProgressLogger progressLogger;
+        private final int total;
+        private int completed;
+
+        private DownloadProgress(ProgressLogger progressLogger, int total) {
+            this.progressLogger = progressLogger;
+            this.total = total;
+        }
+
+        synchronized void artifactCompleted() {
+            completed++;
+            progressLogger.progress(String.format("%s/%s artifacts", completed, total));
+        }
+
+        synchronized void completed() {
+            progressLogger.completed();
+        }
+    }
+}
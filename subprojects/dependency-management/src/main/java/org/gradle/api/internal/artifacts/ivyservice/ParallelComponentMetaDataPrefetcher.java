@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.Ivy;
+import org.gradle.api.Action;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs meta-data resolve actions on a pool of worker threads. Each action holds the cache lock, except while it is accessing a remote repository, so that only the remote
+ * requests run concurrently. The calling thread releases the cache lock while it waits for the actions to complete.
+ */
+public class ParallelComponentMetaDataPrefetcher implements ComponentMetaDataPrefetcher, Stoppable {
+    private final CacheLockingManager lockingManager;
+    private final IvyContextManager ivyContextManager;
+    private final int maxConcurrency;
+    private final StoppableExecutor executor;
+
+    public ParallelComponentMetaDataPrefetcher(CacheLockingManager lockingManager, IvyContextManager ivyContextManager, ExecutorFactory executorFactory, int maxConcurrency) {
+        this.lockingManager = lockingManager;
+        this.ivyContextManager = ivyContextManager;
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executorFactory.create("Dependency meta-data resolver", maxConcurrency);
+    }
+
+    public void prefetch(List<? extends Runnable> resolveActions) {
+        if (resolveActions.size() < 2) {
+            for (Runnable resolveAction : resolveActions) {
+                resolveAction.run();
+            }
+            return;
+        }
+
+        final Queue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>(resolveActions);
+        int workers = Math.min(maxConcurrency, resolveActions.size());
+        final CountDownLatch completed = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        Runnable resolveAction;
+                        while ((resolveAction = queue.poll()) != null) {
+                            runInContext(resolveAction);
+                        }
+                    } finally {
+                        completed.countDown();
+                    }
+                }
+            });
+        }
+
+        lockingManager.longRunningOperation(String.format("Resolve meta-data for %s components", resolveActions.size()), new Runnable() {
+            public void run() {
+                try {
+                    completed.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        });
+    }
+
+    private void runInContext(final Runnable resolveAction) {
+        lockingManager.useCache(resolveAction.toString(), new Runnable() {
+            public void run() {
+                ivyContextManager.withIvy(new Action<Ivy>() {
+                    public void execute(Ivy ivy) {
+                        resolveAction.run();
+                    }
+                });
+            }
+        });
+    }
+
+    public void stop() {
+        executor.stop();
+    }
+}
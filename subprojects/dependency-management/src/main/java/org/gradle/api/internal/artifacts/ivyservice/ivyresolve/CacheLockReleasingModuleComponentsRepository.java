@@ -24,10 +24,15 @@ import org.gradle.internal.resolve.result.BuildableArtifactSetResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 
+import java.util.concurrent.Semaphore;
+
 /**
- * A wrapper around a {@link ModuleComponentRepository} that handles releasing the cache lock before making remote calls.
+ * A wrapper around a {@link ModuleComponentRepository} that handles releasing the cache lock before making remote calls. At most {@link #MAX_CONCURRENT_DOWNLOADS}
+ * artifacts are downloaded from the repository at the same time.
  */
 public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComponentRepository {
+    public static final int MAX_CONCURRENT_DOWNLOADS = 4;
+
     private final ModuleComponentRepositoryAccess remoteAccess;
 
     public CacheLockReleasingModuleComponentsRepository(ModuleComponentRepository repository, CacheLockingManager cacheLockingManager) {
@@ -44,6 +49,7 @@ public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComp
         private final String name;
         private final ModuleComponentRepositoryAccess delegate;
         private final CacheLockingManager cacheLockingManager;
+        private final Semaphore downloads = new Semaphore(MAX_CONCURRENT_DOWNLOADS);
 
         @Override
         public String toString() {
@@ -89,11 +95,15 @@ public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComp
             });
         }
 
-
         public void resolveArtifact(final ComponentArtifactMetaData artifact, final ModuleSource moduleSource, final BuildableArtifactResolveResult result) {
             cacheLockingManager.longRunningOperation(String.format("Download %s using repository %s", artifact, name), new Runnable() {
                 public void run() {
-                    delegate.resolveArtifact(artifact, moduleSource, result);
+                    downloads.acquireUninterruptibly();
+                    try {
+                        delegate.resolveArtifact(artifact, moduleSource, result);
+                    } finally {
+                        downloads.release();
+                    }
                 }
             });
         }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import java.util.List;
+
+/**
+ * Resolves the meta-data of components before the dependency graph traversal requires it.
+ */
+public interface ComponentMetaDataPrefetcher {
+    /**
+     * Runs the given resolve actions, and returns when all of them have completed. The actions may be run concurrently. An action must not change the state of the graph, and must
+     * not throw any exception.
+     */
+    void prefetch(List<? extends Runnable> resolveActions);
+}
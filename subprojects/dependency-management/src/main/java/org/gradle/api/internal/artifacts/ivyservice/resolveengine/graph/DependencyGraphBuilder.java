@@ -17,12 +17,14 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
 
 import com.google.common.base.Joiner;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.result.ComponentSelectionReason;
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
 import org.gradle.api.internal.artifacts.ResolveContext;
@@ -46,6 +48,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DependencyGraphBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
@@ -54,15 +57,23 @@ public class DependencyGraphBuilder {
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final ComponentMetaDataPrefetcher metaDataPrefetcher;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
                                   ConflictHandler conflictHandler) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, dependencyToConfigurationResolver, conflictHandler, null);
+    }
+
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                                  ConflictHandler conflictHandler, @Nullable ComponentMetaDataPrefetcher metaDataPrefetcher) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+        this.metaDataPrefetcher = metaDataPrefetcher;
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
@@ -72,7 +83,12 @@ public class DependencyGraphBuilder {
         ResolveState resolveState = new ResolveState(rootModule, resolveContext.getName(), idResolver, metaDataResolver, dependencyToConfigurationResolver);
         conflictHandler.registerResolver(new DirectDependencyForcingResolver(resolveState.root.moduleRevision));
 
-        traverseGraph(resolveState, conflictHandler);
+        try {
+            traverseGraph(resolveState, conflictHandler);
+        } finally {
+            // Release meta-data that was prefetched for components that did not end up in the graph
+            resolveState.prefetchedMetaData.clear();
+        }
 
         assembleResult(resolveState, modelVisitor);
     }
@@ -92,6 +108,9 @@ public class DependencyGraphBuilder {
                 // Calculate the outgoing edges of this configuration
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
+                if (metaDataPrefetcher != null) {
+                    prefetchMetaData(resolveState, dependencies);
+                }
 
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
@@ -154,6 +173,90 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Resolves the meta-data of the components that the given dependencies will most likely select, using the prefetcher. Only the meta-data of module components
+     * is resolved this way. The selectors are resolved to component ids here, in order, and the graph itself is not changed, so that the traversal is the same as
+     * when the meta-data is resolved lazily. The results are kept by component id, so that they are used by whichever selector causes the meta-data to be resolved.
+     */
+    private void prefetchMetaData(ResolveState resolveState, List<DependencyEdge> dependencies) {
+        Set<ModuleVersionSelectorResolveState> selectors = new HashSet<ModuleVersionSelectorResolveState>();
+        Set<ModuleVersionIdentifier> ids = new HashSet<ModuleVersionIdentifier>();
+        List<PrefetchMetaData> actions = new ArrayList<PrefetchMetaData>();
+        for (DependencyEdge dependency : dependencies) {
+            ModuleVersionSelectorResolveState selector = dependency.selector;
+            if (dependency.targetModuleRevision != null || !selectors.add(selector)) {
+                continue;
+            }
+            ComponentIdResolveResult idResolveResult = selector.resolveId();
+            if (idResolveResult == null || idResolveResult.getFailure() != null || idResolveResult.getMetaData() != null
+                    || !(idResolveResult.getId() instanceof ModuleComponentIdentifier)) {
+                continue;
+            }
+            ModuleVersionIdentifier id = idResolveResult.getModuleVersionId();
+            if (resolveState.isResolvedOrSelected(id) || resolveState.prefetchedMetaData.containsKey(idResolveResult.getId()) || !ids.add(id)) {
+                continue;
+            }
+            actions.add(new PrefetchMetaData(resolveState, selector.dependencyMetaData, idResolveResult.getId(), metaDataResolver));
+        }
+        if (actions.size() > 1) {
+            LOGGER.debug("Prefetching meta-data for {} components.", actions.size());
+            metaDataPrefetcher.prefetch(actions);
+        }
+    }
+
+    private static class PrefetchMetaData implements Runnable {
+        private final ResolveState resolveState;
+        private final ComponentIdentifier componentId;
+        private final ComponentOverrideMetadata overrideMetadata;
+        private final ComponentMetaDataResolver metaDataResolver;
+
+        private PrefetchMetaData(ResolveState resolveState, DependencyMetaData dependencyMetaData, ComponentIdentifier componentId, ComponentMetaDataResolver metaDataResolver) {
+            this.resolveState = resolveState;
+            this.componentId = componentId;
+            this.overrideMetadata = DefaultComponentOverrideMetadata.forDependency(dependencyMetaData);
+            this.metaDataResolver = metaDataResolver;
+        }
+
+        public void run() {
+            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            try {
+                metaDataResolver.resolve(componentId, overrideMetadata, result);
+            } catch (RuntimeException e) {
+                // Leave it to the traversal to resolve the meta-data again and report the failure
+                LOGGER.debug("Could not prefetch meta-data for {}.", componentId, e);
+                return;
+            }
+            resolveState.prefetchedMetaData.put(componentId, new PrefetchedMetaData(overrideMetadata, result));
+        }
+
+        @Override
+        public String toString() {
+            return "Resolve meta-data for ".concat(componentId.getDisplayName());
+        }
+    }
+
+    /**
+     * The meta-data of a component that has been resolved by the prefetcher, along with the overrides it was resolved with.
+     */
+    private static class PrefetchedMetaData {
+        private final ComponentOverrideMetadata overrideMetadata;
+        private final BuildableComponentResolveResult result;
+
+        private PrefetchedMetaData(ComponentOverrideMetadata overrideMetadata, BuildableComponentResolveResult result) {
+            this.overrideMetadata = overrideMetadata;
+            this.result = result;
+        }
+
+        /**
+         * Returns true when the meta-data would be the same if it were resolved with the given overrides.
+         */
+        boolean appliesTo(ComponentOverrideMetadata other) {
+            return overrideMetadata.isChanging() == other.isChanging()
+                    && overrideMetadata.getArtifacts().equals(other.getArtifacts())
+                    && overrideMetadata.getClientModule() == other.getClientModule();
+        }
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -317,6 +420,8 @@ public class DependencyGraphBuilder {
         private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
         private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
         private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
+        // Written by the prefetcher's threads
+        final Map<ComponentIdentifier, PrefetchedMetaData> prefetchedMetaData = new ConcurrentHashMap<ComponentIdentifier, PrefetchedMetaData>();
 
         public ResolveState(ComponentResolveResult rootResult, String rootConfigurationName, DependencyToComponentIdResolver idResolver,
                             ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver) {
@@ -343,6 +448,21 @@ public class DependencyGraphBuilder {
             return getModule(id.getModule()).getVersion(id);
         }
 
+        /**
+         * Returns true when the meta-data for the given module version is already known, or when another version of the module is currently selected.
+         */
+        public boolean isResolvedOrSelected(ModuleVersionIdentifier id) {
+            ModuleResolveState module = modules.get(id.getModule());
+            if (module == null) {
+                return false;
+            }
+            if (module.selected != null) {
+                return true;
+            }
+            ModuleVersionResolveState version = module.versions.get(id);
+            return version != null && (version.metaData != null || version.failure != null);
+        }
+
         public Collection<ConfigurationNode> getConfigurationNodes() {
             return nodes.values();
         }
@@ -556,8 +676,16 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-            resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), result);
+            ComponentOverrideMetadata overrideMetadata = DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData);
+            BuildableComponentResolveResult result;
+            PrefetchedMetaData prefetched = module.resolveState.prefetchedMetaData.remove(idResolveResult.getId());
+            if (prefetched != null && prefetched.appliesTo(overrideMetadata)) {
+                // Resolved by the prefetcher, for the same id and overrides
+                result = prefetched.result;
+            } else {
+                result = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(idResolveResult.getId(), overrideMetadata, result);
+            }
             if (result.getFailure() != null) {
                 failure = result.getFailure();
                 return;
@@ -864,8 +992,7 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            idResolveResult = new DefaultBuildableComponentIdResolveResult();
-            resolver.resolve(dependencyMetaData, idResolveResult);
+            resolveId();
             if (idResolveResult.getFailure() != null) {
                 failure = idResolveResult.getFailure();
                 return null;
@@ -880,6 +1007,22 @@ public class DependencyGraphBuilder {
             return targetModuleRevision;
         }
 
+        /**
+         * Resolves this selector to a component id, without changing the graph.
+         *
+         * @return The id resolve result, or null if this selector has already been resolved to a module version or has failed.
+         */
+        public ComponentIdResolveResult resolveId() {
+            if (targetModuleRevision != null || failure != null) {
+                return null;
+            }
+            if (idResolveResult == null) {
+                idResolveResult = new DefaultBuildableComponentIdResolveResult();
+                resolver.resolve(dependencyMetaData, idResolveResult);
+            }
+            return idResolveResult;
+        }
+
         public void restart(ModuleVersionResolveState moduleRevision) {
             this.targetModuleRevision = moduleRevision;
             this.targetModule = moduleRevision.module;
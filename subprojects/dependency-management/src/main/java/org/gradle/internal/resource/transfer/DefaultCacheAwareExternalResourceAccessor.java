@@ -56,14 +56,20 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
     private final BuildCommencedTimeProvider timeProvider;
     private final TemporaryFileProvider temporaryFileProvider;
     private final CacheLockingManager cacheLockingManager;
+    private final RevalidationStatistics revalidationStatistics;
     private final ExternalResourceCachePolicy externalResourceCachePolicy = new DefaultExternalResourceCachePolicy();
 
     public DefaultCacheAwareExternalResourceAccessor(ExternalResourceRepository delegate, CachedExternalResourceIndex<String> cachedExternalResourceIndex, BuildCommencedTimeProvider timeProvider, TemporaryFileProvider temporaryFileProvider, CacheLockingManager cacheLockingManager) {
+        this(delegate, cachedExternalResourceIndex, timeProvider, temporaryFileProvider, cacheLockingManager, new RevalidationStatistics());
+    }
+
+    public DefaultCacheAwareExternalResourceAccessor(ExternalResourceRepository delegate, CachedExternalResourceIndex<String> cachedExternalResourceIndex, BuildCommencedTimeProvider timeProvider, TemporaryFileProvider temporaryFileProvider, CacheLockingManager cacheLockingManager, RevalidationStatistics revalidationStatistics) {
         this.delegate = delegate;
         this.cachedExternalResourceIndex = cachedExternalResourceIndex;
         this.timeProvider = timeProvider;
         this.temporaryFileProvider = temporaryFileProvider;
         this.cacheLockingManager = cacheLockingManager;
+        this.revalidationStatistics = revalidationStatistics;
     }
 
     public LocallyAvailableExternalResource getResource(final URI location, final ResourceFileStore fileStore, @Nullable LocallyAvailableResourceCandidates localCandidates) throws IOException {
@@ -80,6 +86,11 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
             return new DefaultLocallyAvailableExternalResource(location, new DefaultLocallyAvailableResource(cached.getCachedFile()), cached.getExternalResourceMetaData());
         }
 
+        // If the repository can tell whether the cached version is still current, check it and fetch a changed resource in one go
+        if (cached != null && hasEtag(cached.getExternalResourceMetaData())) {
+            return revalidate(location, fileStore, cached);
+        }
+
         // Get the metadata first to see if it's there
         final ExternalResourceMetaData remoteMetaData = delegate.getResourceMetaData(location);
         if (remoteMetaData == null) {
@@ -98,10 +109,11 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
             );
 
             if (isUnchanged) {
-                LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", cached.getExternalLastModified(), location);
-                // TODO - update the index with the new remote meta-data
-                return new DefaultLocallyAvailableExternalResource(location, new DefaultLocallyAvailableResource(cached.getCachedFile()), cached.getExternalResourceMetaData());
+                LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", location, cached.getExternalLastModified());
+                revalidationStatistics.resourceUnchanged(cached.getContentLength());
+                return reuseCachedResource(location, cached, remoteMetaData);
             }
+            revalidationStatistics.resourceChanged();
         }
 
         // Either no cached, or it's changed. See if we can find something local with the same checksum
@@ -131,6 +143,37 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
         return copyToCache(location, fileStore, delegate.withProgressLogging().getResource(location));
     }
 
+    /**
+     * A modification date is only trusted along with the content length, which a server does not check, so revalidate using the entity tag only.
+     */
+    private static boolean hasEtag(@Nullable ExternalResourceMetaData metaData) {
+        return metaData != null && metaData.getEtag() != null;
+    }
+
+    private LocallyAvailableExternalResource revalidate(URI location, ResourceFileStore fileStore, CachedExternalResource cached) {
+        RevalidatedResource<ExternalResource> result = delegate.withProgressLogging().getResourceIfChanged(location, cached.getExternalResourceMetaData());
+        if (result == null) {
+            return null;
+        }
+        if (result.isUnchanged()) {
+            LOGGER.info("Cached resource {} is up-to-date (etag: {}).", location, result.getMetaData().getEtag());
+            revalidationStatistics.resourceUnchanged(cached.getContentLength());
+            return reuseCachedResource(location, cached, result.getMetaData());
+        }
+        revalidationStatistics.resourceChanged();
+        return copyToCache(location, fileStore, result.getResource());
+    }
+
+    private LocallyAvailableExternalResource reuseCachedResource(final URI source, final CachedExternalResource cached, final ExternalResourceMetaData remoteMetaData) {
+        return cacheLockingManager.useCache(String.format("Update %s", source), new Factory<LocallyAvailableExternalResource>() {
+            public LocallyAvailableExternalResource create() {
+                // Record when the cached version was last known to be current
+                cachedExternalResourceIndex.store(source.toString(), cached.getCachedFile(), remoteMetaData);
+                return new DefaultLocallyAvailableExternalResource(source, new DefaultLocallyAvailableResource(cached.getCachedFile()), remoteMetaData);
+            }
+        });
+    }
+
     private HashValue getResourceSha1(URI location) {
         try {
             URI sha1Location = new URI(location.toASCIIString() + ".sha1");
@@ -41,6 +41,16 @@ public class ProgressLoggingExternalResourceAccessor extends AbstractProgressLog
         }
     }
 
+    public RevalidatedResource<ExternalResourceReadResponse> openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) {
+        RevalidatedResource<ExternalResourceReadResponse> result = delegate.openResourceIfChanged(location, cachedMetaData);
+        if (result != null && !result.isUnchanged()) {
+            ExternalResourceReadResponse resource = new ProgressLoggingExternalResource(location, result.getResource());
+            return RevalidatedResource.changed(resource);
+        } else {
+            return result;
+        }
+    }
+
     @Nullable
     public ExternalResourceMetaData getMetaData(URI location) {
         return delegate.getMetaData(location);
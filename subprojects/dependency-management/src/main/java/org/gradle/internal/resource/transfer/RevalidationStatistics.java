@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the checks of cached resources against their remote repositories, and the bytes that were not downloaded because the cached version was still current.
+ */
+@ThreadSafe
+public class RevalidationStatistics implements Closeable {
+    private static final Logger LOG = Logging.getLogger(RevalidationStatistics.class);
+
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public void resourceUnchanged(long contentLength) {
+        revalidations.incrementAndGet();
+        unchanged.incrementAndGet();
+        if (contentLength > 0) {
+            bytesSaved.addAndGet(contentLength);
+        }
+    }
+
+    public void resourceChanged() {
+        revalidations.incrementAndGet();
+    }
+
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    public long getUnchanged() {
+        return unchanged.get();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s revalidations, %s unchanged, %s bytes not downloaded", getRevalidations(), getUnchanged(), getBytesSaved());
+    }
+
+    public void close() {
+        if (getRevalidations() > 0) {
+            LOG.info("Cached resources checked against remote repositories: {}.", this);
+        }
+    }
+}
@@ -64,6 +64,18 @@ public class DefaultExternalResourceRepository implements ExternalResourceReposi
         return response == null ? null : new DefaultExternalResource(source, response);
     }
 
+    public RevalidatedResource<ExternalResource> getResourceIfChanged(URI source, ExternalResourceMetaData cachedMetaData) {
+        RevalidatedResource<ExternalResourceReadResponse> result = accessor.openResourceIfChanged(source, cachedMetaData);
+        if (result == null) {
+            return null;
+        }
+        if (result.isUnchanged()) {
+            return RevalidatedResource.unchanged(result.getMetaData());
+        }
+        ExternalResource resource = new DefaultExternalResource(source, result.getResource());
+        return RevalidatedResource.changed(resource);
+    }
+
     public ExternalResourceMetaData getResourceMetaData(URI source) {
         return accessor.getMetaData(source);
     }
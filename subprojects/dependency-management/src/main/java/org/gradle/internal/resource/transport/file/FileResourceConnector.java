@@ -22,6 +22,7 @@ import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
 import org.gradle.internal.resource.local.DefaultLocallyAvailableResource;
 import org.gradle.internal.resource.local.LocalResource;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.transfer.RevalidatedResource;
 import org.gradle.internal.resource.transport.ExternalResourceRepository;
 import org.gradle.util.GFileUtils;
 
@@ -79,6 +80,11 @@ public class FileResourceConnector implements ExternalResourceRepository {
         return new DefaultLocallyAvailableExternalResource(uri, new DefaultLocallyAvailableResource(localFile));
     }
 
+    public RevalidatedResource<ExternalResource> getResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) {
+        ExternalResource resource = getResource(location);
+        return resource == null ? null : RevalidatedResource.changed(resource);
+    }
+
     public ExternalResourceMetaData getResourceMetaData(URI location) {
         ExternalResource resource = getResource(location);
         return resource == null ? null : resource.getMetaData();
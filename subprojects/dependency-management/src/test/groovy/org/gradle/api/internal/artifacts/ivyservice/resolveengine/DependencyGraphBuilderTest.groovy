@@ -31,6 +31,7 @@ import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
 import org.gradle.api.internal.artifacts.ivyservice.DefaultLenientConfiguration
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder
@@ -940,6 +941,78 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(forced, b)
     }
 
+    def "prefetches the meta-data of the modules that a configuration depends on"() {
+        given:
+        def prefetcher = Mock(ComponentMetaDataPrefetcher)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), prefetcher)
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+        traverses a, d
+        traverses b, d
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        2 * prefetcher.prefetch({ it.size() == 2 }) >> { args -> args[0]*.run() }
+        0 * prefetcher._
+
+        and:
+        modules(result) == ids(a, b, c, d)
+    }
+
+    def "uses prefetched meta-data for a component required through different selectors"() {
+        given:
+        def prefetcher = Mock(ComponentMetaDataPrefetcher)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), prefetcher)
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        traverses root, a
+        traverses root, b
+        traverses a, c, revision: "1.+"
+        traverses a, d
+        selectorResolvesTo(dependsOn(b, c.id), c.componentId, c.id)
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        2 * prefetcher.prefetch({ it.size() == 2 }) >> { args -> args[0]*.run() }
+        0 * prefetcher._
+
+        and:
+        modules(result) == ids(a, b, c, d)
+    }
+
+    def "resolves meta-data when it has not been prefetched"() {
+        given:
+        def prefetcher = Mock(ComponentMetaDataPrefetcher)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), prefetcher)
+        def a = revision("a")
+        def b = revision("b")
+        traverses root, a
+        traverses root, b
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * prefetcher.prefetch(_)
+
+        and:
+        modules(result) == ids(a, b)
+    }
+
     def revision(String name, String revision = '1.0') {
         // TODO Shouldn't really be using the local component implementation here
         def id = newId("group", name, revision)
@@ -20,6 +20,7 @@ import org.gradle.api.Action
 import org.gradle.cache.PersistentCache
 import org.gradle.cache.internal.*
 import org.gradle.cache.internal.locklistener.NoOpFileLockContentionHandler
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.testfixtures.internal.NativeServicesTestFixture
 import org.gradle.util.GradleVersion
@@ -36,7 +37,7 @@ abstract class DownloadableGradleDistribution extends DefaultGradleDistribution
                         new DefaultProcessMetaDataProvider(
                                 NativeServicesTestFixture.getInstance().get(org.gradle.internal.nativeintegration.ProcessEnvironment)),
                         20 * 60 * 1000 // allow up to 20 minutes to download a distribution
-                , new NoOpFileLockContentionHandler()))
+                , new NoOpFileLockContentionHandler()), new DefaultExecutorFactory())
     }
 
     protected TestFile versionDir
@@ -259,7 +259,7 @@ class HttpServer extends ServerWithExpectations {
                 file = new File(srcFile, relativePath)
             }
             if (file.isFile()) {
-                sendFile(response, file, null, null, interaction.contentType)
+                sendFile(request, response, file, null, null, interaction.contentType)
             } else if (file.isDirectory()) {
                 sendDirectoryListing(response, file)
             } else {
@@ -433,36 +433,39 @@ class HttpServer extends ServerWithExpectations {
         }));
     }
 
-    private sendFile(HttpServletResponse response, File file, Long lastModified, Long contentLength, String contentType) {
+    private sendFile(HttpServletRequest request, HttpServletResponse response, File file, Long lastModified, Long contentLength, String contentType) {
+        def content = file.bytes
+        def etag = generateEtag(content, etags)
+        if (etag != null && etag == request.getHeader(HttpHeaders.IF_NONE_MATCH)) {
+            response.addHeader(HttpHeaders.ETAG, etag)
+            response.setStatus(304)
+            return
+        }
+
         if (sendLastModified) {
             response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified ?: file.lastModified())
         }
-        def content = file.bytes
         response.setContentLength((contentLength ?: content.length) as int)
         response.setContentType(contentType ?: new MimeTypes().getMimeByExtension(file.name).toString())
         if (sendSha1Header) {
             response.addHeader("X-Checksum-Sha1", HashUtil.sha1(content).asHexString())
         }
 
-        addEtag(response, content, etags)
+        if (etag != null) {
+            response.addHeader(HttpHeaders.ETAG, etag)
+        }
         response.outputStream << content
     }
 
-    private addEtag(HttpServletResponse response, byte[] bytes, etagStrategy) {
-        if (etagStrategy != null) {
-            String value
-            if (etags instanceof EtagStrategy) {
-                value = etags.generate(bytes)
-            } else if (etagStrategy instanceof Closure) {
-                value = etagStrategy.call(bytes)
-            } else {
-                value = etagStrategy.toString()
-            }
-
-            if (value != null) {
-                response.addHeader(HttpHeaders.ETAG, value)
-            }
+    private String generateEtag(byte[] bytes, etagStrategy) {
+        if (etagStrategy instanceof EtagStrategy) {
+            return etagStrategy.generate(bytes)
+        } else if (etagStrategy instanceof Closure) {
+            return etagStrategy.call(bytes)
+        } else if (etagStrategy != null) {
+            return etagStrategy.toString()
         }
+        return null
     }
 
     private sendDirectoryListing(HttpServletResponse response, File directory) {
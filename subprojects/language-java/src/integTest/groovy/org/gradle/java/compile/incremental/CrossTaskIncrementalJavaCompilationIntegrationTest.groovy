@@ -204,13 +204,25 @@ public class CrossTaskIncrementalJavaCompilationIntegrationTest extends Abstract
         impl.snapshot { run "compileJava" }
 
         when:
-        java api: ["class B { /* change */ }"]
+        java api: ["class B { private final static int x = 1; String change; }"]
         run "impl:compileJava"
 
         then:
         impl.recompiledClasses('ImplB')
     }
 
+    def "does not recompile dependents when only the implementation of an upstream class changes"() {
+        java api: ["class A { int foo() { return 1; } }", "class B {}"], impl: ["class ImplA extends A {}", "class ImplB extends B {}"]
+        impl.snapshot { run "compileJava" }
+
+        when:
+        java api: ["class A { int foo() { return 2; } }"]
+        run "impl:compileJava"
+
+        then:
+        impl.noneRecompiled()
+    }
+
     def "detects changed classes when upstream project was built in isolation"() {
         java api: ["class A {}", "class B {}"], impl: ["class ImplA extends A {}", "class ImplB extends B {}"]
         impl.snapshot { run "compileJava" }
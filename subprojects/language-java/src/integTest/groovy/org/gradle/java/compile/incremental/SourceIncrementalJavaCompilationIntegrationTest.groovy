@@ -162,14 +162,14 @@ public class SourceIncrementalJavaCompilationIntegrationTest extends AbstractInt
         outputs.snapshot { run "compileJava" }
 
         when:
-        java "class A { /* change */ }"
+        java "class A { String change; }"
         run "compileJava"
 
         then: outputs.recompiledClasses 'A', 'B', 'C'
 
         when:
         outputs.snapshot()
-        java "class B { /* change */ }"
+        java "class B extends A { String change; }"
         run "compileJava"
 
         then: outputs.recompiledClasses 'B', 'C'
@@ -184,7 +184,7 @@ public class SourceIncrementalJavaCompilationIntegrationTest extends AbstractInt
         outputs.snapshot { run "compileJava" }
 
         when:
-        java "class A { /* change */ }"
+        java "class A { String change; }"
         run "compileJava"
 
         then: outputs.recompiledClasses 'A', 'B', 'C', 'C$InnerC'
@@ -196,12 +196,50 @@ public class SourceIncrementalJavaCompilationIntegrationTest extends AbstractInt
         outputs.snapshot { run "compileJava" }
 
         when:
-        java "class A { /* change */ }"
+        java "class A { String change; }"
         run "compileJava"
 
         then: outputs.recompiledClasses 'A', 'B', 'C'
     }
 
+    def "does not recompile dependents when only the implementation of a class changes"() {
+        java "class A { int foo() { return 1; } }", "class B extends A {}", "class C { A a; }", "class D {}"
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        java "class A { int foo() { return 2; } private String change; }"
+        run "compileJava"
+
+        then: outputs.recompiledClasses 'A'
+    }
+
+    def "recompiles dependents when a method signature changes"() {
+        java "class A { int foo() { return 1; } }", "class B extends A {}", "class C { long bar() { return new A().foo(); } }", "class D {}"
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        java "class A { long foo() { return 1; } }"
+        run "compileJava"
+
+        then: outputs.recompiledClasses 'A', 'B', 'C'
+    }
+
+    def "recompiles dependents when the abi of a nested class changes"() {
+        java """class A {
+            static class InnerA {}
+        }"""
+        java "class B { A.InnerA a; }", "class C {}"
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        java """class A {
+            static class InnerA { String change; }
+        }"""
+        run "compileJava"
+
+        then: outputs.recompiledClasses 'A', 'A$InnerA', 'B'
+    }
+
     def "change to an annotation class triggers full rebuild"() {
         def annotationClass = file("src/main/java/SourceAnnotation.java") << """import java.lang.annotation.*;
             @Retention(RetentionPolicy.SOURCE) public @interface SourceAnnotation {}
@@ -243,7 +281,7 @@ public class SourceIncrementalJavaCompilationIntegrationTest extends AbstractInt
         outputs.snapshot { run "compileJava" }
 
         when:
-        java "class A { /* change */ }"
+        java "class A { String change; }"
         run "compileJava"
 
         then: outputs.recompiledClasses 'B', 'A'
@@ -261,7 +299,7 @@ public class SourceIncrementalJavaCompilationIntegrationTest extends AbstractInt
 
         when:
         outputs.snapshot()
-        java "class A { /* change */ }"
+        java "class A { String change; }"
         run "compileJava"
 
         then: outputs.recompiledClasses('A', 'B')
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
+
+import java.io.File;
+import java.util.*;
+
+class AbiChangeDetector {
+
+    private final ClassDependenciesAnalyzer analyzer;
+
+    public AbiChangeDetector(ClassDependenciesAnalyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Returns those of the given recompiled classes whose ABI, or the ABI of one of their named nested classes, differs from the previous compilation.
+     */
+    public Set<String> getClassesWithChangedAbi(Collection<String> classNames, File destinationDir, PreviousCompilation previousCompilation) {
+        Set<String> result = new LinkedHashSet<String>();
+        for (String className : classNames) {
+            Map<String, byte[]> previous = new HashMap<String, byte[]>();
+            for (Map.Entry<String, byte[]> entry : previousCompilation.getAbiHashes(className).entrySet()) {
+                if (isVisibleFromOtherSources(entry.getKey(), className)) {
+                    previous.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (!sameHashes(previous, getAbiHashes(className, destinationDir))) {
+                result.add(className);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, byte[]> getAbiHashes(String className, File destinationDir) {
+        Map<String, byte[]> result = new HashMap<String, byte[]>();
+        int packageEnd = className.lastIndexOf('.');
+        String packagePrefix = className.substring(0, packageEnd + 1);
+        File[] classFiles = new File(destinationDir, packagePrefix.replace('.', '/')).listFiles();
+        if (classFiles == null) {
+            return result;
+        }
+        for (File classFile : classFiles) {
+            String fileName = classFile.getName();
+            if (!fileName.endsWith(".class")) {
+                continue;
+            }
+            String name = packagePrefix + fileName.substring(0, fileName.length() - ".class".length());
+            if (isVisibleFromOtherSources(name, className)) {
+                result.put(name, analyzer.getClassAnalysis(name, classFile).getAbiHash());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Anonymous and local classes are left out, as they come and go with changes to method bodies and other sources cannot refer to them.
+     */
+    private static boolean isVisibleFromOtherSources(String name, String className) {
+        if (name.equals(className)) {
+            return true;
+        }
+        if (!name.startsWith(className + "$")) {
+            return false;
+        }
+        for (String simpleName : name.substring(className.length() + 1).split("\\$")) {
+            if (simpleName.length() == 0 || Character.isDigit(simpleName.charAt(0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameHashes(Map<String, byte[]> previous, Map<String, byte[]> current) {
+        if (!previous.keySet().equals(current.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, byte[]> entry : previous.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), current.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -39,6 +39,11 @@ class JavaChangeProcessor {
             spec.setFullRebuildCause(actualDependents.getDescription(), input.getFile());
             return;
         }
+        if (input.isModified() && previousCompilation.getAbiHash(className) != null) {
+            //the dependents are added later, if the recompiled class turns out to have a different ABI
+            spec.getClassesToCheckForAbiChange().add(className);
+            return;
+        }
         spec.getClassNames().addAll(actualDependents.getDependentClasses());
     }
 }
\ No newline at end of file
@@ -16,8 +16,10 @@
 
 package org.gradle.api.internal.tasks.compile.incremental;
 
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.compile.CleaningJavaCompiler;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshotProvider;
 import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
@@ -28,6 +30,11 @@ import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.util.Clock;
 
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 class SelectiveCompiler implements org.gradle.language.base.internal.compile.Compiler<JavaCompileSpec> {
     private static final Logger LOG = Logging.getLogger(SelectiveCompiler.class);
     private final IncrementalTaskInputs inputs;
@@ -36,15 +43,18 @@ class SelectiveCompiler implements org.gradle.language.base.internal.compile.Com
     private final RecompilationSpecProvider recompilationSpecProvider;
     private final IncrementalCompilationInitializer incrementalCompilationInitilizer;
     private final JarClasspathSnapshotProvider jarClasspathSnapshotProvider;
+    private final AbiChangeDetector abiChangeDetector;
 
     public SelectiveCompiler(IncrementalTaskInputs inputs, PreviousCompilation previousCompilation, CleaningJavaCompiler cleaningCompiler,
-                             RecompilationSpecProvider recompilationSpecProvider, IncrementalCompilationInitializer compilationInitializer, JarClasspathSnapshotProvider jarClasspathSnapshotProvider) {
+                             RecompilationSpecProvider recompilationSpecProvider, IncrementalCompilationInitializer compilationInitializer, JarClasspathSnapshotProvider jarClasspathSnapshotProvider,
+                             AbiChangeDetector abiChangeDetector) {
         this.inputs = inputs;
         this.previousCompilation = previousCompilation;
         this.cleaningCompiler = cleaningCompiler;
         this.recompilationSpecProvider = recompilationSpecProvider;
         this.incrementalCompilationInitilizer = compilationInitializer;
         this.jarClasspathSnapshotProvider = jarClasspathSnapshotProvider;
+        this.abiChangeDetector = abiChangeDetector;
     }
 
     public WorkResult execute(JavaCompileSpec spec) {
@@ -57,6 +67,8 @@ class SelectiveCompiler implements org.gradle.language.base.internal.compile.Com
             return cleaningCompiler.execute(spec);
         }
 
+        FileCollection source = spec.getSource();
+        Iterable<File> classpath = spec.getClasspath();
         incrementalCompilationInitilizer.initializeCompilation(spec, recompilationSpec.getClassNames());
         if (spec.getSource().isEmpty()) {
             LOG.lifecycle("None of the classes needs to be compiled! Analysis took {}. ", clock.getTime());
@@ -65,6 +77,25 @@ class SelectiveCompiler implements org.gradle.language.base.internal.compile.Com
 
         try {
             //use the original compiler to avoid cleaning up all the files
+            WorkResult result = cleaningCompiler.getCompiler().execute(spec);
+
+            Set<String> changedAbi = abiChangeDetector.getClassesWithChangedAbi(recompilationSpec.getClassesToCheckForAbiChange(), spec.getDestinationDir(), previousCompilation);
+            DependentsSet dependents = previousCompilation.getDependents(changedAbi);
+            Collection<String> staleDependents = new LinkedHashSet<String>(dependents.getDependentClasses());
+            staleDependents.removeAll(recompilationSpec.getClassNames());
+            if (!dependents.isDependencyToAll() && staleDependents.isEmpty()) {
+                return result;
+            }
+
+            //the ABI of some of the recompiled classes has changed, so their dependents need recompiling as well
+            spec.setSource(source);
+            spec.setClasspath(classpath);
+            if (dependents.isDependencyToAll()) {
+                LOG.lifecycle("Full recompilation is required because the ABI of {} has changed.", changedAbi);
+                return cleaningCompiler.execute(spec);
+            }
+            recompilationSpec.getClassNames().addAll(staleDependents);
+            incrementalCompilationInitilizer.initializeCompilation(spec, staleDependents);
             return cleaningCompiler.getCompiler().execute(spec);
         } finally {
             LOG.lifecycle("Incremental compilation of {} classes completed in {}.", recompilationSpec.getClassNames().size(), clock.getTime());
@@ -41,4 +41,13 @@ public class CachingClassDependenciesAnalyzer implements ClassDependenciesAnalyz
             }
         });
     }
+
+    public ClassAnalysis getClassAnalysis(final String className, final byte[] classBytes) {
+        byte[] hash = hasher.hash(classBytes);
+        return cache.get(hash, new Factory<ClassAnalysis>() {
+            public ClassAnalysis create() {
+                return analyzer.getClassAnalysis(className, classBytes);
+            }
+        });
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.analyzer;
+
+import org.gradle.internal.hash.HashUtil;
+import org.objectweb.asm.*;
+
+import java.util.Arrays;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Hashes the parts of a class that other classes can be compiled against: the class signature, the non-private fields and methods,
+ * constant values and annotations. Method bodies, private members and synthetic members do not contribute to the hash.
+ */
+class ClassAbiVisitor extends ClassVisitor {
+
+    private final static int API = Opcodes.ASM5;
+    private final StringBuilder header = new StringBuilder();
+    //members are sorted so that reordering the members in the source does not change the hash
+    private final SortedSet<String> members = new TreeSet<String>();
+
+    public ClassAbiVisitor() {
+        super(API);
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        header.append(access & ~Opcodes.ACC_SUPER).append(' ').append(name).append(' ').append(signature)
+                .append(' ').append(superName).append(' ').append(Arrays.toString(interfaces));
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+        return new AnnotationRecorder("class", desc, visible);
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+        if (isHidden(access)) {
+            return null;
+        }
+        final String field = "field " + name + " " + desc;
+        members.add(field + " " + access + " " + signature + " " + value);
+        return new FieldVisitor(API) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                return new AnnotationRecorder(field, desc, visible);
+            }
+        };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+        if (isHidden(access) || name.equals("<clinit>")) {
+            return null;
+        }
+        final String method = "method " + name + desc;
+        String[] sortedExceptions = exceptions == null ? new String[0] : exceptions.clone();
+        Arrays.sort(sortedExceptions);
+        members.add(method + " " + access + " " + signature + " " + Arrays.toString(sortedExceptions));
+        return new MethodVisitor(API) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                return new AnnotationRecorder(method, desc, visible);
+            }
+
+            @Override
+            public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+                return new AnnotationRecorder(method + " parameter " + parameter, desc, visible);
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotationDefault() {
+                return new AnnotationRecorder(method + " default", "", true);
+            }
+        };
+    }
+
+    private static boolean isHidden(int access) {
+        return (access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC)) != 0;
+    }
+
+    public byte[] getAbiHash() {
+        StringBuilder abi = new StringBuilder(header);
+        for (String member : members) {
+            abi.append('\n').append(member);
+        }
+        return HashUtil.createHash(abi.toString(), "MD5").asByteArray();
+    }
+
+    /**
+     * Records an annotation, including its values, as a member of the class.
+     */
+    private class AnnotationRecorder extends AnnotationVisitor {
+        private final StringBuilder text;
+        private final String closing;
+
+        AnnotationRecorder(String owner, String desc, boolean visible) {
+            this(new StringBuilder(owner).append(" @").append(desc).append(' ').append(visible).append('('), null);
+        }
+
+        private AnnotationRecorder(StringBuilder text, String closing) {
+            super(API);
+            this.text = text;
+            this.closing = closing;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            //primitive arrays do not have a useful toString()
+            text.append(' ').append(name).append('=').append(Arrays.deepToString(new Object[]{value}));
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            text.append(' ').append(name).append('=').append(desc).append('.').append(value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            text.append(' ').append(name).append("=@").append(desc).append('(');
+            return new AnnotationRecorder(text, ")");
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            text.append(' ').append(name).append("=[");
+            return new AnnotationRecorder(text, "]");
+        }
+
+        @Override
+        public void visitEnd() {
+            if (closing != null) {
+                text.append(closing);
+            } else {
+                members.add(text.append(')').toString());
+            }
+        }
+    }
+}
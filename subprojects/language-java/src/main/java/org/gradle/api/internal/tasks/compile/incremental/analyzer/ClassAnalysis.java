@@ -22,10 +22,12 @@ public class ClassAnalysis {
 
     private final Set<String> classDependencies;
     private final boolean dependencyToAll;
+    private final byte[] abiHash;
 
-    public ClassAnalysis(Set<String> classDependencies, boolean dependencyToAll) {
+    public ClassAnalysis(Set<String> classDependencies, boolean dependencyToAll, byte[] abiHash) {
         this.classDependencies = classDependencies;
         this.dependencyToAll = dependencyToAll;
+        this.abiHash = abiHash;
     }
 
     public Set<String> getClassDependencies() {
@@ -35,4 +37,11 @@ public class ClassAnalysis {
     public boolean isDependencyToAll() {
         return dependencyToAll;
     }
+
+    /**
+     * The hash of the signatures, constants and annotations of the class. Dependents of the class only need recompiling when it changes.
+     */
+    public byte[] getAbiHash() {
+        return abiHash;
+    }
 }
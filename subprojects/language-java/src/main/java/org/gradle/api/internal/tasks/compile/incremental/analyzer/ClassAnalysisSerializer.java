@@ -32,11 +32,13 @@ public class ClassAnalysisSerializer implements Serializer<ClassAnalysis> {
     public ClassAnalysis read(Decoder decoder) throws Exception {
         boolean relatedToAll = decoder.readBoolean();
         Set<String> classes = setSerializer.read(decoder);
-        return new ClassAnalysis(classes, relatedToAll);
+        byte[] abiHash = decoder.readBinary();
+        return new ClassAnalysis(classes, relatedToAll, abiHash);
     }
 
     public void write(Encoder encoder, ClassAnalysis value) throws Exception {
         encoder.writeBoolean(value.isDependencyToAll());
         setSerializer.write(encoder, value.getClassDependencies());
+        encoder.writeBinary(value.getAbiHash());
     }
 }
@@ -25,8 +25,8 @@ class ClassDependenciesVisitor extends ClassVisitor {
     private final static int API = Opcodes.ASM5;
     boolean dependentToAll;
 
-    public ClassDependenciesVisitor() {
-        super(API);
+    public ClassDependenciesVisitor(ClassVisitor delegate) {
+        super(API, delegate);
     }
 
     @Override
@@ -34,6 +34,7 @@ class ClassDependenciesVisitor extends ClassVisitor {
         if (isAnnotationType(interfaces)) {
             dependentToAll = true;
         }
+        super.visit(version, access, name, signature, superName, interfaces);
     }
 
     private boolean isAnnotationType(String[] interfaces) {
@@ -45,7 +46,7 @@ class ClassDependenciesVisitor extends ClassVisitor {
         if (isConstant(access) && !isPrivate(access)) {
             dependentToAll = true; //non-private const
         }
-        return null;
+        return super.visitField(access, name, desc, signature, value);
     }
 
     private static boolean isPrivate(int access) {
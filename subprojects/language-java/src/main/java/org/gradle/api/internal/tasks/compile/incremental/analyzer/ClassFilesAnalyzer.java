@@ -22,12 +22,15 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAcc
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 
 public class ClassFilesAnalyzer implements FileVisitor {
 
     private final ClassDependenciesAnalyzer analyzer;
     private final String packagePrefix;
     private final ClassDependentsAccumulator accumulator;
+    private final Map<String, byte[]> abiHashes = new HashMap<String, byte[]>();
 
     public ClassFilesAnalyzer(ClassDependenciesAnalyzer analyzer) {
         this(analyzer, "", new ClassDependentsAccumulator(""));
@@ -51,11 +54,25 @@ public class ClassFilesAnalyzer implements FileVisitor {
             return;
         }
 
-        ClassAnalysis analysis = analyzer.getClassAnalysis(className, file);
+        addClass(className, analyzer.getClassAnalysis(className, file));
+    }
+
+    /**
+     * Analyzes a class that has already been read, for example from a jar, instead of a class file.
+     */
+    public void visitClass(String className, byte[] classBytes) {
+        if (!className.startsWith(packagePrefix)) {
+            return;
+        }
+        addClass(className, analyzer.getClassAnalysis(className, classBytes));
+    }
+
+    private void addClass(String className, ClassAnalysis analysis) {
         accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+        abiHashes.put(className, analysis.getAbiHash());
     }
 
     public ClassSetAnalysisData getAnalysis() {
-        return new ClassSetAnalysisData(accumulator.getDependentsMap());
+        return new ClassSetAnalysisData(accumulator.getDependentsMap(), abiHashes);
     }
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import org.gradle.util.GFileUtils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -32,11 +33,12 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
     public ClassAnalysis getClassAnalysis(String className, InputStream input) throws IOException {
         ClassRelevancyFilter filter = new ClassRelevancyFilter(className);
         ClassReader reader = new ClassReader(input);
-        ClassDependenciesVisitor visitor = new ClassDependenciesVisitor();
+        ClassAbiVisitor abiVisitor = new ClassAbiVisitor();
+        ClassDependenciesVisitor visitor = new ClassDependenciesVisitor(abiVisitor);
         reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
 
         Set<String> classDependencies = getClassDependencies(filter, reader);
-        return new ClassAnalysis(classDependencies, visitor.dependentToAll);
+        return new ClassAnalysis(classDependencies, visitor.dependentToAll, abiVisitor.getAbiHash());
     }
 
     private Set<String> getClassDependencies(ClassRelevancyFilter filter, ClassReader reader) {
@@ -74,4 +76,12 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
             GFileUtils.closeInputStream(input);
         }
     }
+
+    public ClassAnalysis getClassAnalysis(String className, byte[] classBytes) {
+        try {
+            return getClassAnalysis(className, new ByteArrayInputStream(classBytes));
+        } catch (IOException e) {
+            throw new RuntimeException("Problems loading class analysis for '" + className + "'.", e);
+        }
+    }
 }
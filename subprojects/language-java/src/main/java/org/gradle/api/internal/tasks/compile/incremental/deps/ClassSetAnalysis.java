@@ -16,10 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 public class ClassSetAnalysis {
 
@@ -60,6 +57,24 @@ public class ClassSetAnalysis {
         return deps != null && deps.isDependencyToAll();
     }
 
+    public byte[] getAbiHash(String className) {
+        return data.getAbiHash(className);
+    }
+
+    /**
+     * Returns the ABI hashes of the given class and of all its nested classes, keyed by class name.
+     */
+    public Map<String, byte[]> getAbiHashes(String className) {
+        Map<String, byte[]> result = new HashMap<String, byte[]>();
+        String nestedPrefix = className + "$";
+        for (Map.Entry<String, byte[]> entry : data.abiHashes.entrySet()) {
+            if (entry.getKey().equals(className) || entry.getKey().startsWith(nestedPrefix)) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
     private void recurseDependents(Set<String> visited, Set<String> result, Set<String> dependentClasses) {
         for (String d : dependentClasses) {
             if (!visited.add(d)) {
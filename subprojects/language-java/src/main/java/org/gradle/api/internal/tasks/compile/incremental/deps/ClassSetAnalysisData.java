@@ -24,33 +24,44 @@ import org.gradle.internal.serialize.SetSerializer;
 import java.util.Map;
 import java.util.Set;
 
+import static org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER;
 import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
 
 public class ClassSetAnalysisData {
 
     final Map<String, DependentsSet> dependents;
+    final Map<String, byte[]> abiHashes;
 
-    public ClassSetAnalysisData(Map<String, DependentsSet> dependents) {
+    public ClassSetAnalysisData(Map<String, DependentsSet> dependents, Map<String, byte[]> abiHashes) {
         this.dependents = dependents;
+        this.abiHashes = abiHashes;
     }
 
     public DependentsSet getDependents(String className) {
         return dependents.get(className);
     }
 
+    public byte[] getAbiHash(String className) {
+        return abiHashes.get(className);
+    }
+
     public static class Serializer implements org.gradle.internal.serialize.Serializer<ClassSetAnalysisData> {
 
         private final MapSerializer<String, DependentsSet> serializer = new MapSerializer<String, DependentsSet>(
                 STRING_SERIALIZER, new DependentsSetSerializer());
+        private final MapSerializer<String, byte[]> abiHashesSerializer = new MapSerializer<String, byte[]>(STRING_SERIALIZER, BYTE_ARRAY_SERIALIZER);
 
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
             //we only support one kind of data
-            return new ClassSetAnalysisData(serializer.read(decoder));
+            Map<String, DependentsSet> dependents = serializer.read(decoder);
+            Map<String, byte[]> abiHashes = abiHashesSerializer.read(decoder);
+            return new ClassSetAnalysisData(dependents, abiHashes);
         }
 
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
             //we only support one kind of data
             serializer.write(encoder, value.dependents);
+            abiHashesSerializer.write(encoder, value.abiHashes);
         }
 
         private static class DependentsSetSerializer implements org.gradle.internal.serialize.Serializer<DependentsSet> {
@@ -16,22 +16,32 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.gradle.api.internal.cache.MinimalPersistentCache;
 import org.gradle.cache.CacheRepository;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.serialize.BaseSerializerFactory;
 
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Cross-process, global cache of jar snapshots. Required to make incremental java compilation fast.
  * Jar snapshots are cached globally, so if one project caches the groovy jar, it can be used by some other project.
+ * The snapshots used by the current build are also kept in memory, so that the compile tasks of the build share them
+ * and a jar that several tasks need at the same time is only snapshotted once.
  */
 public class DefaultJarSnapshotCache implements JarSnapshotCache {
 
     private final MinimalPersistentCache<byte[], JarSnapshotData> cache;
+    private final Cache<HashValue, JarSnapshotData> inMemoryCache = CacheBuilder.newBuilder().build();
 
     public DefaultJarSnapshotCache(CacheRepository cacheRepository) {
         cache = new MinimalPersistentCache<byte[], JarSnapshotData>(cacheRepository, "jar snapshots", BaseSerializerFactory.BYTE_ARRAY_SERIALIZER, new JarSnapshotDataSerializer());
@@ -42,23 +52,38 @@ public class DefaultJarSnapshotCache implements JarSnapshotCache {
             public Map<File, JarSnapshot> create() {
                 final Map<File, JarSnapshot> out = new HashMap<File, JarSnapshot>();
                 for (Map.Entry<File, byte[]> entry : jarHashes.entrySet()) {
-                    JarSnapshot snapshot = new JarSnapshot(cache.getCache().get(entry.getValue()));
-                    out.put(entry.getKey(), snapshot);
+                    JarSnapshotData data = inMemoryCache.getIfPresent(new HashValue(entry.getValue()));
+                    if (data == null) {
+                        data = cache.getCache().get(entry.getValue());
+                    }
+                    out.put(entry.getKey(), new JarSnapshot(data));
                 }
                 return out;
             }
         });
     }
 
-    public JarSnapshot get(byte[] key, final Factory<JarSnapshot> factory) {
-        return new JarSnapshot(cache.get(key, new Factory<JarSnapshotData>() {
-            public JarSnapshotData create() {
-                return factory.create().getData();
-            }
-        }));
+    public JarSnapshot get(final byte[] key, final Factory<JarSnapshot> factory) {
+        try {
+            //concurrent requests for the same jar wait for the snapshot that is already being created
+            return new JarSnapshot(inMemoryCache.get(new HashValue(key), new Callable<JarSnapshotData>() {
+                public JarSnapshotData call() {
+                    return cache.get(key, new Factory<JarSnapshotData>() {
+                        public JarSnapshotData create() {
+                            return factory.create().getData();
+                        }
+                    });
+                }
+            }));
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
     }
 
     public void stop() {
+        inMemoryCache.invalidateAll();
         cache.stop();
     }
 }
\ No newline at end of file
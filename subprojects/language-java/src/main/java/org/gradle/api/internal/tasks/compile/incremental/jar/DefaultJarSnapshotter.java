@@ -22,6 +22,7 @@ import org.gradle.api.internal.hash.Hasher;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer;
 
+import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -46,13 +47,25 @@ class DefaultJarSnapshotter {
             }
 
             public void visitFile(FileVisitDetails fileDetails) {
-                analyzer.visitFile(fileDetails);
+                //the manifest and resources of the jar are not classes
+                if (!fileDetails.getName().endsWith(".class")) {
+                    return;
+                }
                 String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
-                byte[] classHash = hasher.hash(fileDetails.getFile());
-                hashes.put(className, classHash);
+                //read the class straight from the jar, instead of extracting it to a file first
+                byte[] classBytes = readClass(fileDetails);
+                analyzer.visitClass(className, classBytes);
+                hashes.put(className, hasher.hash(classBytes));
             }
         });
 
         return new JarSnapshot(new JarSnapshotData(hash, hashes, analyzer.getAnalysis()));
     }
+
+    private static byte[] readClass(FileVisitDetails fileDetails) {
+        long size = fileDetails.getSize();
+        ByteArrayOutputStream content = new ByteArrayOutputStream(size > 0 ? (int) size : 4096);
+        fileDetails.copyTo(content);
+        return content.toByteArray();
+    }
 }
\ No newline at end of file
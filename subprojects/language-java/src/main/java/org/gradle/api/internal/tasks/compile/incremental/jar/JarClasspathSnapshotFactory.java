@@ -16,28 +16,49 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
+import org.gradle.api.Nullable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+
 import java.io.File;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class JarClasspathSnapshotFactory {
 
     private final JarSnapshotter jarSnapshotter;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter) {
+        this(jarSnapshotter, null);
+    }
+
+    /**
+     * @param buildOperationProcessor used to snapshot the jars concurrently. When null, the jars are snapshotted one after the other on the calling thread.
+     */
+    public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.jarSnapshotter = jarSnapshotter;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     JarClasspathSnapshot createSnapshot(Iterable<JarArchive> jarArchives) {
+        List<SnapshotJarOperation> operations = new ArrayList<SnapshotJarOperation>();
+        for (JarArchive jar : jarArchives) {
+            operations.add(new SnapshotJarOperation(jar));
+        }
+        snapshotAll(operations);
+
         Map<File, JarSnapshot> jarSnapshots = new HashMap<File, JarSnapshot>();
         Map<File, byte[]> jarHashes = new HashMap<File, byte[]>();
         Set<String> allClasses = new HashSet<String>();
         Set<String> duplicateClasses = new HashSet<String>();
 
-        for (JarArchive jar : jarArchives) {
-            JarSnapshot snapshot = jarSnapshotter.createSnapshot(jar);
+        for (SnapshotJarOperation operation : operations) {
+            JarArchive jar = operation.jar;
+            JarSnapshot snapshot = operation.snapshot;
             jarSnapshots.put(jar.file, snapshot);
             jarHashes.put(jar.file, snapshot.getHash());
             for (String c : snapshot.getClasses()) {
@@ -49,4 +70,56 @@ public class JarClasspathSnapshotFactory {
         JarClasspathSnapshotData jarClasspathSnapshotData = new JarClasspathSnapshotData(jarHashes, duplicateClasses);
         return new JarClasspathSnapshot(jarSnapshots, jarClasspathSnapshotData);
     }
+
+    private void snapshotAll(List<SnapshotJarOperation> operations) {
+        SnapshotJarWorker worker = new SnapshotJarWorker(jarSnapshotter);
+        if (buildOperationProcessor == null || operations.size() <= 1) {
+            for (SnapshotJarOperation operation : operations) {
+                worker.execute(operation);
+            }
+            return;
+        }
+
+        BuildOperationQueue<SnapshotJarOperation> queue = buildOperationProcessor.newQueue(worker, null);
+        for (SnapshotJarOperation operation : operations) {
+            queue.add(operation);
+        }
+        try {
+            queue.waitForCompletion();
+        } catch (MultipleBuildOperationFailures e) {
+            if (e.getCauses().size() == 1) {
+                throw UncheckedException.throwAsUncheckedException(e.getCauses().get(0));
+            }
+            throw e;
+        }
+    }
+
+    private static class SnapshotJarOperation implements BuildOperation {
+        private final JarArchive jar;
+        private JarSnapshot snapshot;
+
+        SnapshotJarOperation(JarArchive jar) {
+            this.jar = jar;
+        }
+
+        public String getDescription() {
+            return "snapshot " + jar.file.getName();
+        }
+    }
+
+    private static class SnapshotJarWorker implements BuildOperationWorker<SnapshotJarOperation> {
+        private final JarSnapshotter jarSnapshotter;
+
+        SnapshotJarWorker(JarSnapshotter jarSnapshotter) {
+            this.jarSnapshotter = jarSnapshotter;
+        }
+
+        public String getDisplayName() {
+            return "jar snapshotter";
+        }
+
+        public void execute(SnapshotJarOperation operation) {
+            operation.snapshot = jarSnapshotter.createSnapshot(operation.jar);
+        }
+    }
 }
@@ -56,6 +56,10 @@ public class JarSnapshot {
             byte[] otherClassBytes = otherClass.getValue();
             byte[] thisClsBytes = getHashes().get(otherClassName);
             if (thisClsBytes == null || !Arrays.equals(thisClsBytes, otherClassBytes)) {
+                if (thisClsBytes != null && hasSameAbi(otherClassName, other)) {
+                    //only the implementation changed, the dependents were compiled against the same ABI
+                    continue;
+                }
                 //removed since or changed since
                 affected.add(otherClassName);
                 DependentsSet dependents = other.getAnalysis().getRelevantDependents(otherClassName);
@@ -68,6 +72,11 @@ public class JarSnapshot {
         return new DefaultDependentsSet(affected);
     }
 
+    private boolean hasSameAbi(String className, JarSnapshot other) {
+        byte[] abiHash = getAnalysis().getAbiHash(className);
+        return abiHash != null && Arrays.equals(abiHash, other.getAnalysis().getAbiHash(className));
+    }
+
     private Set<String> addedSince(JarSnapshot other) {
         Set<String> addedClasses = new HashSet<String>(getClasses());
         addedClasses.removeAll(other.getClasses());
@@ -51,4 +51,12 @@ public class PreviousCompilation {
     public DependentsSet getDependents(String className) {
         return analysis.getRelevantDependents(className);
     }
+
+    public byte[] getAbiHash(String className) {
+        return analysis.getAbiHash(className);
+    }
+
+    public Map<String, byte[]> getAbiHashes(String className) {
+        return analysis.getAbiHashes(className);
+    }
 }
@@ -23,12 +23,20 @@ import java.util.LinkedHashSet;
 public class RecompilationSpec {
 
     private final Collection<String> classesToCompile = new LinkedHashSet<String>();
+    private final Collection<String> classesToCheckForAbiChange = new LinkedHashSet<String>();
     private String fullRebuildCause;
 
     public Collection<String> getClassNames() {
         return classesToCompile;
     }
 
+    /**
+     * Changed classes whose dependents only need recompiling if the ABI of the class has changed, which is only known once the class is recompiled.
+     */
+    public Collection<String> getClassesToCheckForAbiChange() {
+        return classesToCheckForAbiChange;
+    }
+
     public boolean isFullRebuildNeeded() {
         return fullRebuildCause != null;
     }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+class AbiChangeDetectorTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+    def analyzer = Mock(ClassDependenciesAnalyzer)
+    def previousCompilation = Mock(PreviousCompilation)
+    @Subject detector = new AbiChangeDetector(analyzer)
+
+    def setup() {
+        ["org/foo/Foo.class", 'org/foo/Foo$Inner.class', 'org/foo/Foo$1.class', "org/foo/FooBar.class", "Bar.class"].each {
+            temp.file(it).createFile()
+        }
+        analyzer.getClassAnalysis(_, _) >> { String className, File file -> analysis(className) }
+    }
+
+    def "detects unchanged abi"() {
+        previousCompilation.getAbiHashes("org.foo.Foo") >> ["org.foo.Foo": "org.foo.Foo".bytes, 'org.foo.Foo$Inner': 'org.foo.Foo$Inner'.bytes]
+        previousCompilation.getAbiHashes("Bar") >> ["Bar": "Bar".bytes]
+
+        expect:
+        detector.getClassesWithChangedAbi(["org.foo.Foo", "Bar"], temp.testDirectory, previousCompilation).isEmpty()
+    }
+
+    def "ignores anonymous classes"() {
+        previousCompilation.getAbiHashes("org.foo.Foo") >> ["org.foo.Foo": "org.foo.Foo".bytes, 'org.foo.Foo$Inner': 'org.foo.Foo$Inner'.bytes, 'org.foo.Foo$2': 'old'.bytes]
+
+        when:
+        def changed = detector.getClassesWithChangedAbi(["org.foo.Foo"], temp.testDirectory, previousCompilation)
+
+        then:
+        changed.isEmpty()
+        0 * analyzer.getClassAnalysis('org.foo.Foo$1', _)
+    }
+
+    def "detects changed abi of class or nested class"() {
+        previousCompilation.getAbiHashes("org.foo.Foo") >> ["org.foo.Foo": "org.foo.Foo".bytes, 'org.foo.Foo$Inner': 'old'.bytes]
+        previousCompilation.getAbiHashes("Bar") >> ["Bar": "old".bytes]
+
+        expect:
+        detector.getClassesWithChangedAbi(["org.foo.Foo", "Bar"], temp.testDirectory, previousCompilation) == ["org.foo.Foo", "Bar"] as Set
+    }
+
+    def "detects added and removed nested classes"() {
+        previousCompilation.getAbiHashes("org.foo.Foo") >> ["org.foo.Foo": "org.foo.Foo".bytes]
+        previousCompilation.getAbiHashes("Bar") >> ["Bar": "Bar".bytes, 'Bar$Removed': 'Bar$Removed'.bytes]
+
+        expect:
+        detector.getClassesWithChangedAbi(["org.foo.Foo", "Bar"], temp.testDirectory, previousCompilation) == ["org.foo.Foo", "Bar"] as Set
+    }
+
+    private static ClassAnalysis analysis(String className) {
+        new ClassAnalysis([] as Set, false, className.bytes)
+    }
+}
@@ -20,6 +20,8 @@ package org.gradle.api.internal.tasks.compile.incremental.analyzer
 
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.annotations.*
 import org.gradle.api.internal.tasks.compile.incremental.test.*
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -71,6 +73,52 @@ class DefaultClassDependenciesAnalyzerTest extends Specification {
         analyze(SomeSourceAnnotation).dependencyToAll
     }
 
+    def "abi hash ignores method bodies and private members"() {
+        def hash = abiHash { method(it, Opcodes.ACC_PUBLIC, "foo", 1) }
+
+        expect:
+        abiHash { method(it, Opcodes.ACC_PUBLIC, "foo", 2) } == hash
+        abiHash { method(it, Opcodes.ACC_PUBLIC, "foo", 1); method(it, Opcodes.ACC_PRIVATE, "bar", 1) } == hash
+        abiHash { method(it, Opcodes.ACC_PUBLIC, "foo", 1); constant(it, Opcodes.ACC_PRIVATE, 1) } == hash
+    }
+
+    def "abi hash ignores the order of members"() {
+        expect:
+        abiHash { method(it, Opcodes.ACC_PUBLIC, "foo", 1); method(it, Opcodes.ACC_PUBLIC, "bar", 1) } ==
+            abiHash { method(it, Opcodes.ACC_PUBLIC, "bar", 1); method(it, Opcodes.ACC_PUBLIC, "foo", 1) }
+    }
+
+    def "abi hash changes with signatures, constants and annotations"() {
+        def hash = abiHash { method(it, Opcodes.ACC_PUBLIC, "foo", 1); constant(it, Opcodes.ACC_PUBLIC, 1) }
+
+        expect:
+        abiHash { method(it, Opcodes.ACC_PUBLIC, "bar", 1); constant(it, Opcodes.ACC_PUBLIC, 1) } != hash
+        abiHash { method(it, Opcodes.ACC_PROTECTED, "foo", 1); constant(it, Opcodes.ACC_PUBLIC, 1) } != hash
+        abiHash { method(it, Opcodes.ACC_PUBLIC, "foo", 1); constant(it, Opcodes.ACC_PUBLIC, 2) } != hash
+        abiHash { method(it, Opcodes.ACC_PUBLIC, "foo", 1); constant(it, Opcodes.ACC_PUBLIC, 1); it.visitAnnotation("Lorg/foo/Bar;", true).visitEnd() } != hash
+    }
+
+    private byte[] abiHash(Closure members) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "org/foo/Foo", null, "java/lang/Object", null)
+        members(writer)
+        writer.visitEnd()
+        analyzer.getClassAnalysis("org.foo.Foo", new ByteArrayInputStream(writer.toByteArray())).abiHash
+    }
+
+    private static void method(ClassWriter writer, int access, String name, int returnValue) {
+        def method = writer.visitMethod(access, name, "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(returnValue)
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(1, 1)
+        method.visitEnd()
+    }
+
+    private static void constant(ClassWriter writer, int access, int value) {
+        writer.visitField(access | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "CONSTANT", "I", null, value).visitEnd()
+    }
+
     InputStream classStream(Class aClass) {
         aClass.getResourceAsStream(aClass.getSimpleName() + ".class")
     }
@@ -55,8 +55,35 @@ class ClassFilesAnalyzerTest extends Specification {
         }
         when: analyzer.visitFile(details)
         then:
-        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", new File("Foo.class")) >> new ClassAnalysis(new HashSet(["A"]), true)
+        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", new File("Foo.class")) >> new ClassAnalysis(new HashSet(["A"]), true, "abi".bytes)
         1 * accumulator.addClass("org.foo.Foo", true, new HashSet(["A"]))
         0 * _
     }
+
+    def "collects abi hashes"() {
+        def details = Stub(FileVisitDetails) {
+            getPath() >> "org/foo/Foo.class"
+            getFile() >> new File("Foo.class")
+        }
+        classAnalyzer.getClassAnalysis("org.foo.Foo", new File("Foo.class")) >> new ClassAnalysis(new HashSet(["A"]), false, "abi".bytes)
+
+        when:
+        analyzer.visitFile(details)
+
+        then:
+        analyzer.analysis.getAbiHash("org.foo.Foo") == "abi".bytes
+    }
+
+    def "accumulates dependencies of class content"() {
+        when: analyzer.visitClass("org.foo.Foo", "content".bytes)
+        then:
+        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", "content".bytes) >> new ClassAnalysis(new HashSet(["A"]), false, "abi".bytes)
+        1 * accumulator.addClass("org.foo.Foo", false, new HashSet(["A"]))
+        0 * _
+    }
+
+    def "is sensitive to package prefix of class content"() {
+        when: analyzer.visitClass("com.foo.Foo", "content".bytes)
+        then: 0 * _
+    }
 }
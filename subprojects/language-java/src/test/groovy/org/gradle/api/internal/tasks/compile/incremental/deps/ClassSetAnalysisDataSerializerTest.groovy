@@ -29,7 +29,8 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
 
     def "serializes"() {
         def data = new ClassSetAnalysisData(
-                ["A": dependents("B", "C"), "B": new DefaultDependentsSet(true, ["C"]), "C": dependents(), "D": new DependencyToAll(), ])
+                ["A": dependents("B", "C"), "B": new DefaultDependentsSet(true, ["C"]), "C": dependents(), "D": new DependencyToAll(), ],
+                ["A": "A".bytes, "B": "B".bytes])
         def os = new ByteArrayOutputStream()
         def e = new OutputStreamBackedEncoder(os)
 
@@ -46,5 +47,8 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         }
 
         read.dependents["D"] instanceof DependencyToAll
+
+        read.abiHashes.keySet() == ["A", "B"] as Set
+        read.getAbiHash("A") == "A".bytes
     }
 }
@@ -23,7 +23,7 @@ import static org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDepe
 class ClassSetAnalysisTest extends Specification {
 
     ClassSetAnalysis analysis(Map<String, DependentsSet> dependents) {
-        new ClassSetAnalysis(new ClassSetAnalysisData(dependents))
+        new ClassSetAnalysis(new ClassSetAnalysisData(dependents, [:]))
     }
 
     def "returns empty analysis"() {
@@ -176,4 +176,16 @@ class ClassSetAnalysisTest extends Specification {
         a.isDependencyToAll("C")
         !a.isDependencyToAll("Unknown")
     }
+
+    def "provides abi hashes of a class and its nested classes"() {
+        def a = new ClassSetAnalysis(new ClassSetAnalysisData([:], [
+                "A": "A".bytes, 'A$Inner': "Inner".bytes, 'A$1': "1".bytes, "AB": "AB".bytes, "B": "B".bytes
+        ]))
+
+        expect:
+        a.getAbiHash("B") == "B".bytes
+        a.getAbiHash("Unknown") == null
+        a.getAbiHashes("A").keySet() == ["A", 'A$Inner', 'A$1'] as Set
+        a.getAbiHashes("Unknown").isEmpty()
+    }
 }
@@ -46,22 +46,42 @@ class DefaultJarSnapshotterTest extends Specification {
     }
 
     def "creates snapshot of a jar with classes"() {
-        def f1 = temp.createFile("foo/Foo.class")
-        def f2 = temp.createFile("foo/com/Foo2.class")
+        temp.createFile("foo/Foo.class").text = "foo"
+        temp.createFile("foo/com/Foo2.class").text = "foo2"
         def analyzer = Mock(ClassFilesAnalyzer)
 
         when:
         def snapshot = snapshotter.createSnapshot(new byte[0], new FileTreeAdapter(new DirectoryFileTree(temp.file("foo"))), analyzer)
 
         then:
-        2 * analyzer.visitFile(_)
-        1 * hasher.hash(f1)
-        1 * hasher.hash(f2)
+        1 * analyzer.visitClass("Foo", "foo".bytes)
+        1 * analyzer.visitClass("com.Foo2", "foo2".bytes)
+        1 * hasher.hash("foo".bytes) >> new byte[1]
+        1 * hasher.hash("foo2".bytes) >> new byte[2]
         1 * analyzer.getAnalysis() >> Stub(ClassSetAnalysisData)
         0 * _._
 
         and:
-        snapshot.hashes.keySet() == ["Foo", "com.Foo2"] as Set
+        snapshot.hashes == ["Foo": new byte[1], "com.Foo2": new byte[2]]
         snapshot.analysis
     }
+
+    def "ignores the manifest and resources of a jar"() {
+        temp.createFile("foo/META-INF/MANIFEST.MF").text = "Manifest-Version: 1.0"
+        temp.createFile("foo/com/messages.properties").text = "foo=bar"
+        temp.createFile("foo/com/Foo.class").text = "foo"
+        def analyzer = Mock(ClassFilesAnalyzer)
+
+        when:
+        def snapshot = snapshotter.createSnapshot(new byte[0], new FileTreeAdapter(new DirectoryFileTree(temp.file("foo"))), analyzer)
+
+        then:
+        1 * analyzer.visitClass("com.Foo", "foo".bytes)
+        1 * hasher.hash("foo".bytes) >> new byte[1]
+        1 * analyzer.getAnalysis() >> Stub(ClassSetAnalysisData)
+        0 * _._
+
+        and:
+        snapshot.hashes.keySet() == ["com.Foo"] as Set
+    }
 }
@@ -17,6 +17,8 @@
 package org.gradle.api.internal.tasks.compile.incremental.jar
 
 import org.gradle.api.file.FileTree
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -62,4 +64,35 @@ class JarClasspathSnapshotFactoryTest extends Specification {
         s.data.jarHashes[new File("f1")] == new byte[1]
         s.data.jarHashes[new File("f2")] == new byte[2]
     }
+
+    def "snapshots jars concurrently"() {
+        def concurrentFactory = new JarClasspathSnapshotFactory(snapshotter, new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4))
+        def jars = (1..10).collect { new JarArchive(new File("f$it"), Stub(FileTree)) }
+
+        when:
+        def s = concurrentFactory.createSnapshot(jars)
+
+        then:
+        10 * snapshotter.createSnapshot(_) >> { JarArchive jar -> Stub(JarSnapshot) { getHash() >> jar.file.name.bytes; getClasses() >> ["A", jar.file.name] } }
+
+        s.data.jarHashes.keySet() == jars*.file as Set
+        s.data.jarHashes[new File("f3")] == "f3".bytes
+        s.data.duplicateClasses == ["A"] as Set
+    }
+
+    def "rethrows failure to snapshot a jar"() {
+        def concurrentFactory = new JarClasspathSnapshotFactory(snapshotter, new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4))
+        def jar1 = new JarArchive(new File("f1"), Stub(FileTree))
+        def jar2 = new JarArchive(new File("f2"), Stub(FileTree))
+        def failure = new RuntimeException("broken")
+
+        when:
+        concurrentFactory.createSnapshot([jar1, jar2])
+
+        then:
+        1 * snapshotter.createSnapshot(jar1) >> Stub(JarSnapshot)
+        1 * snapshotter.createSnapshot(jar2) >> { throw failure }
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
 }
@@ -101,6 +101,19 @@ class JarSnapshotTest extends Specification {
         altered(s2, s1).isDependencyToAll()
     }
 
+    def "ignores changed classes with the same abi"() {
+        def analysis = Mock(ClassSetAnalysisData)
+        JarSnapshot s1 = snapshot(["A": "A".bytes, "B": "B".bytes, "C": "C".bytes], analysis)
+        JarSnapshot s2 = snapshot(["A": "A".bytes, "B": "BB".bytes, "C": "CC".bytes], analysis)
+
+        analysis.getAbiHash("B") >> "B-abi".bytes
+        analysis.getDependents("C") >> dependents("A")
+        analysis.getDependents("A") >> dependents()
+
+        expect:
+        altered(s1, s2).dependentClasses == ["A", "C"] as Set
+    }
+
     def "knows added classes"() {
         JarSnapshot s1 = snapshot(["A": "A".bytes, "B": "B".bytes, "C": "C".bytes], analysis)
         JarSnapshot s2 = snapshot(["A": "A".bytes], analysis)
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import org.gradle.api.internal.changedetection.state.FileSnapshotter;
+import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAccess;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.language.nativeplatform.internal.SourceIncludes;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.ScanningCSourceParser;
+
+import java.io.File;
+
+/**
+ * A {@link CSourceParser} that is shared by all native compile tasks of the build, and which keeps the includes of each source file in the task artifact cache,
+ * keyed by the hash of the file contents. A header that is included by many binaries and variants is parsed once, rather than once per compile task.
+ *
+ * Must be used while holding the lock on the task artifact cache.
+ */
+public class CachingCSourceParser implements CSourceParser {
+    private final CSourceParser delegate = new ScanningCSourceParser();
+    private final FileSnapshotter fileSnapshotter;
+    private final PersistentIndexedCache<String, SourceIncludes> sourceIncludesCache;
+
+    public CachingCSourceParser(TaskArtifactStateCacheAccess cacheAccess, FileSnapshotter fileSnapshotter) {
+        this.fileSnapshotter = fileSnapshotter;
+        this.sourceIncludesCache = cacheAccess.createCache("sourceIncludes", String.class, new SourceIncludesSerializer());
+    }
+
+    public SourceIncludes parseSource(File sourceFile) {
+        String key = new HashValue(fileSnapshotter.snapshot(sourceFile).getHash()).asHexString();
+        SourceIncludes sourceIncludes = sourceIncludesCache.get(key);
+        if (sourceIncludes == null) {
+            sourceIncludes = delegate.parseSource(sourceFile);
+            sourceIncludesCache.put(key, sourceIncludes);
+        }
+        return sourceIncludes;
+    }
+}
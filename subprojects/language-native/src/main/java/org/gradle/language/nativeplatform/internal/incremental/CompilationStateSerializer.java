@@ -16,11 +16,7 @@
 package org.gradle.language.nativeplatform.internal.incremental;
 
 import org.gradle.internal.serialize.*;
-import org.gradle.language.nativeplatform.internal.Include;
-import org.gradle.language.nativeplatform.internal.IncludeType;
 import org.gradle.language.nativeplatform.internal.SourceIncludes;
-import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultInclude;
-import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultSourceIncludes;
 
 import java.io.File;
 import java.util.Set;
@@ -110,40 +106,4 @@ public class CompilationStateSerializer implements Serializer<CompilationState>
             }
         }
     }
-
-    private class SourceIncludesSerializer implements Serializer<SourceIncludes> {
-        private final Serializer<Include> includeSerializer = new IncludeSerializer();
-        private final ListSerializer<Include> includeListSerializer = new ListSerializer<Include>(includeSerializer);
-
-        public SourceIncludes read(Decoder decoder) throws Exception {
-            DefaultSourceIncludes sourceIncludes = new DefaultSourceIncludes();
-            sourceIncludes.addAll(includeListSerializer.read(decoder));
-            return sourceIncludes;
-        }
-
-        public void write(Encoder encoder, SourceIncludes value) throws Exception {
-            includeListSerializer.write(encoder, value.getIncludesAndImports());
-        }
-    }
-
-    private class IncludeSerializer implements Serializer<Include> {
-        private final Serializer<String> stringSerializer = serializerFactory.getSerializerFor(String.class);
-        private final Serializer<Boolean> booleanSerializer = serializerFactory.getSerializerFor(Boolean.class);
-        private final Serializer<IncludeType> enumSerializer = serializerFactory.getSerializerFor(IncludeType.class);
-
-        @Override
-        public Include read(Decoder decoder) throws Exception {
-            String value = stringSerializer.read(decoder);
-            boolean isImport = booleanSerializer.read(decoder);
-            IncludeType type = enumSerializer.read(decoder);
-            return new DefaultInclude(value, isImport, type);
-        }
-
-        @Override
-        public void write(Encoder encoder, Include value) throws Exception {
-            stringSerializer.write(encoder, value.getValue());
-            booleanSerializer.write(encoder, value.isImport());
-            enumSerializer.write(encoder, value.getType());
-        }
-    }
 }
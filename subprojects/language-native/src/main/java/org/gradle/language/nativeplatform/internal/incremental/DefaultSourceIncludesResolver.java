@@ -20,13 +20,22 @@ import org.gradle.language.nativeplatform.internal.SourceIncludes;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Resolves the includes of source files against a list of include paths. The location of each include file is remembered, so that a header that is included from
+ * many source files of the compilation is only searched for once. An instance should not be reused once other tasks may have changed the include paths.
+ */
 public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
+    private static final File NOT_FOUND = new File("");
+
     private final List<File> includePaths;
+    private final Map<String, File> systemIncludeFiles = new HashMap<String, File>();
+    private final Map<File, Map<String, File>> quotedIncludeFiles = new HashMap<File, Map<String, File>>();
 
     public DefaultSourceIncludesResolver(List<File> includePaths) {
         this.includePaths = includePaths;
@@ -34,8 +43,12 @@ public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
 
     public Set<ResolvedInclude> resolveIncludes(File sourceFile, SourceIncludes includes) {
         Set<ResolvedInclude> dependencies = new LinkedHashSet<ResolvedInclude>();
-        searchForDependencies(dependencies, prependSourceDir(sourceFile, includePaths), includes.getQuotedIncludes());
-        searchForDependencies(dependencies, includePaths, includes.getSystemIncludes());
+        for (Include include : includes.getQuotedIncludes()) {
+            addDependency(dependencies, include.getValue(), locateQuotedInclude(sourceFile.getParentFile(), include.getValue()));
+        }
+        for (Include include : includes.getSystemIncludes()) {
+            addDependency(dependencies, include.getValue(), locateSystemInclude(include.getValue()));
+        }
         if (!includes.getMacroIncludes().isEmpty()) {
             dependencies.add(new ResolvedInclude(includes.getMacroIncludes().get(0).getValue(), null));
         }
@@ -43,26 +56,47 @@ public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
         return dependencies;
     }
 
-    private List<File> prependSourceDir(File sourceFile, List<File> includePaths) {
-        List<File> quotedSearchPath = new ArrayList<File>(includePaths.size() + 1);
-        quotedSearchPath.add(sourceFile.getParentFile());
-        quotedSearchPath.addAll(includePaths);
-        return quotedSearchPath;
+    private void addDependency(Set<ResolvedInclude> dependencies, String include, File includeFile) {
+        if (includeFile != NOT_FOUND) {
+            dependencies.add(new ResolvedInclude(include, includeFile));
+        }
     }
 
-    private void searchForDependencies(Set<ResolvedInclude> dependencies, List<File> searchPath, List<Include> includes) {
-        for (Include include : includes) {
-            searchForDependency(dependencies, searchPath, include.getValue());
+    private File locateQuotedInclude(File sourceDir, String include) {
+        // A quoted include is searched for relative to the including file first, then in the include paths
+        Map<String, File> includeFiles = quotedIncludeFiles.get(sourceDir);
+        if (includeFiles == null) {
+            includeFiles = new HashMap<String, File>();
+            quotedIncludeFiles.put(sourceDir, includeFiles);
         }
+        File includeFile = includeFiles.get(include);
+        if (includeFile == null) {
+            includeFile = search(sourceDir, include);
+            if (includeFile == NOT_FOUND) {
+                includeFile = locateSystemInclude(include);
+            }
+            includeFiles.put(include, includeFile);
+        }
+        return includeFile;
     }
 
-    private void searchForDependency(Set<ResolvedInclude> dependencies, List<File> searchPath, String include) {
-        for (File searchDir : searchPath) {
-            File candidate = new File(searchDir, include);
-            if (candidate.isFile()) {
-                dependencies.add(new ResolvedInclude(include, GFileUtils.canonicalise(candidate)));
-                return;
+    private File locateSystemInclude(String include) {
+        File includeFile = systemIncludeFiles.get(include);
+        if (includeFile == null) {
+            includeFile = NOT_FOUND;
+            for (File searchDir : includePaths) {
+                includeFile = search(searchDir, include);
+                if (includeFile != NOT_FOUND) {
+                    break;
+                }
             }
+            systemIncludeFiles.put(include, includeFile);
         }
+        return includeFile;
+    }
+
+    private File search(File searchDir, String include) {
+        File candidate = new File(searchDir, include);
+        return candidate.isFile() ? GFileUtils.canonicalise(candidate) : NOT_FOUND;
     }
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.IncludeType;
+import org.gradle.language.nativeplatform.internal.SourceIncludes;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the #include and #import directives of a source file, by scanning the bytes of the file with a state machine.
+ *
+ * Comments are replaced with a single space and line-continuations are removed, in the same way as {@link PreprocessingReader}. A directive is recognised
+ * when a line, ignoring leading and trailing whitespace, is made up of '#', the (case-insensitive) directive name and a single quoted, system or macro include.
+ * Only the lines that start with '#' are buffered, so no work is done per line for all other lines.
+ */
+public class ScanningCSourceParser implements CSourceParser {
+    public SourceIncludes parseSource(File sourceFile) {
+        DefaultSourceIncludes sourceIncludes = new DefaultSourceIncludes();
+        sourceIncludes.addAll(parseFile(sourceFile));
+        return sourceIncludes;
+    }
+
+    private List<Include> parseFile(File file) {
+        byte[] contents;
+        int length;
+        try {
+            InputStream inputStream = new FileInputStream(file);
+            try {
+                contents = new byte[(int) file.length() + 1];
+                length = 0;
+                int nread;
+                while ((nread = inputStream.read(contents, length, contents.length - length)) >= 0) {
+                    length += nread;
+                    if (length == contents.length) {
+                        // The file has grown since its length was read
+                        contents = Arrays.copyOf(contents, contents.length * 2);
+                    }
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Scanner(contents, length).scan();
+    }
+
+    private static class Scanner {
+        private static final int EOF = -1;
+        private static final byte[] INCLUDE = "include".getBytes();
+        private static final byte[] IMPORT = "import".getBytes();
+
+        private final byte[] contents;
+        private final int length;
+        private final List<Include> includes = Lists.newArrayList();
+        private int pos;
+
+        /**
+         * Whether the scanner is in the middle of a string literal.
+         */
+        private boolean inString;
+
+        /**
+         * Whether the last character was a backslash.
+         */
+        private boolean quoted;
+
+        /**
+         * The current line, from the '#' onwards.
+         */
+        private byte[] line = new byte[256];
+        private int lineLength;
+        private LineState lineState = LineState.START;
+        private int directiveStart;
+
+        private enum LineState {
+            /**
+             * Only whitespace seen so far.
+             */
+            START,
+            /**
+             * Seen '#', and possibly whitespace after it.
+             */
+            HASH,
+            /**
+             * Seen the start of the directive name.
+             */
+            DIRECTIVE,
+            /**
+             * This line cannot contain an include directive.
+             */
+            SKIP
+        }
+
+        Scanner(byte[] contents, int length) {
+            this.contents = contents;
+            this.length = length;
+        }
+
+        List<Include> scan() {
+            int ch;
+            while ((ch = read()) != EOF) {
+                if (ch == '\n' || ch == '\r') {
+                    endLine();
+                    continue;
+                }
+                switch (lineState) {
+                    case START:
+                        if (ch == '#') {
+                            append(ch);
+                            lineState = LineState.HASH;
+                        } else if (ch > ' ') {
+                            lineState = LineState.SKIP;
+                        }
+                        break;
+                    case HASH:
+                        append(ch);
+                        if (!isWhitespace(ch)) {
+                            directiveStart = lineLength - 1;
+                            lineState = LineState.DIRECTIVE;
+                        }
+                        break;
+                    case DIRECTIVE:
+                        append(ch);
+                        if (lineLength == directiveStart + INCLUDE.length && directiveLength() < 0) {
+                            lineState = LineState.SKIP;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            endLine();
+            return includes;
+        }
+
+        private void append(int ch) {
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = (byte) ch;
+        }
+
+        private void endLine() {
+            if (lineState == LineState.DIRECTIVE) {
+                parseDirective();
+            }
+            lineLength = 0;
+            lineState = LineState.START;
+        }
+
+        /**
+         * Returns the length of the directive name at the start of the directive, or -1 if the directive is not an include or import.
+         */
+        private int directiveLength() {
+            if (matches(INCLUDE, true)) {
+                return INCLUDE.length;
+            }
+            if (matches(IMPORT, true)) {
+                return IMPORT.length;
+            }
+            return -1;
+        }
+
+        private boolean matches(byte[] name, boolean ignoreCase) {
+            if (lineLength - directiveStart < name.length) {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                int ch = line[directiveStart + i];
+                if (ignoreCase && ch >= 'A' && ch <= 'Z') {
+                    ch += 'a' - 'A';
+                }
+                if (ch != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void parseDirective() {
+            int nameLength = directiveLength();
+            if (nameLength < 0) {
+                return;
+            }
+            // Only a lower case 'import' is treated as an import
+            boolean isImport = nameLength == IMPORT.length && matches(IMPORT, false);
+
+            int end = lineLength;
+            while (end > 0 && (line[end - 1] & 0xff) <= ' ') {
+                end--;
+            }
+            int start = directiveStart + nameLength;
+            while (start < end && isWhitespace(line[start])) {
+                start++;
+            }
+            if (start >= end) {
+                return;
+            }
+
+            byte first = line[start];
+            if (first == '<' || first == '"') {
+                byte last = first == '<' ? (byte) '>' : (byte) '"';
+                int close = start + 1;
+                while (close < end && line[close] != last) {
+                    close++;
+                }
+                if (close != end - 1 || close == start + 1) {
+                    return;
+                }
+                String value = new String(line, start + 1, close - start - 1);
+                includes.add(new DefaultInclude(value, isImport, first == '<' ? IncludeType.SYSTEM : IncludeType.QUOTED));
+            } else {
+                for (int i = start; i < end; i++) {
+                    if (!isWordCharacter(line[i])) {
+                        return;
+                    }
+                }
+                includes.add(new DefaultInclude(new String(line, start, end - start), isImport, IncludeType.MACRO));
+            }
+        }
+
+        private static boolean isWhitespace(int ch) {
+            return ch == ' ' || ch == '\t' || ch == 0x0B || ch == '\f';
+        }
+
+        private static boolean isWordCharacter(int ch) {
+            return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+        }
+
+        /**
+         * Returns the next character, with comments replaced by a single space and line-continuations removed.
+         */
+        private int read() {
+            while (true) {
+                int ch = next();
+
+                if (ch == '\\' && discardNewLine()) {
+                    continue;
+                }
+
+                if (ch == '"' && !quoted) {
+                    inString = !inString;
+                    quoted = false;
+                } else if (ch == '\\') {
+                    quoted = !quoted;
+                } else {
+                    quoted = false;
+                    if (!inString && ch == '/') {
+                        ch = next();
+                        if (ch == '/') {
+                            while (ch != '\n' && ch != EOF && ch != '\r') {
+                                ch = next();
+                            }
+                        } else if (ch == '*') {
+                            while (ch != EOF) {
+                                ch = next();
+                                if (ch == '*') {
+                                    ch = next();
+                                    while (ch == '*') {
+                                        ch = next();
+                                    }
+                                    if (ch == '/') {
+                                        ch = ' ';
+                                        break;
+                                    }
+                                }
+                            }
+                        } else {
+                            unread(ch);
+                            ch = '/';
+                        }
+                    }
+                }
+                return ch;
+            }
+        }
+
+        private boolean discardNewLine() {
+            int nextChar = next();
+            if (nextChar == '\n') {
+                return true;
+            }
+            if (nextChar == '\r') {
+                int followingChar = next();
+                if (followingChar == '\n') {
+                    return true;
+                }
+                unread(followingChar);
+            }
+            unread(nextChar);
+            return false;
+        }
+
+        private int next() {
+            return pos < length ? contents[pos++] & 0xff : EOF;
+        }
+
+        private void unread(int ch) {
+            if (ch != EOF) {
+                pos--;
+            }
+        }
+    }
+}
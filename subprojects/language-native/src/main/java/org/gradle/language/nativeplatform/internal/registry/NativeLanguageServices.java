@@ -18,6 +18,7 @@ package org.gradle.language.nativeplatform.internal.registry;
 
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
+import org.gradle.language.nativeplatform.internal.incremental.CachingCSourceParser;
 import org.gradle.language.nativeplatform.internal.incremental.DefaultCompilationStateCacheFactory;
 import org.gradle.language.nativeplatform.internal.incremental.IncrementalCompilerBuilder;
 
@@ -33,6 +34,7 @@ public class NativeLanguageServices implements PluginServiceRegistry {
 
     public void registerGradleServices(ServiceRegistration registration) {
         registration.add(DefaultCompilationStateCacheFactory.class);
+        registration.add(CachingCSourceParser.class);
     }
 
     public void registerProjectServices(ServiceRegistration registration) {
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import org.gradle.api.internal.changedetection.state.FileSnapshot
+import org.gradle.api.internal.changedetection.state.FileSnapshotter
+import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAccess
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.hash.HashUtil
+import org.gradle.language.nativeplatform.internal.SourceIncludes
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class CachingCSourceParserTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def entries = [:]
+    def cache = Stub(PersistentIndexedCache) {
+        get(_) >> { String key -> entries[key] }
+        put(_, _) >> { String key, SourceIncludes value -> entries[key] = value }
+    }
+    def cacheAccess = Stub(TaskArtifactStateCacheAccess) {
+        createCache("sourceIncludes", String, _) >> cache
+    }
+    def fileSnapshotter = Stub(FileSnapshotter) {
+        snapshot(_) >> { File file ->
+            Stub(FileSnapshot) {
+                getHash() >> HashUtil.sha1(file).asByteArray()
+            }
+        }
+    }
+    def parser = new CachingCSourceParser(cacheAccess, fileSnapshotter)
+
+    def "parses source file and caches the includes by content"() {
+        given:
+        def header = tmpDir.file("header.h") << '#include "other.h"\n#import <system.h>'
+
+        when:
+        def includes = parser.parseSource(header)
+
+        then:
+        includes.quotedIncludes*.value == ["other.h"]
+        includes.systemIncludes*.value == ["system.h"]
+        entries.size() == 1
+    }
+
+    def "reuses includes of a file with the same content"() {
+        given:
+        def header = tmpDir.file("dir1/header.h") << '#include "other.h"'
+        def sameContent = tmpDir.file("dir2/header.h") << '#include "other.h"'
+        def differentContent = tmpDir.file("dir3/header.h") << '#include "different.h"'
+
+        when:
+        def includes = parser.parseSource(header)
+
+        then:
+        parser.parseSource(sameContent).is(includes)
+        parser.parseSource(differentContent).quotedIncludes*.value == ["different.h"]
+        entries.size() == 2
+    }
+
+    def "parses file again when its content changes"() {
+        given:
+        def header = tmpDir.file("header.h") << '#include "other.h"'
+        parser.parseSource(header)
+
+        when:
+        header.text = '#include "changed.h"'
+
+        then:
+        parser.parseSource(header).quotedIncludes*.value == ["changed.h"]
+    }
+}
@@ -147,6 +147,41 @@ class DefaultSourceIncludesResolverTest extends Specification {
         }
     }
 
+    def "locates quoted includes relative to each source directory when resolver is reused"() {
+        given:
+        def otherSourceDirectory = testDirectory.createDir("other")
+        def otherSourceFile = otherSourceDirectory.file("other.c")
+        def relativeHeader = sourceDirectory.createFile("test.h")
+        def includeDir = testDirectory.file("include")
+        def includePathHeader = includeDir.createFile("test.h")
+        includePaths << includeDir
+        quotedIncludes << "test.h"
+        def resolver = new DefaultSourceIncludesResolver(includePaths)
+
+        expect:
+        resolver.resolveIncludes(sourceFile, includes) as List == deps(relativeHeader)
+        resolver.resolveIncludes(otherSourceFile, includes) as List == deps(includePathHeader)
+    }
+
+    def "searches for each include only once"() {
+        given:
+        def includeDir = testDirectory.file("include")
+        def header = includeDir.createFile("test.h")
+        includePaths << includeDir
+        systemIncludes << "test.h" << "missing.h"
+        def resolver = new DefaultSourceIncludesResolver(includePaths)
+
+        when:
+        def first = resolver.resolveIncludes(sourceFile, includes)
+        header.delete()
+        includeDir.createFile("missing.h")
+        def second = resolver.resolveIncludes(sourceFile, includes)
+
+        then:
+        first as List == deps(header)
+        second as List == deps(header)
+    }
+
     def include(String value) {
         return DefaultInclude.parse(value, false)
     }
@@ -35,7 +35,7 @@ class IncrementalNativeCompilerTest extends Specification {
     def delegateCompiler = Mock(Compiler)
     def toolChain = Mock(NativeToolChain)
     def task = Mock(TaskInternal)
-    def compiler = new IncrementalNativeCompiler(task, null, null, null, delegateCompiler, toolChain)
+    def compiler = new IncrementalNativeCompiler(task, null, null, null, null, delegateCompiler, toolChain)
 
     def outputs = Mock(TaskOutputsInternal)
 
@@ -92,7 +92,7 @@ class IncrementalNativeCompilerTest extends Specification {
     @Unroll
     def "imports are includes for toolchain #tcName"() {
        when:
-       def compiler = new IncrementalNativeCompiler(task, null, null, null, delegateCompiler, toolChain)
+       def compiler = new IncrementalNativeCompiler(task, null, null, null, null, delegateCompiler, toolChain)
        then:
        compiler.importsAreIncludes
        where:
@@ -22,9 +22,9 @@ import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Unroll
 
-class RegexBackedCSourceParserTest extends Specification {
+class ScanningCSourceParserTest extends Specification {
     @Rule final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
-    CSourceParser parser = new RegexBackedCSourceParser()
+    CSourceParser parser = new ScanningCSourceParser()
 
     protected TestFile getSourceFile() {
         testDirectory.file('source.c')
@@ -466,4 +466,46 @@ st3"
         then:
         includes == ['"test1"', '"test2"', '"test3"'].collect { include(it) }
     }
+
+    def "finds directives after other preprocessor directives"() {
+        when:
+        sourceFile << """
+#ifndef HEADER_H
+#define HEADER_H
+#define LONG_MACRO(a, b) \\
+    do { \\
+        a = b; \\
+    } while (0)
+#include "test1"
+#pragma once
+#import <system1>
+#endif
+"""
+
+        then:
+        includes == ['"test1"'].collect { include(it) }
+        imports == ['<system1>'].collect { include(it, true) }
+    }
+
+    def "finds directives in file with windows line endings"() {
+        when:
+        sourceFile << "#include \"test1\"\r\n#include <system1>\r\n/* comment\r\n#include \"test2\" */\r\n#import \"test3\""
+
+        then:
+        includes == ['"test1"', '<system1>'].collect { include(it) }
+        imports == ['"test3"'].collect { include(it, true) }
+    }
+
+    def "treats directive name case insensitively but only lower case import as an import"() {
+        when:
+        sourceFile << """
+#INCLUDE "test1"
+#Import "test2"
+#import "test3"
+"""
+
+        then:
+        includes == ['"test1"', '"test2"'].collect { include(it) }
+        imports == ['"test3"'].collect { include(it, true) }
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.server.health;
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.util.NumberUtil;
@@ -28,20 +29,22 @@ class DaemonStats {
     private final Clock totalTime;
     private final TimeProvider timeProvider;
     private final MemoryInfo memory;
+    private final InMemoryTaskArtifactCache taskArtifactCache;
 
     private int buildCount;
     private long currentBuildStart;
     private long allBuildsTime;
     private int currentPerformance;
 
-    DaemonStats() {
-        this(new Clock(), new TrueTimeProvider(), new MemoryInfo());
+    DaemonStats(InMemoryTaskArtifactCache taskArtifactCache) {
+        this(new Clock(), new TrueTimeProvider(), new MemoryInfo(), taskArtifactCache);
     }
 
-    DaemonStats(Clock startTime, TimeProvider timeProvider, MemoryInfo memory) {
+    DaemonStats(Clock startTime, TimeProvider timeProvider, MemoryInfo memory, InMemoryTaskArtifactCache taskArtifactCache) {
         this.totalTime = startTime;
         this.timeProvider = timeProvider;
         this.memory = memory;
+        this.taskArtifactCache = taskArtifactCache;
     }
 
     /**
@@ -79,8 +82,9 @@ class DaemonStats {
         if (buildCount == 1) {
             return format("Starting build in new daemon [memory: %s]", NumberUtil.formatBytes(memory.getMaxMemory()));
         } else {
-            return format("Starting %s build in daemon [uptime: %s, performance: %s%%, memory: %s%% of %s]",
-                    NumberUtil.ordinal(buildCount), totalTime.getTime(), currentPerformance, getMemoryUsed(), NumberUtil.formatBytes(memory.getMaxMemory()));
+            return format("Starting %s build in daemon [uptime: %s, performance: %s%%, memory: %s%% of %s, task artifact cache: %s]",
+                    NumberUtil.ordinal(buildCount), totalTime.getTime(), currentPerformance, getMemoryUsed(), NumberUtil.formatBytes(memory.getMaxMemory()),
+                    taskArtifactCache.getStatistics());
         }
     }
 
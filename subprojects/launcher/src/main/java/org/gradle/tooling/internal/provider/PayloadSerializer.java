@@ -24,6 +24,7 @@ import org.gradle.tooling.internal.provider.jdk6.Jdk6ClassLookup;
 
 import java.io.*;
 import java.lang.reflect.Proxy;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -52,6 +53,36 @@ public class PayloadSerializer {
         try {
             ByteArrayOutputStream content = new ByteArrayOutputStream();
             final ObjectOutputStream objectStream = new ObjectOutputStream(content) {
+                private final Map<String, String> strings = new HashMap<String, String>();
+                // Keyed by path rather than by file, as File.equals() ignores case on some platforms
+                private final Map<String, File> files = new HashMap<String, File>();
+
+                {
+                    enableReplaceObject(true);
+                }
+
+                @Override
+                protected Object replaceObject(Object obj) throws IOException {
+                    // Java serialization only writes a back-reference for an object it has already written when it is the same instance.
+                    // Replace equal strings and files with the first instance seen, so that each distinct value is written once
+                    if (obj instanceof String) {
+                        String string = (String) obj;
+                        String previous = strings.get(string);
+                        if (previous != null) {
+                            return previous;
+                        }
+                        strings.put(string, string);
+                    } else if (obj instanceof File) {
+                        File file = (File) obj;
+                        File previous = files.get(file.getPath());
+                        if (previous != null) {
+                            return previous;
+                        }
+                        files.put(file.getPath(), file);
+                    }
+                    return obj;
+                }
+
                 @Override
                 protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
                     Class<?> targetClass = desc.forClass();
@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.server.health
 
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache
 import org.gradle.internal.TimeProvider
 import org.gradle.util.Clock
 import spock.lang.Specification
@@ -25,9 +26,10 @@ class DaemonStatsTest extends Specification {
     def clock = Stub(Clock)
     def time = Stub(TimeProvider)
     def memory = Stub(MemoryInfo)
+    def taskArtifactCache = Stub(InMemoryTaskArtifactCache)
 
     def "consumes first build"() {
-        def stats = new DaemonStats(clock, Stub(TimeProvider), memory)
+        def stats = new DaemonStats(clock, Stub(TimeProvider), memory, taskArtifactCache)
         memory.getCommittedMemory() >> 5000000
         memory.getMaxMemory() >> 10000000
 
@@ -46,8 +48,9 @@ class DaemonStatsTest extends Specification {
         memory.getCollectionTime() >> 25
         memory.getCommittedMemory() >> 5000000
         memory.getMaxMemory() >> 10000000
+        taskArtifactCache.getStatistics() >> "10 hits, 2 misses, 0 evictions"
 
-        def stats = new DaemonStats(clock, time, memory)
+        def stats = new DaemonStats(clock, time, memory, taskArtifactCache)
 
         when:
         stats.buildStarted()
@@ -56,6 +59,6 @@ class DaemonStatsTest extends Specification {
         stats.buildFinished()
 
         then:
-        stats.healthInfo == String.format("Starting 2nd build in daemon [uptime: 3 mins, performance: 98%%, memory: 50%% of %.1f MB]", 10.0)
+        stats.healthInfo == String.format("Starting 2nd build in daemon [uptime: 3 mins, performance: 98%%, memory: 50%% of %.1f MB, task artifact cache: 10 hits, 2 misses, 0 evictions]", 10.0)
     }
 }
@@ -40,6 +40,32 @@ class PayloadSerializerTest extends AbstractClassGraphSpec {
         "some value"                      | _
     }
 
+    def "writes equal strings and files once"() {
+        def original = (1..100).collect { [new String("some value"), new File(new String("some/file"))] }
+        def value = "some value"
+        def file = new File("some/file")
+        def shared = (1..100).collect { [value, file] }
+
+        when:
+        def serialized = originator.serialize(original)
+        def received = receiver.deserialize(serialized)
+
+        then:
+        received == original
+        received.every { it[0].is(received[0][0]) && it[1].is(received[0][1]) }
+        serialized.serializedModel.length == originator.serialize(shared).serializedModel.length
+    }
+
+    def "does not replace files whose paths differ only in case"() {
+        def original = [new File("some/file"), new File("some/FILE")]
+
+        when:
+        def received = receiver.deserialize(originator.serialize(original))
+
+        then:
+        received*.path == ["some/file", "some/FILE"]
+    }
+
     def "implementation classpath travels with object"() {
         def payloadClass = isolated(CustomPayload, PayloadInterface).loadClass(CustomPayload.name)
         def original = payloadClass.newInstance(value: 'value')
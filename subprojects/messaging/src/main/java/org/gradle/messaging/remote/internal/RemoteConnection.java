@@ -31,6 +31,21 @@ public interface RemoteConnection<T> extends Connection<T> {
      */
     void dispatch(T message) throws MessageIOException;
 
+    /**
+     * Dispatches the given message to the peer, but may hold it back so that it can be written together with later messages. Use {@link #flush()} to
+     * write the held back messages.
+     *
+     * @throws MessageIOException On failure to dispatch the message to the peer.
+     */
+    void dispatchBuffered(T message) throws MessageIOException;
+
+    /**
+     * Writes any messages held back by {@link #dispatchBuffered(Object)} to the peer.
+     *
+     * @throws MessageIOException On failure to dispatch the messages to the peer.
+     */
+    void flush() throws MessageIOException;
+
     /**
      * {@inheritDoc}
      * @throws MessageIOException On failure to receive the message from the peer.
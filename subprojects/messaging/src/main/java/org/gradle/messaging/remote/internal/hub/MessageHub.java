@@ -22,6 +22,7 @@ import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.messaging.dispatch.Dispatch;
 import org.gradle.messaging.remote.internal.Connection;
+import org.gradle.messaging.remote.internal.RemoteConnection;
 import org.gradle.messaging.remote.internal.hub.protocol.*;
 import org.gradle.messaging.remote.internal.hub.queue.EndPointQueue;
 
@@ -38,6 +39,11 @@ import java.util.concurrent.locks.ReentrantLock;
  * Use {@link #addConnection(Connection)} to attach another router to this router.
  */
 public class MessageHub implements AsyncStoppable {
+    /**
+     * When 'false', each message is written to its connection on its own, rather than together with the other queued messages.
+     */
+    public static final String BATCHED_WRITES_PROPERTY = "org.gradle.internal.messaging.batchedwrites";
+
     private enum State {Running, Stopping, Stopped}
 
     private static final Discard DISCARD = new Discard();
@@ -259,11 +265,15 @@ public class MessageHub implements AsyncStoppable {
 
     private class ConnectionDispatch implements Runnable {
         private final Connection<InterHubMessage> connection;
+        // Null when the connection cannot hold back messages, or batched writes are disabled
+        private final RemoteConnection<InterHubMessage> bufferingConnection;
         private final EndPointQueue queue;
         private final ConnectionState connectionState;
 
         private ConnectionDispatch(ConnectionState connectionState) {
             this.connection = connectionState.getConnection();
+            boolean batchedWrites = !"false".equals(System.getProperty(BATCHED_WRITES_PROPERTY));
+            this.bufferingConnection = batchedWrites && connection instanceof RemoteConnection ? (RemoteConnection<InterHubMessage>) connection : null;
             this.queue = connectionState.getDispatchQueue();
             this.connectionState = connectionState;
         }
@@ -279,13 +289,17 @@ public class MessageHub implements AsyncStoppable {
                         } finally {
                             lock.unlock();
                         }
+                        // Write all of the queued messages together, and then write them out before waiting for more messages. When messages are
+                        // queued faster than they can be written, the batches grow and fewer writes are needed.
                         for (Object message : messages) {
                             InterHubMessage channelMessage = (InterHubMessage) message;
-                            connection.dispatch(channelMessage);
+                            dispatch(channelMessage);
                             if (message instanceof EndOfStream) {
+                                flush();
                                 return;
                             }
                         }
+                        flush();
                         messages.clear();
                     }
                 } finally {
@@ -300,6 +314,20 @@ public class MessageHub implements AsyncStoppable {
                 errorHandler.execute(t);
             }
         }
+
+        private void dispatch(InterHubMessage message) {
+            if (bufferingConnection != null) {
+                bufferingConnection.dispatchBuffered(message);
+            } else {
+                connection.dispatch(message);
+            }
+        }
+
+        private void flush() {
+            if (bufferingConnection != null) {
+                bufferingConnection.flush();
+            }
+        }
     }
 
     private class ChannelDispatch<T> implements Dispatch<T> {
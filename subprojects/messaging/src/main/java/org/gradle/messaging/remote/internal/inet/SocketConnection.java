@@ -46,7 +46,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
     private final InputStream instr;
-    private final OutputStream outstr;
+    private final SocketOutputStream outstr;
 
     public SocketConnection(SocketChannel socket, MessageSerializer<T> serializer) {
         this.socket = socket;
@@ -106,12 +106,28 @@ public class SocketConnection<T> implements RemoteConnection<T> {
     public void dispatch(T message) throws MessageIOException {
         try {
             objectWriter.write(message);
-            outstr.flush();
+            outstr.writeBufferedData();
         } catch (Exception e) {
             throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
         }
     }
 
+    public void dispatchBuffered(T message) throws MessageIOException {
+        try {
+            objectWriter.write(message);
+        } catch (Exception e) {
+            throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        }
+    }
+
+    public void flush() throws MessageIOException {
+        try {
+            outstr.writeBufferedData();
+        } catch (Exception e) {
+            throw new MessageIOException(String.format("Could not write messages to '%s'.", remoteAddress), e);
+        }
+    }
+
     public void requestStop() {
         CompositeStoppable.stoppable(instr).stop();
     }
@@ -189,17 +205,23 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         }
     }
 
+    /**
+     * Buffers the written data until {@link #writeBufferedData()} is called, so that several messages can be written to the socket at once. The buffer starts
+     * small and grows when more data is buffered, up to a limit. Once the buffer is at the limit, it is written to the socket whenever it fills up.
+     */
     private static class SocketOutputStream extends OutputStream {
+        private static final int INITIAL_BUFFER_SIZE = 4096;
+        private static final int MAX_BUFFER_SIZE = 64 * 1024;
         private final Selector selector;
         private final SocketChannel socket;
-        private final ByteBuffer buffer;
+        private ByteBuffer buffer;
         private final byte[] writeBuffer = new byte[1];
 
         public SocketOutputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
             selector = Selector.open();
             socket.register(selector, SelectionKey.OP_WRITE);
-            buffer = ByteBuffer.allocateDirect(4096);
+            buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
         }
 
         @Override
@@ -213,20 +235,35 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             int remaining = max;
             int currentPos = offset;
             while (remaining > 0) {
-                int count = Math.min(remaining, buffer.remaining());
-                if (count > 0) {
-                    buffer.put(src, currentPos, count);
-                    remaining -= count;
-                    currentPos += count;
-                }
                 if (buffer.remaining() == 0) {
-                    flush();
+                    if (buffer.capacity() < MAX_BUFFER_SIZE) {
+                        growBuffer();
+                    } else {
+                        writeBufferedData();
+                    }
                 }
+                int count = Math.min(remaining, buffer.remaining());
+                buffer.put(src, currentPos, count);
+                remaining -= count;
+                currentPos += count;
             }
         }
 
+        private void growBuffer() {
+            ByteBuffer newBuffer = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+        }
+
+        /**
+         * Does nothing, as the serializer flushes after each message. The connection writes the buffered data once it has written the messages it has.
+         */
         @Override
-        public void flush() throws IOException {
+        public void flush() {
+        }
+
+        public void writeBufferedData() throws IOException {
             buffer.flip();
             while (buffer.remaining() > 0) {
                 selector.select();
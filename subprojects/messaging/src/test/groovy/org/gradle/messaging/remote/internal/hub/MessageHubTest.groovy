@@ -19,6 +19,7 @@ package org.gradle.messaging.remote.internal.hub
 import org.gradle.api.Action
 import org.gradle.messaging.dispatch.Dispatch
 import org.gradle.messaging.remote.internal.Connection
+import org.gradle.messaging.remote.internal.RemoteConnection
 import org.gradle.messaging.remote.internal.hub.protocol.ChannelIdentifier
 import org.gradle.messaging.remote.internal.hub.protocol.ChannelMessage
 import org.gradle.messaging.remote.internal.hub.protocol.EndOfStream
@@ -107,6 +108,24 @@ class MessageHubTest extends ConcurrentSpec {
         connection.stop()
     }
 
+    def "queued outgoing messages are written to remote connection together"() {
+        def connection = new MockBufferingConnection()
+
+        given:
+        hub.getOutgoing("channel1", String).dispatch("message1")
+        hub.getOutgoing("channel1", String).dispatch("message2")
+        hub.getOutgoing("channel2", Long).dispatch(12)
+
+        when:
+        hub.addConnection(connection)
+
+        then:
+        connection.writes.take() == ["message1", "message2", 12]
+
+        cleanup:
+        connection.stop()
+    }
+
     def "queued outgoing messages are dispatched asynchronously to connection when connection is added"() {
         Dispatch<InterHubMessage> outgoing = Mock()
         def connection = new MockOutgoingConnection(outgoing)
@@ -652,6 +671,38 @@ class MessageHubTest extends ConcurrentSpec {
         }
     }
 
+    private static class MockBufferingConnection implements RemoteConnection<InterHubMessage> {
+        private final BlockingQueue<InterHubMessage> incoming = new LinkedBlockingQueue<>()
+        private final BlockingQueue<List<Object>> writes = new LinkedBlockingQueue<>()
+        private final List<Object> buffered = []
+
+        void dispatch(InterHubMessage message) {
+            throw new UnsupportedOperationException()
+        }
+
+        void dispatchBuffered(InterHubMessage message) {
+            buffered << (message instanceof ChannelMessage ? message.payload : message)
+        }
+
+        void flush() {
+            writes.put(new ArrayList<Object>(buffered))
+            buffered.clear()
+        }
+
+        InterHubMessage receive() {
+            def message = incoming.take()
+            return message instanceof EndOfStream ? null : message
+        }
+
+        void requestStop() {
+            throw new UnsupportedOperationException()
+        }
+
+        void stop() {
+            incoming.put(new EndOfStream())
+        }
+    }
+
     private static class TestConnection implements Connection<InterHubMessage> {
         private final BlockingQueue<InterHubMessage> incoming = new LinkedBlockingQueue<>()
         private final BlockingQueue<InterHubMessage> outgoing = new LinkedBlockingQueue<>()
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
+import org.gradle.cache.internal.btree.BlockStore
+import org.gradle.cache.internal.btree.FileBackedBlockStore
+import org.gradle.cache.internal.btree.MappedFileBlockStore
+import org.gradle.performance.fixture.InProcessBenchmark
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import org.junit.experimental.categories.Category
+import spock.lang.Specification
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER
+import static org.gradle.performance.measure.Duration.millis
+
+/**
+ * Compares the BTree cache backed by a memory mapped file with the BTree cache backed by a random access file.
+ */
+@Category(PerformanceTest)
+@Requires(TestPrecondition.NOT_WINDOWS)
+class BlockStorePerformanceTest extends Specification {
+    static final int ENTRIES = 20000
+
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final byte[] value = new byte[40]
+    int cacheCount
+
+    def "mapped block store writes at least as fast as file backed block store"() {
+        given:
+        def benchmark = new InProcessBenchmark("BTree cache writes, ${ENTRIES} entries", ENTRIES)
+
+        when:
+        benchmark.measure("file backed") {
+            writeAndClose(cache { new FileBackedBlockStore(it) })
+        }
+        benchmark.measure("mapped") {
+            writeAndClose(cache { new MappedFileBlockStore(it) })
+        }
+
+        then:
+        benchmark.assertNotSlower("mapped", "file backed", millis(100))
+    }
+
+    def "mapped block store reads at least as fast as file backed block store"() {
+        given:
+        def benchmark = new InProcessBenchmark("BTree cache reads, ${ENTRIES} entries", ENTRIES)
+        def fileBacked = cache { new FileBackedBlockStore(it) }
+        write(fileBacked)
+        def mapped = cache { new MappedFileBlockStore(it) }
+        write(mapped)
+
+        when:
+        benchmark.measure("file backed") {
+            read(fileBacked)
+        }
+        benchmark.measure("mapped") {
+            read(mapped)
+        }
+
+        then:
+        benchmark.assertNotSlower("mapped", "file backed", millis(100))
+
+        cleanup:
+        fileBacked?.close()
+        mapped?.close()
+    }
+
+    private BTreePersistentIndexedCache<String, byte[]> cache(Closure<BlockStore> blockStore) {
+        def cacheFile = tmpDir.file("cache-${cacheCount++}.bin")
+        return new BTreePersistentIndexedCache<String, byte[]>(cacheFile, blockStore.call(cacheFile), STRING_SERIALIZER, BYTE_ARRAY_SERIALIZER)
+    }
+
+    private void writeAndClose(BTreePersistentIndexedCache<String, byte[]> cache) {
+        try {
+            write(cache)
+        } finally {
+            cache.close()
+        }
+    }
+
+    private void write(BTreePersistentIndexedCache<String, byte[]> cache) {
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put(key(i), value)
+        }
+    }
+
+    private static void read(BTreePersistentIndexedCache<String, byte[]> cache) {
+        for (int i = 0; i < ENTRIES; i++) {
+            assert cache.get(key(i)).length == 40
+        }
+    }
+
+    private static String key(int i) {
+        return "/home/user/project/src/main/java/org/gradle/sample/package${i % 100}/Class${i}.java"
+    }
+}
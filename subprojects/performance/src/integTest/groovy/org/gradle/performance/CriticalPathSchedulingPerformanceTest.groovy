@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+class CriticalPathSchedulingPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    def "parallel build with long task chain"() {
+        when:
+        runner.testId = "parallel build with long task chain"
+        runner.testGroup = "parallel builds"
+        runner.buildSpec {
+            projectName("criticalPath").displayName("critical path first").invocation {
+                tasksToRun("work").args("--parallel", "--max-workers=8", "-Dorg.gradle.parallel.criticalpath=true").useDaemon()
+            }
+        }
+        runner.baseline {
+            projectName("criticalPath").displayName("plan order").invocation {
+                tasksToRun("work").args("--parallel", "--max-workers=8").useDaemon()
+            }
+        }
+
+        then:
+        runner.run()
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.performance.fixture.BuildExperimentInvocationInfo
+import org.gradle.performance.fixture.BuildExperimentListenerAdapter
+import spock.lang.Unroll
+
+import static org.gradle.performance.measure.Duration.millis
+
+class FileSnapshottingPerformanceTest extends AbstractCrossVersionPerformanceTest {
+    @Unroll("Project '#testProject' up-to-date build with cold file hash cache")
+    def "up-to-date build with cold file hash cache"() {
+        given:
+        runner.testId = "up-to-date build with cold file hash cache $testProject"
+        runner.testProject = testProject
+        runner.tasksToRun = ['build']
+        runner.maxExecutionTimeRegression = maxExecutionTimeRegression
+        runner.targetVersions = ['2.8', 'last']
+        runner.gradleOpts = ["-Xmx1g", "-XX:MaxPermSize=256m"]
+        runner.buildExperimentListener = new BuildExperimentListenerAdapter() {
+            @Override
+            void beforeInvocation(BuildExperimentInvocationInfo invocationInfo) {
+                // Keep the task history, so that tasks are up-to-date, but force every input and output file to be hashed again
+                def cacheDir = new File(invocationInfo.projectDir, ".gradle")
+                if (!cacheDir.directory) {
+                    return
+                }
+                cacheDir.eachFileRecurse { File file ->
+                    if (file.name.startsWith("fileHashes.")) {
+                        file.delete()
+                    }
+                }
+            }
+        }
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+
+        where:
+        testProject | maxExecutionTimeRegression
+        "largeSrc"  | millis(2000)
+        "multi"     | millis(1000)
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.apache.http.util.EntityUtils
+import org.gradle.authentication.Authentication
+import org.gradle.internal.resource.transport.http.DefaultHttpSettings
+import org.gradle.internal.resource.transport.http.HttpClientHelper
+import org.gradle.internal.resource.transport.http.HttpConnectionPool
+import org.gradle.performance.fixture.InProcessBenchmark
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import org.junit.experimental.categories.Category
+import spock.lang.Specification
+
+import static org.gradle.performance.measure.Duration.millis
+
+@Category(PerformanceTest)
+class HttpConnectionPoolPerformanceTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule HttpServer server = new HttpServer()
+
+    def "clients sharing a connection pool download at least as fast as clients with a pool each"() {
+        given:
+        def content = new byte[16 * 1024]
+        new Random(1).nextBytes(content)
+        tmpDir.file("repo/file.bin").bytes = content
+        server.allowGetOrHead("/repo", tmpDir.file("repo"))
+        server.start()
+        // Clients are created one after the other, as the repositories of a build are
+        def clients = 10
+        def requestsPerClient = 100
+        def benchmark = new InProcessBenchmark("HTTP downloads from ${clients} clients", clients * requestsPerClient)
+        def sharedPool = new HttpConnectionPool()
+
+        when:
+        benchmark.measure("pool per client") {
+            clients.times {
+                def pool = new HttpConnectionPool()
+                try {
+                    download(pool, requestsPerClient, content.length)
+                } finally {
+                    pool.stop()
+                }
+            }
+        }
+        benchmark.measure("shared pool") {
+            clients.times {
+                download(sharedPool, requestsPerClient, content.length)
+            }
+        }
+
+        then:
+        benchmark.assertNotSlower("shared pool", "pool per client", millis(50))
+
+        cleanup:
+        sharedPool?.stop()
+    }
+
+    private void download(HttpConnectionPool pool, int requests, int expectedLength) {
+        def client = new HttpClientHelper(new DefaultHttpSettings(Collections.<Authentication>emptySet()), pool)
+        requests.times {
+            def response = client.performGet("${server.uri}/repo/file.bin")
+            assert EntityUtils.toByteArray(response.entity).length == expectedLength
+        }
+    }
+}
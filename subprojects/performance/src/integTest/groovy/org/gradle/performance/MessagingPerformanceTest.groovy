@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.api.Action
+import org.gradle.internal.concurrent.CompositeStoppable
+import org.gradle.internal.jvm.Jvm
+import org.gradle.messaging.remote.Address
+import org.gradle.messaging.remote.ConnectionAcceptor
+import org.gradle.messaging.remote.MessagingClient
+import org.gradle.messaging.remote.MessagingServer
+import org.gradle.messaging.remote.ObjectConnection
+import org.gradle.messaging.remote.internal.MessagingServices
+import org.gradle.messaging.remote.internal.hub.MessageHub
+import org.gradle.performance.fixture.InProcessBenchmark
+import org.junit.experimental.categories.Category
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+import static org.gradle.performance.measure.Duration.millis
+
+/**
+ * Measures how quickly a process can send messages to this process over a socket connection, as test workers send test events and output to the build.
+ */
+@Category(PerformanceTest)
+class MessagingPerformanceTest extends Specification {
+    static final int MESSAGES = 20000
+
+    @Unroll
+    def "batched writes send #size byte messages between processes at least as fast as a write per message"() {
+        given:
+        def benchmark = new InProcessBenchmark("messages of ${size} bytes sent from another process", MESSAGES)
+
+        when:
+        measure(benchmark, "write per message", false, size)
+        measure(benchmark, "batched writes", true, size)
+
+        then:
+        benchmark.assertNotSlower("batched writes", "write per message", millis(50))
+
+        where:
+        size << [100, 1000]
+    }
+
+    private static void measure(InProcessBenchmark benchmark, String implementation, boolean batchedWrites, int size) {
+        def process = new SendingProcess(batchedWrites)
+        try {
+            benchmark.measure(implementation) {
+                process.sendAndWait(MESSAGES, size)
+            }
+        } finally {
+            process.stop()
+        }
+    }
+
+    static interface MessageReceiver {
+        void receive(String message)
+    }
+
+    static interface MessageSender {
+        void send(int count, int size)
+
+        void stop()
+    }
+
+    /**
+     * A process that sends messages to this process when asked to.
+     */
+    private static class SendingProcess {
+        final MessagingServices services = new MessagingServices(MessagingPerformanceTest.classLoader)
+        final CountingReceiver receiver = new CountingReceiver()
+        final ConnectionAcceptor acceptor
+        final Process process
+        final ObjectConnection connection
+        final MessageSender sender
+
+        SendingProcess(boolean batchedWrites) {
+            BlockingQueue<ObjectConnection> connections = new LinkedBlockingQueue<ObjectConnection>()
+            acceptor = services.get(MessagingServer).accept({ ObjectConnection connection -> connections.put(connection) } as Action)
+            process = new ProcessBuilder(Jvm.current().javaExecutable.absolutePath, "-cp", System.getProperty("java.class.path"),
+                "-D${MessageHub.BATCHED_WRITES_PROPERTY}=${batchedWrites}", SenderMain.name).redirectErrorStream(true).start()
+            process.consumeProcessOutputStream(System.out)
+            def stdin = new ObjectOutputStream(process.outputStream)
+            stdin.writeObject(acceptor.address)
+            stdin.flush()
+
+            connection = connections.poll(60, TimeUnit.SECONDS)
+            assert connection != null: "sending process did not connect"
+            connection.addIncoming(MessageReceiver, receiver)
+            sender = connection.addOutgoing(MessageSender)
+            connection.connect()
+        }
+
+        void sendAndWait(int count, int size) {
+            receiver.expect(count)
+            sender.send(count, size)
+            receiver.await()
+        }
+
+        void stop() {
+            sender?.stop()
+            process.waitFor()
+            CompositeStoppable.stoppable(connection, acceptor, services).stop()
+        }
+    }
+
+    private static class CountingReceiver implements MessageReceiver {
+        private volatile CountDownLatch remaining
+
+        void expect(int count) {
+            remaining = new CountDownLatch(count)
+        }
+
+        void receive(String message) {
+            remaining.countDown()
+        }
+
+        void await() {
+            assert remaining.await(120, TimeUnit.SECONDS): "did not receive all messages"
+        }
+    }
+
+    /**
+     * The main class of the sending process. Reads the address of this process from stdin.
+     */
+    static class SenderMain {
+        static void main(String[] args) {
+            Address address = (Address) new ObjectInputStream(System.in).readObject()
+            def services = new MessagingServices(SenderMain.classLoader)
+            def connection = services.get(MessagingClient).getConnection(address)
+            def receiver = connection.addOutgoing(MessageReceiver)
+            def stopped = new CountDownLatch(1)
+            connection.addIncoming(MessageSender, new MessageSender() {
+                void send(int count, int size) {
+                    def message = "x" * size
+                    count.times {
+                        receiver.receive(message)
+                    }
+                }
+
+                void stop() {
+                    stopped.countDown()
+                }
+            })
+            connection.connect()
+            stopped.await()
+            CompositeStoppable.stoppable(connection, services).stop()
+        }
+    }
+}
@@ -58,6 +58,31 @@ class MonolithicNativePluginPerformanceTest extends AbstractCrossVersionPerforma
         "nativeMonolithicOverlapping" | millis(1000)               | 4
     }
 
+    def "build native project with many headers without previous include state"() {
+        given:
+        runner.testId = "build native project with many headers without previous include state"
+        runner.testProject = "nativeHeaderCorpus"
+        runner.tasksToRun = ['build']
+        runner.args = ["--parallel", "--max-workers=4"]
+        runner.maxExecutionTimeRegression = millis(5000)
+        runner.targetVersions = ['2.8', 'last']
+        runner.useDaemon = true
+        runner.gradleOpts = ["-Xmx4g", "-XX:MaxPermSize=256m", "-XX:+HeapDumpOnOutOfMemoryError"]
+        runner.buildExperimentListener = new BuildExperimentListenerAdapter() {
+            @Override
+            void beforeInvocation(BuildExperimentInvocationInfo invocationInfo) {
+                // Discard the task history, so that every source file and header is parsed for includes again
+                FileUtils.deleteDirectory(new File(invocationInfo.projectDir, ".gradle"))
+            }
+        }
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+    }
+
     @Unroll('Project #buildSize native build #changeType change')
     def "build with changes"() {
         given:
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance
+
+import org.gradle.cache.internal.FileBackedPersistentIndexedCache
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
+import org.gradle.cache.internal.logstore.LogStructuredPersistentIndexedCache
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.StoppableExecutor
+import org.gradle.performance.fixture.InProcessBenchmark
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.junit.experimental.categories.Category
+import spock.lang.Specification
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER
+import static org.gradle.performance.measure.Duration.millis
+
+/**
+ * Compares the log structured cache with the BTree cache, using a workload similar to the file hash cache: keys are absolute paths and values are
+ * small, fixed size records.
+ */
+@Category(PerformanceTest)
+class PersistentIndexedCachePerformanceTest extends Specification {
+    static final int ENTRIES = 20000
+    static final int UPDATES = 3
+
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final StoppableExecutor compactionExecutor = new DefaultExecutorFactory().create("compaction")
+    final byte[] value = new byte[40]
+    int cacheCount
+
+    def cleanup() {
+        compactionExecutor.stop()
+    }
+
+    def "log structured cache writes at least as fast as BTree cache"() {
+        given:
+        def benchmark = new InProcessBenchmark("cache writes, ${ENTRIES} entries each updated ${UPDATES} times", ENTRIES * UPDATES)
+
+        when:
+        benchmark.measure("BTree") {
+            writeAndClose(btree())
+        }
+        benchmark.measure("log structured") {
+            writeAndClose(logStructured())
+        }
+
+        then:
+        benchmark.assertNotSlower("log structured", "BTree", millis(100))
+    }
+
+    def "log structured cache reads at least as fast as BTree cache"() {
+        given:
+        def benchmark = new InProcessBenchmark("cache reads, ${ENTRIES} entries", ENTRIES)
+        def btree = btree()
+        write(btree)
+        def logStructured = logStructured()
+        write(logStructured)
+
+        when:
+        benchmark.measure("BTree") {
+            read(btree)
+        }
+        benchmark.measure("log structured") {
+            read(logStructured)
+        }
+
+        then:
+        benchmark.assertNotSlower("log structured", "BTree", millis(100))
+
+        cleanup:
+        btree?.close()
+        logStructured?.close()
+    }
+
+    private FileBackedPersistentIndexedCache<String, byte[]> btree() {
+        return new BTreePersistentIndexedCache<String, byte[]>(nextCacheFile(), STRING_SERIALIZER, BYTE_ARRAY_SERIALIZER)
+    }
+
+    private FileBackedPersistentIndexedCache<String, byte[]> logStructured() {
+        return new LogStructuredPersistentIndexedCache<String, byte[]>(nextCacheFile(), STRING_SERIALIZER, BYTE_ARRAY_SERIALIZER, compactionExecutor)
+    }
+
+    private File nextCacheFile() {
+        return tmpDir.file("cache-${cacheCount++}.bin")
+    }
+
+    private void writeAndClose(FileBackedPersistentIndexedCache<String, byte[]> cache) {
+        try {
+            write(cache)
+        } finally {
+            cache.close()
+        }
+    }
+
+    /**
+     * Writes every entry, then updates every entry, as the hashes of changed files are.
+     */
+    private void write(FileBackedPersistentIndexedCache<String, byte[]> cache) {
+        UPDATES.times { update ->
+            value[0] = (byte) update
+            for (int i = 0; i < ENTRIES; i++) {
+                cache.put(key(i), value)
+            }
+        }
+    }
+
+    private static void read(FileBackedPersistentIndexedCache<String, byte[]> cache) {
+        for (int i = 0; i < ENTRIES; i++) {
+            assert cache.get(key(i)).length == 40
+        }
+    }
+
+    private static String key(int i) {
+        return "/home/user/project/src/main/java/org/gradle/sample/package${i % 100}/Class${i}.java"
+    }
+}
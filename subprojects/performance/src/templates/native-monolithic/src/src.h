@@ -1,6 +1,28 @@
 
+<% if (commentedHeaders) { %>
+/*
+ * Project header ${sourceIdx}.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+<% } %>
 #ifndef PROJECT_HEADER_${sourceIdx}_H
 #define PROJECT_HEADER_${sourceIdx}_H
+<% if (commentedHeaders) { %>
+#define PROJECT_HEADER_${sourceIdx}_DESCRIPTION \\
+    "Project header ${sourceIdx}, " \\
+    "with comments and line continuations" // #include "not_included.h"
+<% } %>
 
 <% sourceIdx.times { %>
 #include "src${it}_h.h"
@@ -8,6 +30,15 @@
 
 
 <% functionCount.times { %>
+<% if (commentedHeaders) { %>
+/**
+ * Prints a greeting and returns 0.
+ *
+ * Use it like this:
+ *   #include "src${sourceIdx}_h.h"
+ *   int result = C_function_${(it+1)+offset}();
+ */
+<% } %>
 int C_function_${(it+1)+offset} (); 
 int CPP_function_${(it+1)+offset} (); 
 <% } %>
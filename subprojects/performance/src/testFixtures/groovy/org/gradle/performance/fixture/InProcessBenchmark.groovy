@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.fixture
+
+import org.gradle.api.Action
+import org.gradle.performance.measure.Amount
+import org.gradle.performance.measure.Duration
+import org.gradle.performance.measure.MeasuredOperation
+
+import java.math.RoundingMode
+
+/**
+ * Compares the throughput of implementations of some operation that run in the test process, rather than in a build. Each run of an implementation
+ * performs the same number of operations. The results are appended to the same file as the results of the cross version performance tests.
+ */
+class InProcessBenchmark {
+    static final File RESULTS_FILE = new File("build/performance-tests/results.txt")
+
+    final String displayName
+    final int operationsPerRun
+    int warmUpRuns = 2
+    int runs = 5
+
+    private final OperationTimer timer = new OperationTimer()
+    private final Map<String, MeasuredOperationList> results = new LinkedHashMap<String, MeasuredOperationList>()
+
+    InProcessBenchmark(String displayName, int operationsPerRun) {
+        this.displayName = displayName
+        this.operationsPerRun = operationsPerRun
+    }
+
+    /**
+     * Runs the given implementation, which performs {@link #operationsPerRun} operations each time it is called.
+     */
+    MeasuredOperationList measure(String implementation, Closure<?> run) {
+        warmUpRuns.times {
+            run.call()
+        }
+        def operations = new MeasuredOperationList(name: implementation)
+        runs.times {
+            MeasuredOperation operation = timer.measure({ run.call() } as Action)
+            if (operation.exception) {
+                throw operation.exception
+            }
+            operations << operation
+        }
+        results[implementation] = operations
+        return operations
+    }
+
+    /**
+     * Returns the average number of operations per second performed by the given implementation.
+     */
+    BigDecimal operationsPerSecond(String implementation) {
+        def average = results[implementation].totalTime.average.toUnits(Duration.MILLI_SECONDS).value
+        return BigDecimal.valueOf(operationsPerRun * 1000L).divide(average.max(BigDecimal.ONE), 0, RoundingMode.HALF_UP)
+    }
+
+    /**
+     * Writes the results, and fails when the candidate implementation is slower than the baseline implementation by more than the given amount.
+     */
+    void assertNotSlower(String candidate, String baseline, Amount<Duration> maxRegression) {
+        def report = new StringBuilder("Throughput $displayName: $operationsPerRun operations per run\n")
+        results.each { implementation, operations ->
+            report.append(operations.speedStats)
+            report.append("  > ${operationsPerSecond(implementation)} operations/s\n")
+        }
+        report.append("\n")
+        RESULTS_FILE.parentFile.mkdirs()
+        RESULTS_FILE << report.toString()
+        println report
+
+        def candidateAverage = results[candidate].totalTime.average
+        def baselineAverage = results[baseline].totalTime.average
+        assert candidateAverage - baselineAverage <= maxRegression: "$candidate is slower than $baseline: ${candidateAverage.format()} vs ${baselineAverage.format()}"
+    }
+}
@@ -21,9 +21,11 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
+import org.gradle.api.internal.tasks.testing.processors.WorkStealingTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
@@ -32,16 +34,34 @@ import org.gradle.internal.progress.OperationIdGenerator;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
+    /**
+     * When true, JUnit test classes are handed to the test processes as they become free, longest running classes first, rather than round-robin.
+     */
+    public static final String BALANCE_FORKS_PROPERTY = "org.gradle.test.balanceforks";
+
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactor;
+    private final Map<String, Long> previousClassDurations;
 
     public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor) {
+        this(workerFactory, actorFactor, Collections.<String, Long>emptyMap());
+    }
+
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor, Map<String, Long> previousClassDurations) {
         this.workerFactory = workerFactory;
         this.actorFactor = actorFactor;
+        this.previousClassDurations = previousClassDurations;
+    }
+
+    public static boolean isBalanceForks() {
+        return Boolean.getBoolean(BALANCE_FORKS_PROPERTY);
     }
 
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
@@ -59,8 +79,12 @@ public class DefaultTestExecuter implements TestExecuter {
             }
         };
 
-        TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-            reforkingProcessorFactory, actorFactor);
+        TestClassProcessor processor;
+        if (isBalanceForks() && testFramework instanceof JUnitTestFramework) {
+            processor = new WorkStealingTestClassProcessor(testTask.getMaxParallelForks(), reforkingProcessorFactory, actorFactor, previousClassDurations);
+        } else {
+            processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(), reforkingProcessorFactory, actorFactor);
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
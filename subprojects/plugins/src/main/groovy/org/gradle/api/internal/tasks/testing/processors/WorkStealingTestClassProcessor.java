@@ -0,0 +1,284 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.internal.tasks.testing.worker.WorkerProcessStoppedListener;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.messaging.actor.Actor;
+import org.gradle.messaging.actor.ActorFactory;
+import org.gradle.messaging.dispatch.DispatchException;
+
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Manages a set of parallel TestClassProcessors. Each processor is given one test class at a time, and is given the next test class when it reports
+ * that the previous one has completed. Waiting test classes are queued with the longest expected duration first, so that the slowest classes do not end
+ * up at the tail of the test run. When expected durations are known, no test class is handed out until all test classes have been received, so that the
+ * first classes handed out are also the slowest.
+ *
+ * <p>This only works for processors that report the completion of each test class as it completes, rather than when the processor is stopped.</p>
+ *
+ * <p>A processor that fails, or whose worker process stops unexpectedly, is given no more test classes. When no processors are left, the classes still
+ * queued are not run and the failure is rethrown when this processor is stopped.</p>
+ */
+public class WorkStealingTestClassProcessor implements TestClassProcessor {
+    private final int maxProcessors;
+    private final Factory<TestClassProcessor> factory;
+    private final ActorFactory actorFactory;
+    private final Map<String, Long> expectedDurations;
+    private final long defaultDuration;
+    private final Lock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private final PriorityQueue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
+    private final LinkedList<Slot> idle = new LinkedList<Slot>();
+    private final List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+    private final List<Actor> actors = new ArrayList<Actor>();
+    private TestResultProcessor resultProcessor;
+    private Actor resultProcessorActor;
+    private long queued;
+    private boolean dispatching;
+    private int liveSlots;
+    private Throwable slotFailure;
+
+    /**
+     * @param expectedDurations The duration of each test class in the previous run, by class name. Classes that are not included are expected to take
+     * the average of these durations.
+     */
+    public WorkStealingTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> expectedDurations) {
+        this.maxProcessors = maxProcessors;
+        this.factory = factory;
+        this.actorFactory = actorFactory;
+        this.expectedDurations = expectedDurations;
+        long total = 0;
+        for (Long duration : expectedDurations.values()) {
+            total += duration;
+        }
+        this.defaultDuration = expectedDurations.isEmpty() ? 0 : total / expectedDurations.size();
+        // Without expected durations there is nothing to sort by, so hand out test classes as they are received
+        this.dispatching = expectedDurations.isEmpty();
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        resultProcessorActor = actorFactory.createActor(resultProcessor);
+        this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        lock.lock();
+        try {
+            Long duration = expectedDurations.get(testClass.getTestClassName());
+            queue.add(new QueuedTestClass(testClass, duration == null ? defaultDuration : duration, queued++));
+            if (dispatching) {
+                dispatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands queued test classes to idle processors, starting processors as required. Must be called while holding the lock.
+     */
+    private void dispatch() {
+        while (!queue.isEmpty()) {
+            Slot slot = idle.poll();
+            if (slot == null && processors.size() < maxProcessors) {
+                slot = startSlot();
+            }
+            if (slot == null) {
+                break;
+            }
+            slot.busy = true;
+            slot.processor.processTestClass(queue.poll().testClass);
+        }
+        if (queue.isEmpty()) {
+            stateChanged.signalAll();
+        }
+    }
+
+    private Slot startSlot() {
+        Slot slot = new Slot();
+        Actor actor = actorFactory.createActor(new SlotProcessor(factory.create(), slot));
+        slot.processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(slot.processor);
+        liveSlots++;
+        slot.processor.startProcessing(slot);
+        return slot;
+    }
+
+    private void testClassCompleted(Slot slot) {
+        lock.lock();
+        try {
+            // A slot may report more than one completion for a test class, so ignore completions from a slot that is already idle
+            if (!slot.alive || !slot.busy) {
+                return;
+            }
+            slot.busy = false;
+            idle.add(slot);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void slotStopped(Slot slot, Throwable failure) {
+        lock.lock();
+        try {
+            if (!slot.alive) {
+                return;
+            }
+            slot.alive = false;
+            liveSlots--;
+            idle.remove(slot);
+            if (slotFailure == null) {
+                slotFailure = failure;
+            }
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void stop() {
+        boolean classesLeft;
+        Throwable failure;
+        lock.lock();
+        try {
+            dispatching = true;
+            dispatch();
+            // The wait ends when the queue is empty, or when there are no processors left to take the queued classes
+            while (!queue.isEmpty() && liveSlots > 0) {
+                stateChanged.await();
+            }
+            classesLeft = !queue.isEmpty();
+            queue.clear();
+            failure = slotFailure;
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
+        } catch (DispatchException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+        if (classesLeft) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+    }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        private final TestClassRunInfo testClass;
+        private final long expectedDuration;
+        private final long sequence;
+
+        private QueuedTestClass(TestClassRunInfo testClass, long expectedDuration, long sequence) {
+            this.testClass = testClass;
+            this.expectedDuration = expectedDuration;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(QueuedTestClass other) {
+            if (expectedDuration != other.expectedDuration) {
+                return expectedDuration > other.expectedDuration ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : sequence == other.sequence ? 0 : 1;
+        }
+    }
+
+    /**
+     * Notices when a processor fails, so that it is not waited on for test classes that it will never complete.
+     */
+    private class SlotProcessor implements TestClassProcessor {
+        private final TestClassProcessor processor;
+        private final Slot slot;
+
+        private SlotProcessor(TestClassProcessor processor, Slot slot) {
+            this.processor = processor;
+            this.slot = slot;
+        }
+
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            try {
+                processor.startProcessing(resultProcessor);
+            } catch (Throwable t) {
+                slotStopped(slot, t);
+                throw UncheckedException.throwAsUncheckedException(t);
+            }
+        }
+
+        public void processTestClass(TestClassRunInfo testClass) {
+            try {
+                processor.processTestClass(testClass);
+            } catch (Throwable t) {
+                slotStopped(slot, t);
+                throw UncheckedException.throwAsUncheckedException(t);
+            }
+        }
+
+        public void stop() {
+            processor.stop();
+        }
+    }
+
+    /**
+     * Forwards the results of a single processor, and notices when it completes a test class or its worker process stops.
+     */
+    private class Slot implements TestResultProcessor, WorkerProcessStoppedListener {
+        private TestClassProcessor processor;
+        private boolean alive = true;
+        private boolean busy;
+        private final Set<Object> runningClasses = Collections.synchronizedSet(new HashSet<Object>());
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            // Only track the outermost test class, as a suite class reports the classes it contains as nested test classes
+            if (test.isComposite() && test.getClassName() != null && runningClasses.isEmpty()) {
+                runningClasses.add(test.getId());
+            }
+            resultProcessor.started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+            if (runningClasses.remove(testId)) {
+                testClassCompleted(this);
+            }
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            resultProcessor.failure(testId, result);
+        }
+
+        public void workerStopped(Throwable failure) {
+            slotStopped(this, failure);
+        }
+    }
+}
@@ -23,7 +23,11 @@ import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.Factory;
 import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
 import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
 import org.gradle.process.internal.WorkerProcess;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
@@ -38,6 +42,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
+    private volatile boolean stopping;
 
     public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction) {
         this.workerFactory = workerFactory;
@@ -67,6 +72,16 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         builder.worker(new TestWorker(processorFactory));
         options.copyTo(builder.getJavaCommand());
         buildConfigAction.execute(builder);
+        if (resultProcessor instanceof WorkerProcessStoppedListener) {
+            builder.getJavaCommand().listener(new ExecHandleListener() {
+                public void executionStarted(ExecHandle execHandle) {
+                }
+
+                public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+                    workerFinished(execResult);
+                }
+            });
+        }
 
         workerProcess = builder.build();
         workerProcess.start();
@@ -80,7 +95,22 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         return remoteProcessor;
     }
 
+    void workerFinished(ExecResult execResult) {
+        if (stopping) {
+            return;
+        }
+        Throwable failure;
+        try {
+            execResult.rethrowFailure().assertNormalExitValue();
+            failure = new ExecException(String.format("Test worker process finished with exit value %d before it was asked to stop.", execResult.getExitValue()));
+        } catch (Throwable t) {
+            failure = t;
+        }
+        ((WorkerProcessStoppedListener) resultProcessor).workerStopped(failure);
+    }
+
     public void stop() {
+        stopping = true;
         if (remoteProcessor != null) {
             remoteProcessor.stop();
             workerProcess.waitForStop();
@@ -503,6 +503,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         File binaryResultsDir = getBinResultsDir();
+        Map<String, Long> previousClassDurations = DefaultTestExecuter.isBalanceForks() ? readClassDurations(binaryResultsDir) : Collections.<String, Long>emptyMap();
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
 
@@ -523,7 +524,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         TestResultProcessor resultProcessor = new StateTrackingTestResultProcessor(testListenerInternalBroadcaster.getSource());
 
         if (testExecuter == null) {
-            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory());
+            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), previousClassDurations);
         }
 
         try {
@@ -1115,6 +1116,21 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         action.execute(filter);
     }
 
+    private Map<String, Long> readClassDurations(File binaryResultsDir) {
+        final Map<String, Long> durations = new HashMap<String, Long>();
+        try {
+            new TestResultSerializer(binaryResultsDir).read(new Action<TestClassResult>() {
+                public void execute(TestClassResult classResult) {
+                    durations.put(classResult.getClassName(), classResult.getDuration());
+                }
+            });
+        } catch (RuntimeException e) {
+            getLogger().info("Could not read the test class durations of the previous run from {}.", binaryResultsDir, e);
+            return Collections.emptyMap();
+        }
+        return durations;
+    }
+
     // only way I know of to determine current log level
     private LogLevel getCurrentLogLevel() {
         for (LogLevel level : LogLevel.values()) {
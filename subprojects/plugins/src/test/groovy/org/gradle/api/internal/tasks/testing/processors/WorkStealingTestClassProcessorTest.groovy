@@ -0,0 +1,280 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.internal.tasks.testing.worker.WorkerProcessStoppedListener
+import org.gradle.internal.Factory
+import org.gradle.messaging.actor.Actor
+import org.gradle.messaging.actor.ActorFactory
+import spock.lang.Specification
+
+class WorkStealingTestClassProcessorTest extends Specification {
+    private final Factory<TestClassProcessor> factory = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final TestResultProcessor asyncResultProcessor = Mock()
+    private final Actor resultProcessorActor = Mock()
+    private final ActorFactory actorFactory = Mock()
+    private final TestClassProcessor processor1 = Mock()
+    private final TestClassProcessor asyncProcessor1 = Mock()
+    private final Actor actor1 = Mock()
+    private final WorkStealingTestClassProcessor processor = new WorkStealingTestClassProcessor(1, factory, actorFactory, [:])
+    private TestResultProcessor slotResultProcessor
+    private TestClassProcessor slotProcessor
+
+    def setup() {
+        _ * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        _ * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+    }
+
+    def doesNothingWhenNoTestsProcessed() {
+        when:
+        processor.stop()
+
+        then:
+        0 * factory.create()
+        1 * resultProcessorActor.stop()
+    }
+
+    def startsProcessorOnDemandAndQueuesTestClassesWhileItIsBusy() {
+        def first = testClass("First")
+        def second = testClass("Fast")
+
+        when:
+        startFirstClass(first)
+        processor.processTestClass(second)
+
+        then:
+        0 * asyncProcessor1.processTestClass(second)
+    }
+
+    def handsTestClassesToProcessorLongestFirstOnceAllTestClassesAreReceivedWhenDurationsAreKnown() {
+        def processor = new WorkStealingTestClassProcessor(1, factory, actorFactory, [Slow: 1000L, Fast: 10L])
+        def first = testClass("First")
+        def fast = testClass("Fast")
+        def unknown = testClass("Unknown")
+        def slow = testClass("Slow")
+        def processed = []
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(first)
+        processor.processTestClass(fast)
+        processor.processTestClass(unknown)
+        processor.processTestClass(slow)
+
+        then:
+        0 * factory.create()
+
+        when:
+        processor.stop()
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(_) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.startProcessing(_) >> { TestResultProcessor slot -> slotResultProcessor = slot }
+        4 * asyncProcessor1.processTestClass(_) >> { TestClassRunInfo testClass ->
+            processed << testClass
+            completeClass(processed.size(), testClass.testClassName)
+        }
+        processed == [slow, first, unknown, fast]
+    }
+
+    def handsQueuedTestClassesToProcessorInOrderWhenItCompletesATestClass() {
+        def first = testClass("First")
+        def second = testClass("Second")
+        def third = testClass("Third")
+        startFirstClass(first)
+        processor.processTestClass(second)
+        processor.processTestClass(third)
+
+        when:
+        completeClass(1, "First")
+
+        then:
+        1 * asyncResultProcessor.completed(1, _)
+        1 * asyncProcessor1.processTestClass(second)
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        completeClass(2, "Second")
+
+        then:
+        1 * asyncProcessor1.processTestClass(third)
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def handsOutOneTestClassWhenASuiteCompletes() {
+        def first = testClass("Suite")
+        def second = testClass("Second")
+        def third = testClass("Third")
+        startFirstClass(first)
+        processor.processTestClass(second)
+        processor.processTestClass(third)
+
+        when:
+        slotResultProcessor.started(new DefaultTestClassDescriptor(1, "Suite"), new TestStartEvent(0))
+        completeClass(2, "Nested")
+        slotResultProcessor.completed(1, new TestCompleteEvent(0))
+
+        then:
+        1 * asyncProcessor1.processTestClass(second)
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def ignoresCompletionFromProcessorThatIsAlreadyIdle() {
+        def first = testClass("First")
+        def second = testClass("Second")
+        def third = testClass("Third")
+        startFirstClass(first)
+        completeClass(1, "First")
+        completeClass(2, "Other")
+
+        when:
+        processor.processTestClass(second)
+        processor.processTestClass(third)
+
+        then:
+        1 * asyncProcessor1.processTestClass(second)
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def doesNotHandOutTestClassWhenATestMethodCompletes() {
+        def first = testClass("First")
+        def second = testClass("Fast")
+        startFirstClass(first)
+        processor.processTestClass(second)
+
+        when:
+        def method = new DefaultTestDescriptor(2, "First", "test")
+        slotResultProcessor.started(method, new TestStartEvent(0))
+        slotResultProcessor.completed(2, new TestCompleteEvent(0))
+
+        then:
+        1 * asyncResultProcessor.started(method, _)
+        1 * asyncResultProcessor.completed(2, _)
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def handsTestClassToIdleProcessorAndStopsAtEnd() {
+        def first = testClass("First")
+        def second = testClass("Fast")
+        startFirstClass(first)
+        completeClass(1, "First")
+
+        when:
+        processor.processTestClass(second)
+
+        then:
+        1 * asyncProcessor1.processTestClass(second)
+        0 * factory.create()
+
+        when:
+        processor.stop()
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * actor1.stop()
+        1 * resultProcessorActor.stop()
+    }
+
+    def stopsWaitingForQueuedTestClassesAndRethrowsFailureWhenTheOnlyProcessorFails() {
+        def first = testClass("First")
+        def second = testClass("Fast")
+        def failure = new RuntimeException("could not start worker")
+        startFirstClass(first)
+        processor.processTestClass(second)
+
+        when:
+        slotProcessor.processTestClass(first)
+
+        then:
+        1 * processor1.processTestClass(first) >> { throw failure }
+        thrown(RuntimeException)
+
+        when:
+        processor.stop()
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * actor1.stop()
+        1 * resultProcessorActor.stop()
+        0 * asyncProcessor1.processTestClass(_)
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def stopsWaitingForQueuedTestClassesAndRethrowsFailureWhenTheOnlyWorkerProcessStops() {
+        def first = testClass("First")
+        def second = testClass("Fast")
+        def failure = new RuntimeException("worker crashed")
+        startFirstClass(first)
+        processor.processTestClass(second)
+
+        when:
+        (slotResultProcessor as WorkerProcessStoppedListener).workerStopped(failure)
+        processor.stop()
+
+        then:
+        1 * asyncProcessor1.stop()
+        0 * asyncProcessor1.processTestClass(_)
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def doesNotHandTestClassesToProcessorWhoseWorkerProcessHasStopped() {
+        def first = testClass("First")
+        def second = testClass("Fast")
+        startFirstClass(first)
+        processor.processTestClass(second)
+        (slotResultProcessor as WorkerProcessStoppedListener).workerStopped(new RuntimeException())
+
+        when:
+        completeClass(1, "First")
+
+        then:
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def startFirstClass(TestClassRunInfo testClass) {
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(_) >> { TestClassProcessor target -> slotProcessor = target; actor1 }
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.startProcessing(_) >> { TestResultProcessor slot -> slotResultProcessor = slot }
+        1 * asyncProcessor1.processTestClass(testClass)
+        processor.processTestClass(testClass)
+    }
+
+    def completeClass(Object id, String className) {
+        slotResultProcessor.started(new DefaultTestClassDescriptor(id, className), new TestStartEvent(0))
+        slotResultProcessor.completed(id, new TestCompleteEvent(0))
+    }
+
+    def testClass(String name) {
+        TestClassRunInfo testClass = Mock()
+        _ * testClass.testClassName >> name
+        testClass
+    }
+}
@@ -18,9 +18,12 @@ package org.gradle.api.internal.tasks.testing.worker
 
 import org.gradle.api.Action
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.Factory
+import org.gradle.process.ExecResult
 import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.ExecException
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -43,4 +46,34 @@ class ForkingTestClassProcessorTest extends Specification {
         1 * remoteProcessor.processTestClass(test2)
         0 * remoteProcessor._
     }
+
+    def "notifies result processor when worker process stops before it is asked to"() {
+        def resultProcessor = Mock(StoppedListeningResultProcessor)
+        def failure = new ExecException("crashed")
+        def execResult = Stub(ExecResult) {
+            rethrowFailure() >> { throw failure }
+        }
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.workerFinished(execResult)
+
+        then:
+        1 * resultProcessor.workerStopped(failure)
+    }
+
+    def "does not notify result processor when worker process stops after it is asked to"() {
+        def resultProcessor = Mock(StoppedListeningResultProcessor)
+        processor.startProcessing(resultProcessor)
+        processor.stop()
+
+        when:
+        processor.workerFinished(Stub(ExecResult))
+
+        then:
+        0 * resultProcessor._
+    }
+
+    interface StoppedListeningResultProcessor extends TestResultProcessor, WorkerProcessStoppedListener {
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.util.EntityUtils
+import org.gradle.authentication.Authentication
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import org.mortbay.jetty.handler.AbstractHandler
+import spock.lang.Specification
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class HttpConnectionPoolIntegrationTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule final HttpServer server = new HttpServer()
+    final connectionPool = new HttpConnectionPool(4)
+    final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>())
+
+    def setup() {
+        server.addHandler(new AbstractHandler() {
+            void handle(String target, HttpServletRequest request, HttpServletResponse response, int dispatch) {
+                clientPorts << request.remotePort
+            }
+        })
+        tmpDir.file("repo/file.txt").text = "some content"
+        server.allowGetOrHead("/repo", tmpDir.file("repo"))
+        server.start()
+    }
+
+    def cleanup() {
+        connectionPool.stop()
+    }
+
+    def "reuses connections between clients"() {
+        given:
+        def first = client(connectionPool)
+        def second = client(connectionPool)
+
+        when:
+        3.times {
+            assert get(first) == "some content"
+            assert get(second) == "some content"
+        }
+
+        then:
+        clientPorts.size() == 1
+        connectionPool.statistics.available == 1
+        connectionPool.statistics.leased == 0
+    }
+
+    def "performs requests from one client concurrently"() {
+        given:
+        def client = client(connectionPool)
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def results = executor.invokeAll((1..40).collect { { -> get(client) } as Callable<String> })*.get()
+
+        then:
+        results.every { it == "some content" }
+        clientPorts.size() <= 4
+        connectionPool.statistics.leased == 0
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "clients that share a connection pool use a single connection"() {
+        given:
+        def requests = 50
+        def clients = 10
+
+        when:
+        performRequests(requests, clients) { new HttpConnectionPool(4) }
+        def unsharedConnections = clientPorts.size()
+        clientPorts.clear()
+        performRequests(requests, clients) { connectionPool }
+        def sharedConnections = clientPorts.size()
+
+        then:
+        unsharedConnections == clients
+        sharedConnections == 1
+    }
+
+    /**
+     * Performs the given number of requests, spread over the given number of clients that are created one after the other, as the repositories of a build are.
+     */
+    private void performRequests(int requests, int clients, Closure<HttpConnectionPool> pool) {
+        List<HttpConnectionPool> pools = []
+        try {
+            clients.times {
+                def p = pool.call()
+                pools << p
+                def client = client(p)
+                requests.intdiv(clients).times {
+                    assert get(client) == "some content"
+                }
+            }
+        } finally {
+            pools.unique().findAll { !it.is(connectionPool) }*.stop()
+        }
+    }
+
+    private static HttpClientHelper client(HttpConnectionPool connectionPool) {
+        return new HttpClientHelper(new DefaultHttpSettings(Collections.<Authentication>emptySet()), connectionPool)
+    }
+
+    private String get(HttpClientHelper client) {
+        def response = client.performGet("${server.uri}/repo/file.txt")
+        return EntityUtils.toString(response.entity)
+    }
+}
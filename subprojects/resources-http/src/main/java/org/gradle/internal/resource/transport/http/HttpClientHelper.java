@@ -16,16 +16,23 @@
 
 package org.gradle.internal.resource.transport.http;
 
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScheme;
+import org.apache.http.client.AuthCache;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.DecompressingHttpClient;
 import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.impl.client.DefaultRedirectStrategy;
 import org.apache.http.impl.client.SystemDefaultHttpClient;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
@@ -35,16 +42,25 @@ import java.io.IOException;
 
 /**
  * Provides some convenience and unified logging.
+ *
+ * <p>Requests may be performed concurrently. Each request uses its own context, and the connections are taken from the given pool.</p>
  */
 public class HttpClientHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientHelper.class);
     private final HttpClient client;
-    private final BasicHttpContext httpContext = new BasicHttpContext();
+    private final AuthCache authCache = new SynchronizedAuthCache();
+    private volatile Object userToken;
 
-    public HttpClientHelper(HttpSettings settings) {
+    public HttpClientHelper(HttpSettings settings, HttpConnectionPool connectionPool) {
         alwaysUseKeepAliveConnections();
-        DefaultHttpClient client = new SystemDefaultHttpClient();
+        final ClientConnectionManager connectionManager = connectionPool.getConnectionManager();
+        DefaultHttpClient client = new SystemDefaultHttpClient() {
+            @Override
+            protected ClientConnectionManager createClientConnectionManager() {
+                return connectionManager;
+            }
+        };
         client.setRedirectStrategy(new AlwaysRedirectRedirectStrategy());
         new HttpClientConfigurer(settings).configure(client);
         this.client = new DecompressingHttpClient(client);
@@ -73,6 +89,19 @@ public class HttpClientHelper {
         return processResponse(source, "GET", performRawGet(source));
     }
 
+    /**
+     * Performs a GET that the server answers with a 304 (Not Modified) status, without content, when the resource still has the given entity tag.
+     */
+    public HttpResponse performConditionalGet(String source, String etag) {
+        HttpGet request = new HttpGet(source);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        return processResponse(source, "GET", performRequest(request));
+    }
+
+    public boolean wasNotModified(HttpResponse response) {
+        return response.getStatusLine().getStatusCode() == 304;
+    }
+
     public HttpResponse performRequest(HttpRequestBase request) {
         String method = request.getMethod();
 
@@ -107,10 +136,20 @@ public class HttpClientHelper {
     }
 
     public HttpResponse performHttpRequest(HttpRequestBase request) throws IOException {
-        // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
-        httpContext.removeAttribute(DefaultRedirectStrategy.REDIRECT_LOCATIONS);
+        HttpContext httpContext = new BasicHttpContext();
+        httpContext.setAttribute(ClientContext.AUTH_CACHE, authCache);
+        // Connections authenticated with a connection based scheme, such as NTLM, are only reused for requests with the same user token
+        Object previousUserToken = userToken;
+        if (previousUserToken != null) {
+            httpContext.setAttribute(ClientContext.USER_TOKEN, previousUserToken);
+        }
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
-        return client.execute(request, httpContext);
+        HttpResponse response = client.execute(request, httpContext);
+        Object newUserToken = httpContext.getAttribute(ClientContext.USER_TOKEN);
+        if (newUserToken != null) {
+            userToken = newUserToken;
+        }
+        return response;
     }
 
     private HttpResponse processResponse(String source, String method, HttpResponse response) {
@@ -126,4 +165,27 @@ public class HttpClientHelper {
 
         return response;
     }
+
+    /**
+     * Remembers the authentication schemes used for each host, so that later requests can authenticate without a challenge.
+     */
+    private static class SynchronizedAuthCache implements AuthCache {
+        private final BasicAuthCache delegate = new BasicAuthCache();
+
+        public synchronized void put(HttpHost host, AuthScheme authScheme) {
+            delegate.put(host, authScheme);
+        }
+
+        public synchronized AuthScheme get(HttpHost host) {
+            return delegate.get(host);
+        }
+
+        public synchronized void remove(HttpHost host) {
+            delegate.remove(host);
+        }
+
+        public synchronized void clear() {
+            delegate.clear();
+        }
+    }
 }
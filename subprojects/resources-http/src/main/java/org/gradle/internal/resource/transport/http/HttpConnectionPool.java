@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import net.jcip.annotations.ThreadSafe;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.pool.PoolStats;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of HTTP connections that is shared by all HTTP clients in the process, so that keep-alive connections to a host are reused by every repository on that host
+ * and by later builds in the same daemon.
+ *
+ * <p>The number of connections to each host is limited by the {@code http.maxConnections} system property, as for a client with its own connections. Connections that
+ * have been idle for longer than {@link #MAX_IDLE_SECONDS} are closed when a client is created.</p>
+ *
+ * <p>The SSL socket factories of the pool are created from the {@code javax.net.ssl} system properties. When these properties change, later clients use a new set of
+ * connections, and the previous connections are closed as they become idle.</p>
+ */
+@ThreadSafe
+public class HttpConnectionPool implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionPool.class);
+
+    public static final long MAX_IDLE_SECONDS = 180;
+    private static final String[] SSL_PROPERTIES = {
+        "javax.net.ssl.keyStore", "javax.net.ssl.keyStoreType", "javax.net.ssl.keyStorePassword", "javax.net.ssl.keyStoreProvider",
+        "javax.net.ssl.trustStore", "javax.net.ssl.trustStoreType", "javax.net.ssl.trustStorePassword", "javax.net.ssl.trustStoreProvider",
+        "ssl.KeyManagerFactory.algorithm", "ssl.TrustManagerFactory.algorithm", "https.protocols", "https.cipherSuites"
+    };
+
+    private final Object lock = new Object();
+    private final int maxConnectionsPerHost;
+    private final List<PoolingClientConnectionManager> retired = new ArrayList<PoolingClientConnectionManager>();
+    private PoolingClientConnectionManager connectionManager;
+    private List<String> sslSettings;
+
+    public HttpConnectionPool() {
+        this(Integer.parseInt(System.getProperty("http.maxConnections", "5")));
+    }
+
+    public HttpConnectionPool(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Returns the connection manager for a new client.
+     */
+    public ClientConnectionManager getConnectionManager() {
+        synchronized (lock) {
+            List<String> currentSslSettings = currentSslSettings();
+            if (connectionManager != null && !currentSslSettings.equals(sslSettings)) {
+                LOGGER.debug("SSL system properties have changed, creating new HTTP connections.");
+                retired.add(connectionManager);
+                connectionManager = null;
+            }
+            if (connectionManager == null) {
+                connectionManager = new PoolingClientConnectionManager(SchemeRegistryFactory.createSystemDefault());
+                connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+                connectionManager.setMaxTotal(4 * maxConnectionsPerHost);
+                sslSettings = currentSslSettings;
+            }
+            closeIdleConnections();
+            return connectionManager;
+        }
+    }
+
+    private void closeIdleConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(MAX_IDLE_SECONDS, TimeUnit.SECONDS);
+        for (PoolingClientConnectionManager manager : retired) {
+            // Clients created earlier may still use the manager, so only close its connections
+            manager.closeIdleConnections(0, TimeUnit.SECONDS);
+        }
+        LOGGER.debug("HTTP connection pool: {}", getStatistics());
+    }
+
+    /**
+     * Returns the statistics of the current connections, over all hosts.
+     */
+    public PoolStats getStatistics() {
+        synchronized (lock) {
+            if (connectionManager == null) {
+                return new PoolStats(0, 0, 0, 4 * maxConnectionsPerHost);
+            }
+            return connectionManager.getTotalStats();
+        }
+    }
+
+    private static List<String> currentSslSettings() {
+        List<String> settings = new ArrayList<String>(SSL_PROPERTIES.length);
+        for (String property : SSL_PROPERTIES) {
+            settings.add(System.getProperty(property));
+        }
+        return settings;
+    }
+
+    public void stop() {
+        synchronized (lock) {
+            try {
+                for (PoolingClientConnectionManager manager : retired) {
+                    manager.shutdown();
+                }
+                if (connectionManager != null) {
+                    connectionManager.shutdown();
+                }
+            } finally {
+                retired.clear();
+                connectionManager = null;
+            }
+        }
+    }
+}
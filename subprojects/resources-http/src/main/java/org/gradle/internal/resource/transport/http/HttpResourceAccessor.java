@@ -20,8 +20,11 @@ import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.gradle.api.Nullable;
+import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceAccessor;
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+import org.gradle.internal.resource.transfer.RevalidatedResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +60,46 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
         return null;
     }
 
+    /**
+     * Sends the entity tag of the cached copy with the request, so that an unchanged resource is checked and a changed resource is downloaded in a single request.
+     * Without an entity tag, falls back to comparing the meta-data from a HEAD request, as a modification date alone is not precise enough.
+     */
+    @Nullable
+    public RevalidatedResource<ExternalResourceReadResponse> openResourceIfChanged(URI uri, ExternalResourceMetaData cachedMetaData) {
+        String etag = cachedMetaData.getEtag();
+        if (etag == null) {
+            return RevalidatedResource.checkThenOpen(this, uri, cachedMetaData);
+        }
+
+        abortOpenResources();
+        String location = uri.toString();
+        LOGGER.debug("Revalidating external resource: {}", location);
+
+        HttpResponse response = http.performConditionalGet(location, etag);
+        if (response == null) {
+            return null;
+        }
+        if (http.wasNotModified(response)) {
+            ExternalResourceMetaData notModifiedMetaData = new HttpResponseResource("GET", uri, response).getMetaData();
+            return RevalidatedResource.unchanged(mergeMetaData(uri, cachedMetaData, notModifiedMetaData));
+        }
+        ExternalResourceReadResponse resource = recordOpenGetResource(wrapResponse(uri, response));
+        return RevalidatedResource.changed(resource);
+    }
+
+    /**
+     * A 304 response carries the validators of the resource, but not its content length or type.
+     */
+    private static ExternalResourceMetaData mergeMetaData(URI uri, ExternalResourceMetaData cachedMetaData, ExternalResourceMetaData notModifiedMetaData) {
+        return new DefaultExternalResourceMetaData(
+            uri,
+            notModifiedMetaData.getLastModified() != null ? notModifiedMetaData.getLastModified() : cachedMetaData.getLastModified(),
+            cachedMetaData.getContentLength(),
+            cachedMetaData.getContentType(),
+            notModifiedMetaData.getEtag() != null ? notModifiedMetaData.getEtag() : cachedMetaData.getEtag(),
+            cachedMetaData.getSha1());
+    }
+
     /**
      * Same as #getResource except that it always gives access to the response body,
      * irrespective of the returned HTTP status code. Never returns {@code null}.
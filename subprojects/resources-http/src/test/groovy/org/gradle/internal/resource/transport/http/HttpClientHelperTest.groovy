@@ -25,9 +25,14 @@ import spock.lang.Specification
 
 class HttpClientHelperTest extends Specification {
     @Rule SetSystemProperties sysProp = new SetSystemProperties()
+    final connectionPool = new HttpConnectionPool()
+
+    def cleanup() {
+        connectionPool.stop()
+    }
 
     def "throws HttpRequestException if an IO error occurs during a request"() {
-        def client = new HttpClientHelper(httpSettings) {
+        def client = new HttpClientHelper(httpSettings, connectionPool) {
             @Override
             protected HttpResponse executeGetOrHead(HttpRequestBase method) {
                 throw new IOException("ouch")
@@ -47,7 +52,7 @@ class HttpClientHelperTest extends Specification {
         System.setProperty("http.keepAlive", "false")
 
         when:
-        new HttpClientHelper(httpSettings)
+        new HttpClientHelper(httpSettings, connectionPool)
 
         then:
         System.getProperty("http.keepAlive", "true")
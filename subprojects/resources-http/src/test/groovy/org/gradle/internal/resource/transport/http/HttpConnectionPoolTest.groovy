@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.HttpHost
+import org.apache.http.conn.routing.HttpRoute
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class HttpConnectionPoolTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
+    final pool = new HttpConnectionPool(3)
+
+    def cleanup() {
+        pool.stop()
+    }
+
+    def "shares connection manager between clients"() {
+        when:
+        def first = pool.connectionManager
+        def second = pool.connectionManager
+
+        then:
+        first.is(second)
+        first.maxTotal == 12
+        first.defaultMaxPerRoute == 3
+    }
+
+    def "uses new connection manager when SSL system properties change"() {
+        given:
+        def first = pool.connectionManager
+
+        when:
+        System.setProperty("javax.net.ssl.trustStore", "some-store")
+        def second = pool.connectionManager
+
+        then:
+        !first.is(second)
+        pool.connectionManager.is(second)
+    }
+
+    def "reports statistics before any connection is made"() {
+        expect:
+        pool.statistics.leased == 0
+        pool.statistics.available == 0
+        pool.statistics.max == 12
+    }
+
+    def "shuts down connection managers when stopped"() {
+        given:
+        def first = pool.connectionManager
+        System.setProperty("javax.net.ssl.trustStore", "some-store")
+        def second = pool.connectionManager
+
+        when:
+        pool.stop()
+
+        and:
+        first.requestConnection(new HttpRoute(new HttpHost("localhost")), null)
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        second.requestConnection(new HttpRoute(new HttpHost("localhost")), null)
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
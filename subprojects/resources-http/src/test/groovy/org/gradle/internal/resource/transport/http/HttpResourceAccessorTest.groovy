@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.HttpResponse
+import org.apache.http.HttpVersion
+import org.apache.http.impl.cookie.DateUtils
+import org.apache.http.message.BasicHttpResponse
+import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData
+import spock.lang.Specification
+
+class HttpResourceAccessorTest extends Specification {
+    final uri = new URI("http://somewhere/thing.pom")
+    final http = Mock(HttpClientHelper)
+    final accessor = new HttpResourceAccessor(http)
+
+    def "uses cached copy when server responds that the entity tag has not changed"() {
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, 1000L, 12L, "text/xml", '"abc"', null)
+        def response = response(304)
+        response.addHeader("ETag", '"abc"')
+
+        when:
+        def result = accessor.openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performConditionalGet(uri.toString(), '"abc"') >> response
+        1 * http.wasNotModified(response) >> true
+        0 * http._
+
+        and:
+        result.unchanged
+        result.resource == null
+        result.metaData.etag == '"abc"'
+        result.metaData.contentLength == 12L
+        result.metaData.contentType == "text/xml"
+        result.metaData.lastModified == new Date(1000L)
+    }
+
+    def "returns changed resource when server responds with content"() {
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, 1000L, 12L, "text/xml", '"abc"', null)
+        def response = response(200)
+        response.addHeader("ETag", '"def"')
+
+        when:
+        def result = accessor.openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performConditionalGet(uri.toString(), '"abc"') >> response
+        1 * http.wasNotModified(response) >> false
+        0 * http._
+
+        and:
+        !result.unchanged
+        result.resource.metaData.etag == '"def"'
+    }
+
+    def "returns null when resource is missing"() {
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, 1000L, 12L, "text/xml", '"abc"', null)
+
+        when:
+        def result = accessor.openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performConditionalGet(uri.toString(), '"abc"') >> null
+        0 * http._
+
+        and:
+        result == null
+    }
+
+    def "compares meta-data when cached copy has no entity tag"() {
+        def cachedMetaData = new DefaultExternalResourceMetaData(uri, 1000L, 12L)
+        def response = response(200)
+        response.addHeader("Last-Modified", DateUtils.formatDate(new Date(1000L)))
+        response.addHeader("Content-Length", "12")
+
+        when:
+        def result = accessor.openResourceIfChanged(uri, cachedMetaData)
+
+        then:
+        1 * http.performHead(uri.toString()) >> response
+        0 * http._
+
+        and:
+        result.unchanged
+    }
+
+    private static HttpResponse response(int statusCode) {
+        return new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, "reason")
+    }
+}
@@ -24,6 +24,7 @@ import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.ExternalResourceAccessor;
 import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+import org.gradle.internal.resource.transfer.RevalidatedResource;
 
 import java.net.URI;
 
@@ -70,4 +71,8 @@ public class SftpResourceAccessor implements ExternalResourceAccessor {
         ExternalResourceMetaData metaData = getMetaData(location);
         return metaData != null ? new SftpResource(sftpClientFactory, metaData, location, credentials) : null;
     }
+
+    public RevalidatedResource<ExternalResourceReadResponse> openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) {
+        return RevalidatedResource.checkThenOpen(this, location, cachedMetaData);
+    }
 }
@@ -41,6 +41,12 @@ public class DefaultExternalResourceConnector implements ExternalResourceConnect
         return accessor.openResource(location);
     }
 
+    @Nullable
+    @Override
+    public RevalidatedResource<ExternalResourceReadResponse> openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) {
+        return accessor.openResourceIfChanged(location, cachedMetaData);
+    }
+
     @Nullable
     @Override
     public ExternalResourceMetaData getMetaData(URI location) {
@@ -39,6 +39,19 @@ public interface ExternalResourceAccessor {
     @Nullable
     ExternalResourceReadResponse openResource(URI location) throws ResourceException;
 
+    /**
+     * Read the resource at the given location, unless it is unchanged since the given meta-data was obtained.
+     *
+     * Implementations should check and read the resource in a single request, where the transport allows it.
+     *
+     * @param location The address of the resource to obtain
+     * @param cachedMetaData The meta-data of the copy of the resource that the caller has
+     * @return The result if the resource exists, otherwise null. Caller is responsible for closing the resource of the result.
+     * @throws ResourceException If the resource may exist, but not could be obtained for some reason.
+     */
+    @Nullable
+    RevalidatedResource<ExternalResourceReadResponse> openResourceIfChanged(URI location, ExternalResourceMetaData cachedMetaData) throws ResourceException;
+
     /**
      * Obtains only the metadata about the resource.
      *
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.Factory;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaDataCompare;
+
+import java.net.URI;
+
+/**
+ * The result of checking a resource against the meta-data of a copy of the resource obtained earlier. Either the copy is still current, or the resource has
+ * changed and its content can be read.
+ *
+ * @param <T> The type of the resource whose content can be read.
+ */
+public class RevalidatedResource<T> {
+    private final T resource;
+    private final ExternalResourceMetaData metaData;
+
+    private RevalidatedResource(@Nullable T resource, @Nullable ExternalResourceMetaData metaData) {
+        this.resource = resource;
+        this.metaData = metaData;
+    }
+
+    public static <T> RevalidatedResource<T> changed(T resource) {
+        return new RevalidatedResource<T>(resource, null);
+    }
+
+    public static <T> RevalidatedResource<T> unchanged(ExternalResourceMetaData metaData) {
+        return new RevalidatedResource<T>(null, metaData);
+    }
+
+    /**
+     * Checks the resource using {@link ExternalResourceAccessor#getMetaData(URI)} and then reads it when it may have changed. For transports that cannot
+     * check and read a resource in a single request.
+     */
+    @Nullable
+    public static RevalidatedResource<ExternalResourceReadResponse> checkThenOpen(ExternalResourceAccessor accessor, URI location, ExternalResourceMetaData cachedMetaData) {
+        final ExternalResourceMetaData remoteMetaData = accessor.getMetaData(location);
+        if (remoteMetaData == null) {
+            return null;
+        }
+        boolean isUnchanged = ExternalResourceMetaDataCompare.isDefinitelyUnchanged(cachedMetaData, new Factory<ExternalResourceMetaData>() {
+            public ExternalResourceMetaData create() {
+                return remoteMetaData;
+            }
+        });
+        if (isUnchanged) {
+            return unchanged(remoteMetaData);
+        }
+        ExternalResourceReadResponse response = accessor.openResource(location);
+        return response == null ? null : RevalidatedResource.changed(response);
+    }
+
+    public boolean isUnchanged() {
+        return resource == null;
+    }
+
+    /**
+     * Returns the resource, when it has changed. The caller is responsible for closing the resource.
+     */
+    @Nullable
+    public T getResource() {
+        return resource;
+    }
+
+    /**
+     * Returns the current meta-data of the resource, when it is unchanged.
+     */
+    @Nullable
+    public ExternalResourceMetaData getMetaData() {
+        return metaData;
+    }
+}